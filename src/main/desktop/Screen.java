@@ -5,11 +5,13 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.ZonedDateTime;
 import java.io.IOException;
-import java.io.FileNotFoundException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.awt.Dimension;
@@ -23,11 +25,16 @@ import java.awt.geom.Rectangle2D;
 import java.awt.font.FontRenderContext;
 import java.awt.geom.AffineTransform;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import time.UTCTime;
 import time.Duration;
 import os.OSPath;
+import os.FileWatcher;
 import school.SchoolAPI;
 import school.SchoolPeriod;
+import school.SchoolClock;
+import school.SchoolHolder;
+import school.SchoolSnapshot;
 import school.SchoolJson;
 import user.UserAPI;
 import user.UserPeriod;
@@ -46,37 +53,157 @@ import user.UserJson;
  */
 public class Screen extends JPanel {
 
-    private SchoolAPI schoolAPI;
-    private UserAPI userAPI;
+    /** Milliseconds a watched file must be unchanged before it is reloaded. */
+    private static final long RELOAD_DEBOUNCE = 250;
+    /** Logger for the time taken by each reload of the school. */
+    private static final Logger LOGGER = Logger.getLogger(Screen.class.getName());
+
+    /** The current school, which is replaced by a background reload when the file changes. */
+    private final SchoolHolder school;
+    /** The clock over the current school, only used by the thread that paints. */
+    private SchoolClock schoolClock;
+    /** The current user, which is replaced by the file watcher when the user file changes. */
+    private volatile UserAPI userAPI;
+    /** Reloads the user and school files when they are changed on the disk. */
+    private FileWatcher fileWatcher;
     
     
     /**
      * Constructs a new {@code Screen} object.
      */
     public Screen() {
+        this.school = new SchoolHolder();
+
         // userAPI must be defined first, since data within it may be used to define schoolAPI
         try {
-            this.userAPI = new UserAPI(OSPath.join(OSPath.getUserJsonDiskPath(),
-                                                   OSPath.getUserJsonFile()));
+            this.userAPI = new UserAPI(Screen.getUserFile());
         }
         catch (IOException | IllegalArgumentException e) {
             PCDesktopApp.displayMessage("Error", "Screen: Exception when creating UserAPI\n" + e);
         }
+
+        // Files are watched even if they could not be loaded, so that fixing them takes effect
+        this.watchFiles();
         
+        if (this.userAPI == null) {
+            PCDesktopApp.displayMessage("Error", "Screen: Exception when creating SchoolAPI\n" +
+                                        "userAPI is null, cannot get school file name");
+            return;
+        }
+        this.reloadSchool();
+    }
+
+
+    /**
+     * Returns the path of the user json file on the disk.
+     *
+     * @return the path of the user json file on the disk.
+     */
+    private static Path getUserFile() {
+        return OSPath.join(OSPath.getUserJsonDiskPath(), OSPath.getUserJsonFile());
+    }
+
+
+    /**
+     * Starts watching the directories of the user json file and the school json files on the
+     * disk. School files packaged in the jar cannot change, so they are not watched.
+     */
+    private void watchFiles() {
         try {
-            if (this.userAPI == null) {
-                throw new IllegalArgumentException("userAPI is null, cannot get school file name");
+            this.fileWatcher = new FileWatcher(Screen.RELOAD_DEBOUNCE,
+                                               (file) -> this.fileChanged(file));
+            this.fileWatcher.watch(OSPath.getUserJsonDiskPath());
+            if (Files.isDirectory(OSPath.getSchoolJsonDiskPath())) {
+                this.fileWatcher.watch(OSPath.getSchoolJsonDiskPath());
             }
-            // Create schoolAPI with the user's preferred school file. Also, since some
-            // institutions (like colleges) have "Days" data that is specific to each user rather
-            // than a consistent bell schedule, there is an option to store that data in User.json
-            // instead of the school file
-            this.schoolAPI = new SchoolAPI(this.userAPI.getSchoolFile());
+            this.fileWatcher.start();
         }
-        catch (FileNotFoundException | IllegalArgumentException e) {
-            PCDesktopApp.displayMessage("Error", "Screen: Exception when creating SchoolAPI\n" + e);
+        catch (IOException e) {
+            PCDesktopApp.displayMessage("Error", "Screen: Exception when watching files\n" + e);
         }
     }
+
+
+    /**
+     * Reloads whichever of the user json file and the current school json file has changed.
+     * This method is called on the thread of the file watcher, never the event dispatch thread.
+     *
+     * @param file  the absolute path of the file that changed.
+     */
+    private void fileChanged(Path file) {
+        if (file.equals(Screen.getUserFile().toAbsolutePath().normalize())) {
+            this.reloadUser();
+            return;
+        }
+
+        UserAPI userAPI = this.userAPI;
+        if (userAPI != null &&
+            file.equals(userAPI.getSchoolFile().toAbsolutePath().normalize()))
+        {
+            this.reloadSchool();
+        }
+    }
+
+
+    /**
+     * Reloads the user json file. The school is only recompiled if the new user has a different
+     * school file or different days than the previous user; every change made through the menu
+     * is written to the user json file, and most of them only change what is painted.
+     */
+    private void reloadUser() {
+        UserAPI previous = this.userAPI;
+        UserAPI userAPI;
+        try {
+            userAPI = new UserAPI(Screen.getUserFile());
+        }
+        catch (IOException | IllegalArgumentException | NullPointerException e) {
+            // The message is modal, so it is shown on the event dispatch thread rather than
+            // blocking the file watcher from reporting later changes
+            SwingUtilities.invokeLater(() -> {
+                    PCDesktopApp.displayMessage("Error",
+                                                "Screen: Exception when reloading UserAPI\n" + e);
+                });
+            return;
+        }
+
+        this.userAPI = userAPI;
+        if (previous == null || !userAPI.hasSameSchool(previous)) {
+            this.reloadSchool();
+        }
+        else {
+            this.repaint();
+        }
+    }
+
+
+    /**
+     * Compiles the user's preferred school file on a background thread. The previous school, if
+     * any, is displayed until the new one is published.
+     */
+    private void reloadSchool() {
+        UserAPI userAPI = this.userAPI;
+        Path schoolFile = userAPI.getSchoolFile();
+        CompletableFuture<Duration> reload = this.school.reload(() -> {
+                // Since some institutions (like colleges) have "Days" data that is specific to
+                // each user rather than a consistent bell schedule, any days stored in User.json
+                // replace those days of the school file
+                SchoolAPI schoolAPI = new SchoolAPI(schoolFile, OSPath.getSchoolCachePath());
+                return userAPI.applyOverlay(schoolAPI);
+            });
+        reload.whenComplete((reloadTime, e) -> {
+                if (e != null) {
+                    SwingUtilities.invokeLater(() -> {
+                            PCDesktopApp.displayMessage("Error",
+                                                        "Screen: Exception when creating " +
+                                                        "SchoolAPI\n" + e);
+                        });
+                    return;
+                }
+                Screen.LOGGER.info("reloaded " + schoolFile + " in " + reloadTime + "." +
+                                   String.format("%03d", reloadTime.ms()));
+                this.repaint();
+            });
+    }
     
     
     /**
@@ -100,10 +227,11 @@ public class Screen extends JPanel {
      * @return a {@code UserPeriod} object for the given period number.
      */
     protected UserPeriod getUserPeriod(String key) {
-        if (this.userAPI == null) {
+        SchoolAPI schoolAPI = this.school.get();
+        if (this.userAPI == null || schoolAPI == null) {
             return null;
         }
-        SchoolPeriod keyPeriod = this.schoolAPI.getPeriodByType(key);
+        SchoolPeriod keyPeriod = schoolAPI.getPeriodByType(key);
         return this.userAPI.getPeriod(keyPeriod);
     }
     
@@ -193,12 +321,7 @@ public class Screen extends JPanel {
         }
         
         this.userAPI.setSchoolFile(Paths.get(file));
-        try {
-            this.schoolAPI = new SchoolAPI(this.userAPI.getSchoolFile());
-        }
-        catch (FileNotFoundException | IllegalArgumentException e) {
-            PCDesktopApp.displayMessage("Error", "Screen: Exception when creating SchoolAPI\n" + e);
-        }
+        this.reloadSchool();
     }
     
     
@@ -256,19 +379,27 @@ public class Screen extends JPanel {
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (this.schoolAPI == null || this.userAPI == null) {
+        SchoolAPI schoolAPI = this.school.get();
+        if (schoolAPI == null || this.userAPI == null) {
             return;
         }
 
+        // The clock is only used by this thread, so it is replaced here when a reload publishes a
+        // new school rather than by the reload itself
+        if (this.schoolClock == null || this.schoolClock.getSchoolAPI() != schoolAPI) {
+            this.schoolClock = new SchoolClock(schoolAPI);
+        }
+
         Graphics2D g2 = (Graphics2D) g;
 
         // Get timing information
         UTCTime now = UTCTime.now();
         ZonedDateTime localNow = now.to(ZoneId.systemDefault().getId()).asZonedDateTime();
-        SchoolPeriod schoolPeriod = schoolAPI.getCurrentPeriod(now);
-        SchoolPeriod nextSchoolPeriod = schoolAPI.getNextCountedPeriod(now);
-        Duration timeRemaining = schoolAPI.getTimeRemaining(now);
-        Duration totalTime = schoolAPI.getTotalTime(now);
+        SchoolSnapshot snapshot = this.schoolClock.tick(now);
+        SchoolPeriod schoolPeriod = snapshot.getCurrentPeriod();
+        SchoolPeriod nextSchoolPeriod = snapshot.getNextCountedPeriod();
+        Duration timeRemaining = snapshot.getTimeRemaining();
+        Duration totalTime = snapshot.getTotalTime();
         if (timeRemaining == null) {
             timeRemaining = new Duration(0, 0, 0, 0);
         }
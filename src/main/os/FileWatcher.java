@@ -0,0 +1,202 @@
+package os;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.ClosedWatchServiceException;
+
+
+/**
+ * Watches directories on the disk and reports the files in them that are created or modified.
+ *
+ * Editors and other programs often write a file in several steps, so every change to a file is
+ * held until the file has not changed again for the debounce time. A burst of writes is then
+ * reported once, after the last write, rather than once for each write.
+ *
+ * Changes are reported to the listener on a single daemon thread owned by this object. The
+ * listener should return quickly and hand any slow work, such as compiling a school file, to
+ * another thread.
+ *
+ * @author Jonathan Uhler
+ */
+public final class FileWatcher implements Closeable {
+
+    /** Logger for exceptions thrown by the listener. */
+    private static final Logger LOGGER = Logger.getLogger(FileWatcher.class.getName());
+
+    /**
+     * Receives the files reported by a {@code FileWatcher}.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called once a file has been created or modified and has not changed again for the
+         * debounce time.
+         *
+         * @param file  the absolute path of the file that changed.
+         */
+        public void fileChanged(Path file);
+
+    }
+
+
+    /** The service that reports changes to the watched directories. */
+    private final WatchService watchService;
+    /** The number of milliseconds a file must be unchanged before it is reported. */
+    private final long debounce;
+    /** The listener for changed files. */
+    private final Listener listener;
+    /** The thread that waits for changes and reports them. */
+    private final Thread thread;
+
+
+    /**
+     * Constructs a new {@code FileWatcher} that does not watch any directories.
+     *
+     * @param debounce  the number of milliseconds a file must be unchanged before it is reported.
+     * @param listener  the listener for changed files.
+     *
+     * @throws NullPointerException      if {@code listener} is null.
+     * @throws IllegalArgumentException  if {@code debounce} is negative.
+     * @throws IOException               if the watch service cannot be created.
+     */
+    public FileWatcher(long debounce, Listener listener) throws IOException {
+        if (listener == null) {
+            throw new NullPointerException("listener cannot be null");
+        }
+        if (debounce < 0) {
+            throw new IllegalArgumentException("debounce cannot be negative, found " + debounce);
+        }
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.debounce = debounce;
+        this.listener = listener;
+        this.thread = new Thread(() -> this.run(), "FileWatcher");
+        this.thread.setDaemon(true);
+    }
+
+
+    /**
+     * Watches a directory for files that are created or modified. Subdirectories are not
+     * watched.
+     *
+     * @param directory  the directory to watch.
+     *
+     * @throws NullPointerException  if {@code directory} is null.
+     * @throws IOException           if the directory does not exist or cannot be watched.
+     */
+    public void watch(Path directory) throws IOException {
+        if (directory == null) {
+            throw new NullPointerException("directory cannot be null");
+        }
+
+        directory.toAbsolutePath().normalize().register(this.watchService,
+                                                        StandardWatchEventKinds.ENTRY_CREATE,
+                                                        StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+
+    /**
+     * Starts reporting changed files to the listener.
+     *
+     * @throws IllegalStateException  if this {@code FileWatcher} has already been started.
+     */
+    public void start() {
+        this.thread.start();
+    }
+
+
+    /**
+     * Stops watching all directories. Changes that are still waiting for the debounce time are
+     * not reported.
+     *
+     * @throws IOException  if the watch service cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+    }
+
+
+    /**
+     * Waits for changes and reports each changed file once it has been unchanged for the debounce
+     * time, until this {@code FileWatcher} is closed.
+     */
+    private void run() {
+        // The time, in milliseconds of System.nanoTime, at which each changed file is reported
+        Map<Path, Long> pending = new HashMap<>();
+
+        while (true) {
+            WatchKey key;
+            try {
+                if (pending.isEmpty()) {
+                    key = this.watchService.take();
+                }
+                else {
+                    long wait = pending.values().stream().min(Long::compare).get() -
+                        FileWatcher.now();
+                    key = this.watchService.poll(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+                }
+            }
+            catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            if (key != null) {
+                Path directory = (Path) key.watchable();
+                long deadline = FileWatcher.now() + this.debounce;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // Events lost to an overflow cannot be recovered, so the files they were for
+                    // are reported when they next change
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    pending.put(directory.resolve((Path) event.context()), deadline);
+                }
+                key.reset();
+            }
+
+            long now = FileWatcher.now();
+            Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Path, Long> entry = iterator.next();
+                if (entry.getValue() > now) {
+                    continue;
+                }
+                iterator.remove();
+
+                // An exception from one file must not stop later changes from being reported
+                try {
+                    this.listener.fileChanged(entry.getKey());
+                }
+                catch (RuntimeException e) {
+                    FileWatcher.LOGGER.warning("listener failed for " + entry.getKey() + ": " + e);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the current value of the monotonic clock, which is not affected by changes to the
+     * system time.
+     *
+     * @return the current value of the monotonic clock, in milliseconds.
+     */
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+}
@@ -80,6 +80,18 @@ public class OSPath {
     }
     
     
+    /**
+     * Returns a {@code Path} object that points to the {@code cache} folder concatenated to the
+     * value of {@code OSPath.getAppSupportPath()}. Precompiled school schedules are stored here.
+     *
+     * @return a {@code Path} object that points to the {@code cache} folder concatenated to the
+     *         value of {@code OSPath.getAppSupportPath()}.
+     */
+    public static Path getSchoolCachePath() {
+        return OSPath.join(OSPath.getAppSupportPath(), Paths.get("cache"));
+    }
+    
+    
     /**
      * Returns a {@code Path} object that points to {@code assets/jons/user}.
      *
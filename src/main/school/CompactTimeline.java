@@ -0,0 +1,571 @@
+package school;
+
+
+import java.io.ByteArrayOutputStream;
+import time.UTCTime;
+
+
+/**
+ * Compressed, read-only form of a {@code SchoolTimeline}, for school years that are kept for
+ * historical queries but are no longer current.
+ *
+ * Periods are split into blocks of {@code BLOCK_SIZE}. Within a block, each period is stored as
+ * unsigned variable-length integers (seven bits per byte, with the high bit set on every byte but
+ * the last): the gap between the end of the previous period and its start, its length, its type
+ * index and whether it is the last period of its day, and its name index. Since periods are
+ * contiguous and most are under a few hours long, a period takes about six bytes rather than the
+ * 65 bytes of the arrays and indices of a {@code SchoolTimeline} or the several hundred bytes of
+ * a {@code SchoolPeriod}.
+ *
+ * A block index holds the start time, byte offset, and counted time before each block, so a
+ * lookup by time is a binary search over the blocks followed by the decoding of a single block.
+ * Blocks are only decoded when a query reaches them, and the most recently decoded block is kept
+ * for the next query, which is usually for a nearby period.
+ *
+ * {@code SchoolSegments} keeps each year that {@code isCold} as a {@code CompactYear}, which
+ * answers the queries of a {@code SchoolSchedule} from a compact timeline. Years that are current
+ * or have ended more recently than the threshold stay uncompressed.
+ *
+ * A {@code CompactTimeline} cannot be modified after it is built, and is safe to read from
+ * multiple threads.
+ *
+ * @author Jonathan Uhler
+ */
+public final class CompactTimeline {
+
+    /** Number of periods in each block. */
+    public static final int BLOCK_SIZE = 64;
+    /** Milliseconds after the end of a timeline before it is compacted, by default. */
+    public static final long DEFAULT_COLD_AFTER = 30 * 86400000L;
+
+    /** The number of periods. */
+    private final int size;
+    /** The encoded periods of every block, in order. */
+    private final byte[] data;
+    /** Offset into {@code data} of each block, and the length of {@code data} at the end. */
+    private final int[] blockOffsets;
+    /** Start time, inclusive, of the first period of each block in epoch milliseconds. */
+    private final long[] blockStarts;
+    /** Counted milliseconds in every period before each block. */
+    private final long[] blockCounted;
+    /** Table of unique period types. */
+    private final String[] types;
+    /** Table of unique period names. */
+    private final String[] names;
+    /** Whether each entry in {@code types} is counted (e.g. is not {@code "Nothing"}). */
+    private final boolean[] countedTypes;
+    /** The most recently decoded block, or null if no block has been decoded. */
+    private volatile Block cached;
+
+
+    /**
+     * Constructs a new {@code CompactTimeline} with the same periods as a timeline.
+     *
+     * @param timeline  the timeline to compress.
+     *
+     * @throws NullPointerException      if {@code timeline} is null.
+     * @throws IllegalArgumentException  if any periods of {@code timeline} overlap.
+     */
+    public CompactTimeline(SchoolTimeline timeline) {
+        if (timeline == null) {
+            throw new NullPointerException("timeline cannot be null");
+        }
+
+        this.size = timeline.size();
+        this.types = timeline.getTypeTable();
+        this.names = timeline.getNameTable();
+        this.countedTypes = new boolean[this.types.length];
+        for (int i = 0; i < this.types.length; i++) {
+            this.countedTypes[i] = !this.types[i].equals(SchoolJson.NOTHING);
+        }
+
+        int numBlocks = (this.size + CompactTimeline.BLOCK_SIZE - 1) / CompactTimeline.BLOCK_SIZE;
+        this.blockOffsets = new int[numBlocks + 1];
+        this.blockStarts = new long[numBlocks];
+        this.blockCounted = new long[numBlocks];
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long counted = 0;
+        long previousEnd = 0;
+        for (int i = 0; i < this.size; i++) {
+            long start = timeline.getStart(i);
+            long end = timeline.getEnd(i);
+            if ((i > 0 && start <= previousEnd) || end < start) {
+                throw new IllegalArgumentException("period " + i + " overlaps the previous period");
+            }
+
+            // The first period of each block is stored relative to the start of the block, so
+            // that a block can be decoded without the blocks before it
+            if (i % CompactTimeline.BLOCK_SIZE == 0) {
+                int block = i / CompactTimeline.BLOCK_SIZE;
+                this.blockOffsets[block] = out.size();
+                this.blockStarts[block] = start;
+                this.blockCounted[block] = counted;
+                previousEnd = start - 1;
+            }
+
+            CompactTimeline.writeVarint(out, start - previousEnd - 1);
+            CompactTimeline.writeVarint(out, end - start);
+            CompactTimeline.writeVarint(out, (timeline.getTypeId(i) << 1) |
+                                        (timeline.isLast(i) ? 1 : 0));
+            CompactTimeline.writeVarint(out, timeline.getNameId(i));
+
+            previousEnd = end;
+            counted += timeline.isCounted(i) ? end - start + 1 : 0;
+        }
+        this.data = out.toByteArray();
+        this.blockOffsets[numBlocks] = this.data.length;
+    }
+
+
+    /**
+     * Returns whether a timeline is old enough to be compacted. A timeline is cold once its last
+     * period ended more than {@code coldAfter} milliseconds ago; the current year and any future
+     * year are never cold.
+     *
+     * @param timeline   the timeline to check.
+     * @param now        the current time in epoch milliseconds.
+     * @param coldAfter  the number of milliseconds after the end of a timeline before it is cold.
+     *
+     * @return whether {@code timeline} should be compacted.
+     *
+     * @throws NullPointerException      if {@code timeline} is null.
+     * @throws IllegalArgumentException  if {@code coldAfter} is negative.
+     */
+    public static boolean isCold(SchoolTimeline timeline, long now, long coldAfter) {
+        if (timeline == null) {
+            throw new NullPointerException("timeline cannot be null");
+        }
+        if (coldAfter < 0) {
+            throw new IllegalArgumentException("coldAfter cannot be negative, found " + coldAfter);
+        }
+
+        if (timeline.size() == 0) {
+            return true;
+        }
+        return now - timeline.getEnd(timeline.size() - 1) > coldAfter;
+    }
+
+
+    /**
+     * Decodes every block into an uncompressed {@code SchoolTimeline}, for a year that has become
+     * current again.
+     *
+     * @return a {@code SchoolTimeline} with the same periods as this timeline.
+     */
+    public SchoolTimeline toTimeline() {
+        long[] starts = new long[this.size];
+        long[] ends = new long[this.size];
+        int[] typeIds = new int[this.size];
+        int[] nameIds = new int[this.size];
+        boolean[] lasts = new boolean[this.size];
+
+        for (int b = 0; b < this.blockStarts.length; b++) {
+            Block block = this.decode(b);
+            int offset = b * CompactTimeline.BLOCK_SIZE;
+            int length = block.starts.length;
+            System.arraycopy(block.starts, 0, starts, offset, length);
+            System.arraycopy(block.ends, 0, ends, offset, length);
+            System.arraycopy(block.typeIds, 0, typeIds, offset, length);
+            System.arraycopy(block.nameIds, 0, nameIds, offset, length);
+            System.arraycopy(block.lasts, 0, lasts, offset, length);
+        }
+        return new SchoolTimeline(starts, ends, typeIds, nameIds, lasts,
+                                  this.types.clone(), this.names.clone());
+    }
+
+
+    /**
+     * Returns the number of periods in this timeline.
+     *
+     * @return the number of periods in this timeline.
+     */
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * Returns the number of bytes used by the encoded periods and the block index, not counting
+     * the string tables or the decoded block that is kept.
+     *
+     * @return the number of bytes used by the encoded periods and the block index.
+     */
+    public long getEncodedSize() {
+        return this.data.length +
+            (long) Integer.BYTES * this.blockOffsets.length +
+            (long) Long.BYTES * (this.blockStarts.length + this.blockCounted.length);
+    }
+
+
+    /**
+     * Returns the index of the period such that {@code start <= epoch <= end}.
+     *
+     * @param epoch  the time to find a period for, in epoch milliseconds.
+     *
+     * @return the index of the period that occupies {@code epoch}, or {@code -1} if no such
+     *         period exists.
+     */
+    public int indexOf(long epoch) {
+        int index = this.floorIndexOf(epoch);
+        if (index == -1 || epoch > this.getEnd(index)) {
+            return -1;
+        }
+        return index;
+    }
+
+
+    /**
+     * Returns the index of the last period that starts at or before a time.
+     *
+     * @param epoch  the time to find a period for, in epoch milliseconds.
+     *
+     * @return the index of the last period that starts at or before {@code epoch}, or {@code -1}
+     *         if {@code epoch} is before the first period.
+     */
+    public int floorIndexOf(long epoch) {
+        int b = CompactTimeline.floor(this.blockStarts, this.blockStarts.length, epoch);
+        if (b == -1) {
+            return -1;
+        }
+
+        Block block = this.block(b);
+        int index = CompactTimeline.floor(block.starts, block.starts.length, epoch);
+        return b * CompactTimeline.BLOCK_SIZE + index;
+    }
+
+
+    /**
+     * Returns the index of the first period that ends at or after a time.
+     *
+     * @param epoch  the time to find a period for, in epoch milliseconds.
+     *
+     * @return the index of the first period that ends at or after {@code epoch}, or {@code -1}
+     *         if {@code epoch} is after the last period.
+     */
+    public int ceilingIndexOf(long epoch) {
+        int index = this.floorIndexOf(epoch);
+        if (index == -1) {
+            return this.size > 0 ? 0 : -1;
+        }
+        if (epoch > this.getEnd(index)) {
+            return index + 1 < this.size ? index + 1 : -1;
+        }
+        return index;
+    }
+
+
+    /**
+     * Returns the amount of counted time in the range {@code [from, to)}. Counted time is time
+     * within a period whose type is not {@code "Nothing"}. Periods that overlap the range are
+     * only partially counted.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public long getCountedTime(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+        return this.getCountedTimeBefore(to) - this.getCountedTimeBefore(from);
+    }
+
+
+    /**
+     * Returns the amount of counted time before a time.
+     *
+     * @param epoch  the time, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in every period before {@code epoch}.
+     */
+    private long getCountedTimeBefore(long epoch) {
+        int b = CompactTimeline.floor(this.blockStarts, this.blockStarts.length, epoch);
+        if (b == -1) {
+            return 0;
+        }
+
+        // Only the periods of one block are summed, so this is bounded by the block size
+        Block block = this.block(b);
+        long counted = this.blockCounted[b];
+        for (int i = 0; i < block.starts.length && block.starts[i] < epoch; i++) {
+            if (this.countedTypes[block.typeIds[i]]) {
+                counted += Math.min(epoch, block.ends[i] + 1) - block.starts[i];
+            }
+        }
+        return counted;
+    }
+
+
+    /**
+     * Returns the start time, inclusive, of a period in epoch milliseconds.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the start time of the period.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    public long getStart(int index) {
+        return this.blockOf(index).starts[index % CompactTimeline.BLOCK_SIZE];
+    }
+
+
+    /**
+     * Returns the end time, inclusive, of a period in epoch milliseconds.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the end time of the period.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    public long getEnd(int index) {
+        return this.blockOf(index).ends[index % CompactTimeline.BLOCK_SIZE];
+    }
+
+
+    /**
+     * Returns the type of a period.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the type of the period.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    public String getType(int index) {
+        return this.types[this.blockOf(index).typeIds[index % CompactTimeline.BLOCK_SIZE]];
+    }
+
+
+    /**
+     * Returns the name of a period.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the name of the period.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    public String getName(int index) {
+        return this.names[this.blockOf(index).nameIds[index % CompactTimeline.BLOCK_SIZE]];
+    }
+
+
+    /**
+     * Returns whether a period is the last in its day (local time).
+     *
+     * @param index  the index of the period.
+     *
+     * @return whether the period is the last in its day.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    public boolean isLast(int index) {
+        return this.blockOf(index).lasts[index % CompactTimeline.BLOCK_SIZE];
+    }
+
+
+    /**
+     * Returns whether a period is counted. A "counted" period is one whose type is not
+     * {@code "Nothing"}.
+     *
+     * @param index  the index of the period.
+     *
+     * @return whether the period is counted.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    public boolean isCounted(int index) {
+        return this.countedTypes[this.blockOf(index).typeIds[index % CompactTimeline.BLOCK_SIZE]];
+    }
+
+
+    /**
+     * Creates a {@code SchoolPeriod} view of a period in this timeline.
+     *
+     * @param index  the index of the period.
+     *
+     * @return a {@code SchoolPeriod} object for the period at {@code index}.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    public SchoolPeriod getPeriod(int index) {
+        Block block = this.blockOf(index);
+        int i = index % CompactTimeline.BLOCK_SIZE;
+        return new SchoolPeriod(this.types[block.typeIds[i]],
+                                this.names[block.nameIds[i]],
+                                UTCTime.ofEpoch(block.starts[i]),
+                                UTCTime.ofEpoch(block.ends[i]),
+                                block.lasts[i]);
+    }
+
+
+    /**
+     * Returns the decoded block that holds a period.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the decoded block that holds the period.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    private Block blockOf(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("invalid period index: " + index);
+        }
+        return this.block(index / CompactTimeline.BLOCK_SIZE);
+    }
+
+
+    /**
+     * Returns a decoded block, decoding it only if it is not the most recently decoded block.
+     *
+     * @param b  the index of the block.
+     *
+     * @return the decoded block.
+     */
+    private Block block(int b) {
+        Block block = this.cached;
+        if (block == null || block.index != b) {
+            block = this.decode(b);
+            this.cached = block;
+        }
+        return block;
+    }
+
+
+    /**
+     * Decodes the periods of a block.
+     *
+     * @param b  the index of the block.
+     *
+     * @return the decoded block.
+     */
+    private Block decode(int b) {
+        int first = b * CompactTimeline.BLOCK_SIZE;
+        int length = Math.min(CompactTimeline.BLOCK_SIZE, this.size - first);
+        Block block = new Block(b, length);
+
+        int[] position = {this.blockOffsets[b]};
+        long previousEnd = this.blockStarts[b] - 1;
+        for (int i = 0; i < length; i++) {
+            long start = previousEnd + 1 + CompactTimeline.readVarint(this.data, position);
+            long end = start + CompactTimeline.readVarint(this.data, position);
+            int type = (int) CompactTimeline.readVarint(this.data, position);
+
+            block.starts[i] = start;
+            block.ends[i] = end;
+            block.typeIds[i] = type >>> 1;
+            block.lasts[i] = (type & 1) != 0;
+            block.nameIds[i] = (int) CompactTimeline.readVarint(this.data, position);
+            previousEnd = end;
+        }
+        return block;
+    }
+
+
+    /**
+     * Returns the index of the last value in a sorted range of an array that is at most a key.
+     *
+     * @param values  the sorted array to search.
+     * @param length  the number of values to search, from the start of {@code values}.
+     * @param key     the value to search for.
+     *
+     * @return the index of the last value at most {@code key}, or {@code -1} if there is none.
+     */
+    private static int floor(long[] values, int length, long key) {
+        int min = 0;
+        int max = length - 1;
+
+        while (min <= max) {
+            int middle = (min + max) >>> 1;
+            if (values[middle] <= key) {
+                min = middle + 1;
+            }
+            else {
+                max = middle - 1;
+            }
+        }
+        return max;
+    }
+
+
+    /**
+     * Writes an unsigned variable-length integer.
+     *
+     * @param out    the stream to write to.
+     * @param value  the non-negative value to write.
+     */
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @param data      the encoded bytes.
+     * @param position  a single-element array with the offset to read from, which is advanced
+     *                  past the value.
+     *
+     * @return the value that was read.
+     */
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = data[position[0]++];
+            value |= (long) (next & 0x7F) << shift;
+            shift += 7;
+        } while (next < 0);
+        return value;
+    }
+
+
+    /**
+     * The decoded periods of one block. A {@code Block} is not modified after it is decoded.
+     */
+    private static final class Block {
+
+        /** The index of this block. */
+        private final int index;
+        /** Start time, inclusive, of each period in epoch milliseconds. */
+        private final long[] starts;
+        /** End time, inclusive, of each period in epoch milliseconds. */
+        private final long[] ends;
+        /** Index into the table of types for each period. */
+        private final int[] typeIds;
+        /** Index into the table of names for each period. */
+        private final int[] nameIds;
+        /** Whether each period is the last period of its day (local time). */
+        private final boolean[] lasts;
+
+
+        /**
+         * Constructs a new {@code Block} with room for a number of periods.
+         *
+         * @param index   the index of the block.
+         * @param length  the number of periods in the block.
+         */
+        private Block(int index, int length) {
+            this.index = index;
+            this.starts = new long[length];
+            this.ends = new long[length];
+            this.typeIds = new int[length];
+            this.nameIds = new int[length];
+            this.lasts = new boolean[length];
+        }
+
+    }
+
+}
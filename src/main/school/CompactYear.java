@@ -0,0 +1,606 @@
+package school;
+
+
+import time.UTCTime;
+
+
+/**
+ * Schedule of a school year that is no longer current, answered from a {@code CompactTimeline}.
+ *
+ * Every query decodes only the blocks of the compact timeline that it reaches. Lookups by time
+ * are a binary search over the block index, as in {@code SchoolYear}. The compact timeline keeps
+ * no jump tables or occurrence indices, so searches for the next or previous counted period, or
+ * for periods of a type, step through the periods one at a time. This is slower than the same
+ * search in a {@code SchoolYear}, but old years are rarely queried, and a year is only compacted
+ * once it has ended.
+ *
+ * A {@code CompactYear} cannot be modified after it is built, and is safe to read from multiple
+ * threads.
+ *
+ * @author Jonathan Uhler
+ */
+final class CompactYear implements SchoolSchedule {
+
+    /** The periods of the year. */
+    private final CompactTimeline year;
+    /** The unix TZ identifier for the school. */
+    private final String timezone;
+    /** The first period number possible. */
+    private final int firstPeriod;
+    /** The last period number possible. */
+    private final int lastPeriod;
+
+
+    /**
+     * Constructs a new {@code CompactYear} with the same periods as a compiled school year.
+     *
+     * @param year  the compiled school year to compress.
+     *
+     * @throws NullPointerException  if {@code year} is null.
+     */
+    CompactYear(SchoolYear year) {
+        if (year == null) {
+            throw new NullPointerException("year cannot be null");
+        }
+
+        this.year = new CompactTimeline(year.getTimeline());
+        this.timezone = year.getTimezone();
+        this.firstPeriod = year.getFirstPeriod();
+        this.lastPeriod = year.getLastPeriod();
+    }
+
+
+    /**
+     * Returns the index of the first counted period at or after a period.
+     *
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the first counted period at or after {@code index}, or {@code -1} if no
+     *         such period exists.
+     */
+    private int getNextCounted(int index) {
+        for (int i = index; i < this.year.size(); i++) {
+            if (this.year.isCounted(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Returns the index of the last counted period at or before a period.
+     *
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the last counted period at or before {@code index}, or {@code -1} if no
+     *         such period exists.
+     */
+    private int getPreviousCounted(int index) {
+        for (int i = index; i >= 0; i--) {
+            if (this.year.isCounted(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Returns the index of the first period of a type at or after a period.
+     *
+     * @param type   the type of the period to find.
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the first period of type {@code type} at or after {@code index}, or
+     *         {@code -1} if no such period exists.
+     */
+    private int getNextOfType(String type, int index) {
+        for (int i = index; i < this.year.size(); i++) {
+            if (this.year.getType(i).equals(type)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Returns the index of the last period of a type at or before a period.
+     *
+     * @param type   the type of the period to find.
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the last period of type {@code type} at or before {@code index}, or
+     *         {@code -1} if no such period exists.
+     */
+    private int getPreviousOfType(String type, int index) {
+        for (int i = index; i >= 0; i--) {
+            if (this.year.getType(i).equals(type)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Returns the period at an index, or null if the index is {@code -1}.
+     *
+     * @param index  the index of the period, or {@code -1}.
+     *
+     * @return the period at {@code index}, or {@code null} if {@code index} is {@code -1}.
+     */
+    private SchoolPeriod periodAt(int index) {
+        return index == -1 ? null : this.year.getPeriod(index);
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period which occurs during the provided time, or {@code null} if none does.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        return this.periodAt(this.year.indexOf(time.getEpoch()));
+    }
+
+
+    /**
+     * Gets the period at each of many times. The result for each time is the same as
+     * {@code getPeriod}.
+     *
+     * @param epochs   the times to get periods for, in epoch milliseconds.
+     * @param periods  the array to store the period at each time in, or {@code null} if no period
+     *                 occurs at the time. Must be at least as long as {@code epochs}.
+     *
+     * @throws NullPointerException      if {@code epochs} or {@code periods} is null.
+     * @throws IllegalArgumentException  if {@code periods} is shorter than {@code epochs}.
+     */
+    @Override
+    public void getPeriods(long[] epochs, SchoolPeriod[] periods) {
+        if (epochs == null) {
+            throw new NullPointerException("epochs cannot be null");
+        }
+        if (periods == null) {
+            throw new NullPointerException("periods cannot be null");
+        }
+        if (periods.length < epochs.length) {
+            throw new IllegalArgumentException("periods is shorter than epochs: " +
+                                               periods.length + " < " + epochs.length);
+        }
+
+        // The most recently decoded block is kept, so sorted times decode each block once
+        for (int i = 0; i < epochs.length; i++) {
+            periods[i] = this.periodAt(this.year.indexOf(epochs[i]));
+        }
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the first period after it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or after {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrAfter(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        return this.periodAt(this.year.ceilingIndexOf(time.getEpoch()));
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the last period before it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or before {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrBefore(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        return this.periodAt(this.year.floorIndexOf(time.getEpoch()));
+    }
+
+
+    /**
+     * Gets the first counted period at or after the period that occurs during a given time.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the first counted period at or after the period at {@code time}, or {@code null} if
+     *         no period occurs during {@code time} or no such counted period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getNextCountedPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int index = this.year.indexOf(time.getEpoch());
+        return index == -1 ? null : this.periodAt(this.getNextCounted(index));
+    }
+
+
+    /**
+     * Gets the last counted period at or before the period that occurs during a given time.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the last counted period at or before the period at {@code time}, or {@code null}
+     *         if no period occurs during {@code time} or no such counted period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousCountedPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int index = this.year.indexOf(time.getEpoch());
+        return index == -1 ? null : this.periodAt(this.getPreviousCounted(index));
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a given time.
+     *
+     * @param time  the time to take a snapshot at.
+     *
+     * @return a snapshot of the schedule at {@code time}, or {@code null} if no period occurs
+     *         during {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot getSnapshot(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int index = this.year.indexOf(time.getEpoch());
+        if (index == -1) {
+            return null;
+        }
+        return new SchoolSnapshot(time,
+                                  this.year.getPeriod(index),
+                                  this.periodAt(this.getPreviousCounted(index)),
+                                  this.periodAt(this.getNextCounted(index)));
+    }
+
+
+    /**
+     * Returns {@code null}, since snapshots of a compacted year do not record the position of
+     * their period. The caller should use {@code getSnapshot} instead.
+     *
+     * @param snapshot  the earlier snapshot.
+     * @param time      the time to take a snapshot at.
+     * @param maxSteps  the maximum number of periods to step forward.
+     *
+     * @return {@code null}.
+     *
+     * @throws NullPointerException  if {@code snapshot} or {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot advanceSnapshot(SchoolSnapshot snapshot, UTCTime time, int maxSteps) {
+        if (snapshot == null) {
+            throw new NullPointerException("snapshot cannot be null");
+        }
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the last {@code SchoolPeriod} object with the specified {@code Type} string.
+     *
+     * If no such period exists, {@code null} is returned. Only the type and status (name) fields
+     * of the returned period are guaranteed.
+     *
+     * @param type  the type string of the period to find.
+     *
+     * @return a {@code SchoolPeriod} object with the specified {@code Type} string.
+     */
+    @Override
+    public SchoolPeriod getPeriodByType(String type) {
+        if (type == null) {
+            return null;
+        }
+        return this.periodAt(this.getPreviousOfType(type, this.year.size() - 1));
+    }
+
+
+    /**
+     * Returns the unix TZ identifier for the school.
+     *
+     * @return the unix TZ identifier for the school.
+     */
+    @Override
+    public String getTimezone() {
+        return this.timezone;
+    }
+
+
+    /**
+     * Returns a cursor that walks every period that overlaps the range {@code [from, to)}.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return a cursor over the periods that overlap the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public SchoolCursor getCursor(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+
+        int first = from == to ? -1 : this.year.ceilingIndexOf(from);
+        if (first == -1) {
+            return new CompactCursor(0, -1);
+        }
+        return new CompactCursor(first, this.year.floorIndexOf(to - 1));
+    }
+
+
+    /**
+     * Returns the amount of counted time in the range {@code [from, to)}. This is found from the
+     * counted time before each block, so at most two blocks are decoded.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getCountedTime(long from, long to) {
+        return this.year.getCountedTime(from, to);
+    }
+
+
+    /**
+     * Gets the first period of a type that occurs during or after a given time.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the first period of type {@code type} that ends at or after {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    @Override
+    public SchoolPeriod getNextPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+
+        int index = this.year.ceilingIndexOf(time.getEpoch());
+        return index == -1 ? null : this.periodAt(this.getNextOfType(type, index));
+    }
+
+
+    /**
+     * Gets the last period of a type that occurs during or before a given time.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the last period of type {@code type} that starts at or before {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+
+        int index = this.year.floorIndexOf(time.getEpoch());
+        return index == -1 ? null : this.periodAt(this.getPreviousOfType(type, index));
+    }
+
+
+    /**
+     * Returns the amount of time in periods of a type in the range {@code [from, to)}. Periods
+     * that overlap the range are only partially counted.
+     *
+     * @param type  the type of the periods to count.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods of type {@code type}.
+     *
+     * @throws NullPointerException      if {@code type} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getTimeOfType(String type, long from, long to) {
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+
+        long time = 0;
+        SchoolCursor cursor = this.getCursor(from, to);
+        while (cursor.next()) {
+            if (cursor.getType().equals(type)) {
+                time += Math.min(to, cursor.getEnd() + 1) - Math.max(from, cursor.getStart());
+            }
+        }
+        return time;
+    }
+
+
+    /**
+     * Returns {@code null}, since the periods of this year are not kept in an uncompressed
+     * timeline.
+     *
+     * @return {@code null}.
+     */
+    @Override
+    public SchoolTimeline getTimeline() {
+        return null;
+    }
+
+
+    /**
+     * Returns the first period number possible.
+     *
+     * @return the first period number possible.
+     */
+    @Override
+    public int getFirstPeriod() {
+        return this.firstPeriod;
+    }
+
+
+    /**
+     * Returns the last period number possible.
+     *
+     * @return the last period number possible.
+     */
+    @Override
+    public int getLastPeriod() {
+        return this.lastPeriod;
+    }
+
+
+    /**
+     * Cursor over a contiguous range of indices in the compact timeline.
+     */
+    private class CompactCursor implements SchoolCursor {
+
+        /** The index of the first period to walk. */
+        private final int first;
+        /** The index of the last period to walk, or less than {@code first} if there are none. */
+        private final int last;
+        /** The index of the current period, or {@code first - 1} before the first call to next. */
+        private int index;
+
+
+        /**
+         * Constructs a new {@code CompactCursor} positioned before its first period.
+         *
+         * @param first  the index of the first period to walk.
+         * @param last   the index of the last period to walk, or less than {@code first} if the
+         *               cursor has no periods.
+         */
+        CompactCursor(int first, int last) {
+            this.first = first;
+            this.last = last;
+            this.index = first - 1;
+        }
+
+
+        @Override
+        public boolean next() {
+            if (this.index > this.last) {
+                return false;
+            }
+            this.index++;
+            return this.index <= this.last;
+        }
+
+
+        /**
+         * Checks that this cursor is on a period.
+         *
+         * @throws IllegalStateException  if this cursor is not on a period.
+         */
+        private void checkPeriod() {
+            if (this.index < this.first || this.index > this.last) {
+                throw new IllegalStateException("cursor is not on a period");
+            }
+        }
+
+
+        @Override
+        public long getStart() {
+            this.checkPeriod();
+            return CompactYear.this.year.getStart(this.index);
+        }
+
+
+        @Override
+        public long getEnd() {
+            this.checkPeriod();
+            return CompactYear.this.year.getEnd(this.index);
+        }
+
+
+        @Override
+        public String getType() {
+            this.checkPeriod();
+            return CompactYear.this.year.getType(this.index);
+        }
+
+
+        @Override
+        public String getName() {
+            this.checkPeriod();
+            return CompactYear.this.year.getName(this.index);
+        }
+
+
+        @Override
+        public boolean isLast() {
+            this.checkPeriod();
+            return CompactYear.this.year.isLast(this.index);
+        }
+
+
+        @Override
+        public boolean isCounted() {
+            this.checkPeriod();
+            return CompactYear.this.year.isCounted(this.index);
+        }
+
+
+        @Override
+        public SchoolPeriod getPeriod() {
+            this.checkPeriod();
+            return CompactYear.this.year.getPeriod(this.index);
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+package school;
+
+
+import java.util.Arrays;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.time.zone.ZoneOffsetTransition;
+
+
+/**
+ * The UTC offsets of one local day in a timezone.
+ *
+ * The rules of the timezone are looked up once, when the object is created, to find the offset
+ * in force at the start of the day and every transition (such as a daylight saving change) that
+ * affects the day. A time of day is then resolved to an instant with plain arithmetic. Local
+ * times are resolved the same way as {@code ZonedDateTime.ofLocal} with no preferred offset:
+ * local times that fall in a gap are shifted later by the length of the gap, and local times
+ * that fall in an overlap use the earlier offset.
+ *
+ * @author Jonathan Uhler
+ */
+final class DayOffsets {
+
+    /** The largest UTC offset of any timezone, in milliseconds. */
+    private static final long MAX_OFFSET = ZoneOffset.MAX.getTotalSeconds() * 1000L;
+    /** Shared empty array for days without a transition. */
+    private static final long[] NONE = new long[0];
+
+    /** Local midnight of the day, as if it were in UTC, in epoch milliseconds. */
+    private final long midnight;
+    /** The offset in force at the start of the day, in milliseconds. */
+    private final long offset;
+    /** Milliseconds after local midnight at which each later offset applies, in order. */
+    private final long[] thresholds;
+    /** The offset that applies from each threshold, in milliseconds. */
+    private final long[] offsets;
+
+
+    /**
+     * Constructs a new {@code DayOffsets}.
+     *
+     * @param midnight    local midnight of the day, as if it were in UTC, in epoch milliseconds.
+     * @param offset      the offset in force at the start of the day.
+     * @param thresholds  milliseconds after local midnight at which each later offset applies.
+     * @param offsets     the offset that applies from each threshold.
+     */
+    private DayOffsets(long midnight, long offset, long[] thresholds, long[] offsets) {
+        this.midnight = midnight;
+        this.offset = offset;
+        this.thresholds = thresholds;
+        this.offsets = offsets;
+    }
+
+
+    /**
+     * Finds the UTC offsets of a local day in a timezone. The times that can be resolved are
+     * from local midnight to the following local midnight, inclusive.
+     *
+     * @param date  the local date.
+     * @param zone  the timezone of the date.
+     *
+     * @return the UTC offsets of {@code date} in {@code zone}.
+     */
+    static DayOffsets of(LocalDate date, ZoneId zone) {
+        ZoneRules rules = zone.getRules();
+        long midnight = date.toEpochDay() * DayTemplate.MS_PER_DAY;
+
+        // Any instant that has a local time in the day is within the largest offset of the day,
+        // so only the transitions in this window can change how the day is resolved
+        Instant from = Instant.ofEpochMilli(midnight - DayOffsets.MAX_OFFSET);
+        long to = midnight + DayTemplate.MS_PER_DAY + DayOffsets.MAX_OFFSET;
+        long offset = rules.getOffset(from).getTotalSeconds() * 1000L;
+        if (rules.isFixedOffset()) {
+            return new DayOffsets(midnight, offset, DayOffsets.NONE, DayOffsets.NONE);
+        }
+
+        // Almost every day has no transition, and very few have more than one
+        int count = 0;
+        long[] thresholds = DayOffsets.NONE;
+        long[] offsets = DayOffsets.NONE;
+        ZoneOffsetTransition transition = rules.nextTransition(from);
+        while (transition != null && transition.toEpochSecond() * 1000L <= to) {
+            long before = transition.getOffsetBefore().getTotalSeconds() * 1000L;
+            long after = transition.getOffsetAfter().getTotalSeconds() * 1000L;
+            thresholds = Arrays.copyOf(thresholds, count + 1);
+            offsets = Arrays.copyOf(offsets, count + 1);
+
+            // The new offset applies once the local time has passed both sides of the
+            // transition: the end of a gap, or the end of the earlier half of an overlap
+            thresholds[count] = transition.toEpochSecond() * 1000L + Math.max(before, after) -
+                midnight;
+            offsets[count] = after;
+            count++;
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        return new DayOffsets(midnight, offset, thresholds, offsets);
+    }
+
+
+    /**
+     * Resolves a time of this day into an instant.
+     *
+     * @param time  the number of milliseconds after local midnight, at most one day.
+     *
+     * @return the instant in epoch milliseconds.
+     */
+    long resolve(long time) {
+        long offset = this.offset;
+        for (int i = 0; i < this.thresholds.length && time >= this.thresholds[i]; i++) {
+            offset = this.offsets[i];
+        }
+        return this.midnight + time - offset;
+    }
+
+}
@@ -0,0 +1,452 @@
+package school;
+
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import time.Duration;
+import user.UserJson;
+
+
+/**
+ * Compiled form of one day type from the "Days" section of the school json file.
+ *
+ * The start and end of each period are stored as millisecond offsets from local midnight. The
+ * instants of the periods on a specific date are found by resolving those offsets with the
+ * {@code DayOffsets} of that date, the same way a local timestamp string would be resolved.
+ *
+ * @author Jonathan Uhler
+ */
+class DayTemplate {
+
+    /** Number of milliseconds in one day. */
+    static final long MS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+    /** The format of the start and end times of a period. */
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    /** The name of this day type. */
+    private final String dayType;
+    /** The type of each period. */
+    private final String[] types;
+    /** The name of each period. */
+    private final String[] names;
+    /** Start of each period, in milliseconds after local midnight. */
+    private final long[] startOffsets;
+    /** End of each period, exclusive, in milliseconds after local midnight. */
+    private final long[] endOffsets;
+    /** Whether each period ends at the end of the day. */
+    private final boolean[] lasts;
+    /** Index of the first counted period at or after each period, or -1 if there is none. */
+    private final int[] nextCounted;
+    /** Index of the last counted period at or before each period, or -1 if there is none. */
+    private final int[] prevCounted;
+
+
+    /**
+     * Constructs a new {@code DayTemplate}.
+     *
+     * @param dayType      the name of the day type.
+     * @param periodDefs   the list of period definitions for the day type.
+     * @param firstPeriod  the first valid period number.
+     * @param lastPeriod   the last valid period number.
+     *
+     * @throws IllegalArgumentException  if the day has no periods.
+     * @throws IllegalArgumentException  if any period is missing a key or has an invalid value.
+     * @throws IllegalArgumentException  if the periods do not cover the entire day without gaps.
+     */
+    DayTemplate(String dayType,
+                List<Map<String, String>> periodDefs,
+                int firstPeriod,
+                int lastPeriod)
+    {
+        this(dayType,
+             DayTemplate.getValues(periodDefs, SchoolJson.TYPE),
+             DayTemplate.getValues(periodDefs, SchoolJson.NAME),
+             DayTemplate.getValues(periodDefs, SchoolJson.START),
+             DayTemplate.getValues(periodDefs, SchoolJson.END),
+             firstPeriod,
+             lastPeriod);
+    }
+
+
+    /**
+     * Constructs a new {@code DayTemplate} from the values of each period, in order. All the
+     * arrays must have the same length.
+     *
+     * @param dayType      the name of the day type.
+     * @param types        the type of each period.
+     * @param names        the name of each period.
+     * @param starts       the start time of each period, as a {@code HH:mm} string.
+     * @param ends         the end time of each period, as a {@code HH:mm} string.
+     * @param firstPeriod  the first valid period number.
+     * @param lastPeriod   the last valid period number.
+     *
+     * @throws IllegalArgumentException  if the day has no periods.
+     * @throws IllegalArgumentException  if any period is missing a value or has an invalid value.
+     * @throws IllegalArgumentException  if the periods do not cover the entire day without gaps.
+     */
+    DayTemplate(String dayType,
+                String[] types,
+                String[] names,
+                String[] starts,
+                String[] ends,
+                int firstPeriod,
+                int lastPeriod)
+    {
+        if (types.length == 0) {
+            throw new IllegalArgumentException("day '" + dayType + "' has 0 periods");
+        }
+
+        int size = types.length;
+        this.dayType = dayType;
+        this.types = new String[size];
+        this.names = new String[size];
+        this.startOffsets = new long[size];
+        this.endOffsets = new long[size];
+        this.lasts = new boolean[size];
+
+        for (int i = 0; i < size; i++) {
+            String type = types[i];
+            String name = names[i];
+            String startStr = starts[i];
+            String endStr = ends[i];
+            DayTemplate.validateType(type, firstPeriod, lastPeriod);
+            if (name == null) {
+                throw new IllegalArgumentException("period missing " + SchoolJson.NAME);
+            }
+
+            this.types[i] = type;
+            this.names[i] = name;
+            this.startOffsets[i] = DayTemplate.parseOffset(startStr);
+            this.lasts[i] = UserJson.LAST_TIME.equals(endStr);
+            this.endOffsets[i] = this.lasts[i] ? MS_PER_DAY : DayTemplate.parseOffset(endStr);
+
+            if (this.startOffsets[i] >= this.endOffsets[i]) {
+                throw new IllegalArgumentException("start cannot be after end: " + startStr +
+                                                   ", " + endStr + " for dayType=" + dayType);
+            }
+
+            // Each period must start exactly where the previous one ended, and the day as a
+            // whole must run from 00:00 to 23:59 so that adjacent days are also continuous
+            long previousEnd = i == 0 ? 0 : this.endOffsets[i - 1];
+            if (this.startOffsets[i] != previousEnd) {
+                throw new IllegalArgumentException("previous end + 1ms != next start: " +
+                                                   startStr + " for dayType=" + dayType);
+            }
+        }
+
+        if (!this.lasts[size - 1]) {
+            throw new IllegalArgumentException("day '" + dayType + "' does not end at " +
+                                               UserJson.LAST_TIME);
+        }
+
+        this.nextCounted = new int[size];
+        this.prevCounted = new int[size];
+        int next = -1;
+        for (int i = size - 1; i >= 0; i--) {
+            if (!this.types[i].equals(SchoolJson.NOTHING)) {
+                next = i;
+            }
+            this.nextCounted[i] = next;
+        }
+        int prev = -1;
+        for (int i = 0; i < size; i++) {
+            if (!this.types[i].equals(SchoolJson.NOTHING)) {
+                prev = i;
+            }
+            this.prevCounted[i] = prev;
+        }
+    }
+
+
+    /**
+     * Compiles the day types of every week type that can be used by a school json file: the
+     * default week and any week type named by an exception. Each day type is compiled once and
+     * the same {@code DayTemplate} object is shared by every week that uses it.
+     *
+     * @param json         the school json data.
+     * @param firstPeriod  the first valid period number.
+     * @param lastPeriod   the last valid period number.
+     *
+     * @return a map from each week type to the compiled day types of its 7 days, in the order
+     *         the week types are first named (the default week first).
+     *
+     * @throws IllegalArgumentException  if a week type or day type is missing or invalid.
+     */
+    static Map<String, DayTemplate[]> compileWeeks(SchoolJson json,
+                                                   int firstPeriod,
+                                                   int lastPeriod)
+    {
+        List<String> exceptionTypes = new ArrayList<>();
+        for (Map<String, String> exception : json.exceptions) {
+            exceptionTypes.add(exception.get(SchoolJson.TYPE));
+        }
+
+        return DayTemplate.compileWeeks(json.weeks, exceptionTypes, (dayType) -> {
+                List<Map<String, String>> periodDefs = json.days.get(dayType);
+                if (periodDefs == null) {
+                    return null;
+                }
+                return new DayTemplate(dayType, periodDefs, firstPeriod, lastPeriod);
+            });
+    }
+
+
+    /**
+     * Compiles the day types of every week type that can be used by a school json file: the
+     * default week and any week type named by an exception. Each day type is compiled once and
+     * the same {@code DayTemplate} object is shared by every week that uses it.
+     *
+     * @param weekDefs        the "Weeks" section of the school json file.
+     * @param exceptionTypes  the week type named by each exception.
+     * @param compiler        a function that compiles a day type, or returns null if the day
+     *                        type is not defined.
+     *
+     * @return a map from each week type to the compiled day types of its 7 days, in the order
+     *         the week types are first named (the default week first).
+     *
+     * @throws IllegalArgumentException  if a week type or day type is missing or invalid.
+     */
+    static Map<String, DayTemplate[]> compileWeeks(Map<String, List<String>> weekDefs,
+                                                   List<String> exceptionTypes,
+                                                   Function<String, DayTemplate> compiler)
+    {
+        List<String> weekTypes = new ArrayList<>();
+        weekTypes.add(SchoolJson.DEFAULT);
+        weekTypes.addAll(exceptionTypes);
+
+        Map<String, DayTemplate[]> weeks = new LinkedHashMap<>();
+        Map<String, DayTemplate> days = new HashMap<>();
+        for (String weekType : weekTypes) {
+            if (weeks.containsKey(weekType)) {
+                continue;
+            }
+            if (!weekDefs.containsKey(weekType)) {
+                throw new IllegalArgumentException("missing defintion for week: " + weekType);
+            }
+
+            List<String> dayTypes = weekDefs.get(weekType);
+            if (dayTypes == null || dayTypes.size() != Duration.DAYS_PER_WEEK) {
+                throw new IllegalArgumentException("week '" + weekType + "' does not have 7 days");
+            }
+
+            DayTemplate[] week = new DayTemplate[Duration.DAYS_PER_WEEK];
+            for (int i = 0; i < week.length; i++) {
+                String dayType = dayTypes.get(i);
+                DayTemplate day = days.get(dayType);
+                if (day == null) {
+                    day = compiler.apply(dayType);
+                    if (day == null) {
+                        throw new IllegalArgumentException("missing definition for day: " +
+                                                           dayType);
+                    }
+                    days.put(dayType, day);
+                }
+                week[i] = day;
+            }
+            weeks.put(weekType, week);
+        }
+        return weeks;
+    }
+
+
+    /**
+     * Returns the value of a key in each period definition of a day type.
+     *
+     * @param periodDefs  the list of period definitions for the day type.
+     * @param key         the key to get the value of.
+     *
+     * @return the value of {@code key} in each period definition, in order.
+     *
+     * @throws IllegalArgumentException  if any period definition is missing {@code key}.
+     */
+    private static String[] getValues(List<Map<String, String>> periodDefs, String key) {
+        String[] values = new String[periodDefs.size()];
+        for (int i = 0; i < values.length; i++) {
+            Map<String, String> periodDef = periodDefs.get(i);
+            if (!periodDef.containsKey(key)) {
+                throw new IllegalArgumentException("period missing " + key);
+            }
+            values[i] = periodDef.get(key);
+        }
+        return values;
+    }
+
+
+    /**
+     * Validates the type of a period.
+     *
+     * @param type         the type of the period.
+     * @param firstPeriod  the first valid period number.
+     * @param lastPeriod   the last valid period number.
+     *
+     * @throws IllegalArgumentException  if {@code type} is not {@code "Nothing"},
+     *                                   {@code "Special"}, or an integer in the range
+     *                                   [{@code firstPeriod}, {@code lastPeriod}].
+     */
+    private static void validateType(String type, int firstPeriod, int lastPeriod) {
+        if (type == null) {
+            throw new IllegalArgumentException("period missing " + SchoolJson.TYPE);
+        }
+        if (type.equals(SchoolJson.NOTHING) || type.equals(SchoolJson.SPECIAL)) {
+            return;
+        }
+
+        int academicType;
+        try {
+            academicType = Integer.parseInt(type);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid type for SchoolPeriod: " + type);
+        }
+        if (academicType < firstPeriod || academicType > lastPeriod) {
+            throw new IllegalArgumentException("type " + type + " is out of range");
+        }
+    }
+
+
+    /**
+     * Parses a {@code HH:mm} time string into a number of milliseconds after local midnight.
+     *
+     * @param time  the time string to parse.
+     *
+     * @return the number of milliseconds after local midnight.
+     *
+     * @throws IllegalArgumentException  if {@code time} is not a valid {@code HH:mm} string.
+     */
+    private static long parseOffset(String time) {
+        if (time == null) {
+            throw new IllegalArgumentException("invalid time format for null");
+        }
+
+        try {
+            LocalTime localTime = LocalTime.parse(time, DayTemplate.TIME_FORMAT);
+            return localTime.toSecondOfDay() * 1000L;
+        }
+        catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid time format for " + time);
+        }
+    }
+
+
+    /**
+     * Returns the name of this day type.
+     *
+     * @return the name of this day type.
+     */
+    String getDayType() {
+        return this.dayType;
+    }
+
+
+    /**
+     * Returns the number of periods in this day.
+     *
+     * @return the number of periods in this day.
+     */
+    int size() {
+        return this.types.length;
+    }
+
+
+    /**
+     * Returns the type of a period.
+     *
+     * @param index  the index of the period in this day.
+     *
+     * @return the type of the period.
+     */
+    String getType(int index) {
+        return this.types[index];
+    }
+
+
+    /**
+     * Returns the name of a period.
+     *
+     * @param index  the index of the period in this day.
+     *
+     * @return the name of the period.
+     */
+    String getName(int index) {
+        return this.names[index];
+    }
+
+
+    /**
+     * Returns whether a period is the last in the day.
+     *
+     * @param index  the index of the period in this day.
+     *
+     * @return whether the period is the last in the day.
+     */
+    boolean isLast(int index) {
+        return this.lasts[index];
+    }
+
+
+    /**
+     * Returns the index of the first counted period in this day at or after a period.
+     *
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the first counted period at or after {@code index}, or {@code -1} if
+     *         no such period exists in this day.
+     */
+    int getNextCounted(int index) {
+        return this.nextCounted[index];
+    }
+
+
+    /**
+     * Returns the index of the last counted period in this day at or before a period.
+     *
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the last counted period at or before {@code index}, or {@code -1} if
+     *         no such period exists in this day.
+     */
+    int getPreviousCounted(int index) {
+        return this.prevCounted[index];
+    }
+
+
+    /**
+     * Returns the start time, inclusive, of a period on a specific date.
+     *
+     * @param index    the index of the period in this day.
+     * @param offsets  the UTC offsets of the local date the day occurs on.
+     *
+     * @return the start time of the period in epoch milliseconds.
+     */
+    long getStart(int index, DayOffsets offsets) {
+        return offsets.resolve(this.startOffsets[index]);
+    }
+
+
+    /**
+     * Returns the end time, inclusive, of a period on a specific date. Periods end 1 millisecond
+     * before the minute in which the next period starts.
+     *
+     * @param index    the index of the period in this day.
+     * @param offsets  the UTC offsets of the local date the day occurs on.
+     *
+     * @return the end time of the period in epoch milliseconds.
+     */
+    long getEnd(int index, DayOffsets offsets) {
+        if (this.lasts[index]) {
+            return offsets.resolve(MS_PER_DAY) - 1;
+        }
+        // Resolve the last millisecond of the end minute's first second, then step back 1 second,
+        // so that the end is always computed in the same offset as the end minute itself
+        return offsets.resolve(this.endOffsets[index] + 999) - 1000;
+    }
+
+}
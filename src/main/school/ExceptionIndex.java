@@ -0,0 +1,157 @@
+package school;
+
+
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import time.UTCTime;
+
+
+/**
+ * Resolves the "Exceptions" section of the school json file into a map from calendar week to
+ * week type.
+ *
+ * Every exception is validated and its week tag is parsed exactly once, when the index is
+ * constructed. Looking up the week type for a week is then a single hash lookup, regardless of
+ * the number of exceptions.
+ *
+ * @author Jonathan Uhler
+ */
+class ExceptionIndex {
+
+    /** Map from the epoch day of the sunday that starts a week to the week type of that week. */
+    private final Map<Long, String> weekTypes;
+
+
+    /**
+     * Constructs a new {@code ExceptionIndex}.
+     *
+     * @param exceptions  the "Exceptions" section of the school json file.
+     * @param weeks       the "Weeks" section of the school json file, used to check that each
+     *                    exception references a defined week.
+     * @param timezone    the unix TZ identifier of the school.
+     *
+     * @throws IllegalArgumentException  if any exception is missing a key.
+     * @throws IllegalArgumentException  if any exception has an invalid week tag.
+     * @throws IllegalArgumentException  if any exception references an undefined week type.
+     * @throws IllegalArgumentException  if more than one exception exists for the same week.
+     */
+    ExceptionIndex(List<Map<String, String>> exceptions,
+                   Map<String, List<String>> weeks,
+                   String timezone)
+    {
+        this(ExceptionIndex.getValues(exceptions, SchoolJson.TYPE),
+             ExceptionIndex.getValues(exceptions, SchoolJson.WEEK_TAG),
+             weeks,
+             timezone);
+    }
+
+
+    /**
+     * Constructs a new {@code ExceptionIndex} from the values of each exception, in order. Both
+     * arrays must have the same length.
+     *
+     * @param weekTypes  the week type of each exception.
+     * @param weekTags   the week tag of each exception.
+     * @param weeks      the "Weeks" section of the school json file, used to check that each
+     *                   exception references a defined week.
+     * @param timezone   the unix TZ identifier of the school.
+     *
+     * @throws IllegalArgumentException  if any exception has an invalid week tag.
+     * @throws IllegalArgumentException  if any exception references an undefined week type.
+     * @throws IllegalArgumentException  if more than one exception exists for the same week.
+     */
+    ExceptionIndex(String[] weekTypes,
+                   String[] weekTags,
+                   Map<String, List<String>> weeks,
+                   String timezone)
+    {
+        this.weekTypes = new HashMap<>();
+
+        for (int i = 0; i < weekTypes.length; i++) {
+            String weekType = weekTypes[i];
+            String exceptionTag = weekTags[i];
+            if (!weeks.containsKey(weekType)) {
+                throw new IllegalArgumentException("missing defintion for week: " + weekType);
+            }
+
+            long weekKey = ExceptionIndex.weekKey(UTCTime.of(exceptionTag, timezone));
+            String existingType = this.weekTypes.put(weekKey, weekType);
+            if (existingType != null) {
+                String weekTag = LocalDate.ofEpochDay(weekKey).toString();
+                if (existingType.equals(weekType)) {
+                    throw new IllegalArgumentException("duplicate exception for the week of " +
+                                                       weekTag + ": " + weekType);
+                }
+                throw new IllegalArgumentException("conflicting exceptions for the week of " +
+                                                   weekTag + ": " + existingType + ", " +
+                                                   weekType);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the value of a key in each exception.
+     *
+     * @param exceptions  the "Exceptions" section of the school json file.
+     * @param key         the key to get the value of.
+     *
+     * @return the value of {@code key} in each exception, in order.
+     *
+     * @throws IllegalArgumentException  if any exception is missing {@code key}.
+     */
+    private static String[] getValues(List<Map<String, String>> exceptions, String key) {
+        String[] values = new String[exceptions.size()];
+        for (int i = 0; i < values.length; i++) {
+            Map<String, String> exception = exceptions.get(i);
+            if (!exception.containsKey(key)) {
+                throw new IllegalArgumentException("exception missing " + key);
+            }
+            values[i] = exception.get(key);
+        }
+        return values;
+    }
+
+
+    /**
+     * Returns the key of the week containing a specified time. The key is the epoch day of the
+     * closest sunday on or before the time, matching {@code UTCTime::getWeekTag}.
+     *
+     * @param time  the time to get the week key of.
+     *
+     * @return the key of the week containing {@code time}.
+     */
+    static long weekKey(UTCTime time) {
+        return ExceptionIndex.weekKey(time.asZonedDateTime().toLocalDate());
+    }
+
+
+    /**
+     * Returns the key of the week containing a specified date. The key is the epoch day of the
+     * closest sunday on or before the date.
+     *
+     * @param date  the date to get the week key of.
+     *
+     * @return the key of the week containing {@code date}.
+     */
+    static long weekKey(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(UTCTime.SUNDAY)).toEpochDay();
+    }
+
+
+    /**
+     * Returns the week type for a week. If no exception exists for the week, the default week
+     * type is returned.
+     *
+     * @param weekKey  the key of the week, as returned by {@code weekKey}.
+     *
+     * @return the week type for the specified week.
+     */
+    String getWeekType(long weekKey) {
+        return this.weekTypes.getOrDefault(weekKey, SchoolJson.DEFAULT);
+    }
+
+}
@@ -0,0 +1,171 @@
+package school;
+
+
+/**
+ * Inverted index from each entry of a string table (such as the period types or names of a
+ * {@code SchoolTimeline}) to the indices of the periods that use it.
+ *
+ * The occurrences of every entry are stored in one array, grouped by entry and sorted by period
+ * index within each group, with the offset of each group in a second array. Alongside each
+ * occurrence is the total length of the occurrences before it in the same group, so that the
+ * time spent in an entry over any range is the difference of two prefix sums. Every lookup is a
+ * binary search within the group of one entry.
+ *
+ * An {@code OccurrenceIndex} cannot be modified after it is built.
+ *
+ * @author Jonathan Uhler
+ */
+final class OccurrenceIndex {
+
+    /** Start time, inclusive, of each period in epoch milliseconds. */
+    private final long[] starts;
+    /** End time, inclusive, of each period in epoch milliseconds. */
+    private final long[] ends;
+    /** Offset into {@code occurrences} of the group of each entry, and the total at the end. */
+    private final int[] offsets;
+    /** Index of each period, grouped by entry and sorted within each group. */
+    private final int[] occurrences;
+    /** Milliseconds in the occurrences before each one in its group, by position. */
+    private final long[] prefix;
+
+
+    /**
+     * Constructs a new {@code OccurrenceIndex}. The arrays are not copied, and must not be
+     * modified after this call.
+     *
+     * @param ids     the index into the string table for each period.
+     * @param numIds  the number of entries in the string table.
+     * @param starts  the start time, inclusive, of each period in epoch milliseconds.
+     * @param ends    the end time, inclusive, of each period in epoch milliseconds.
+     */
+    OccurrenceIndex(int[] ids, int numIds, long[] starts, long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+
+        // Counting sort of the periods by entry, which keeps each group in chronological order
+        this.offsets = new int[numIds + 1];
+        for (int id : ids) {
+            this.offsets[id + 1]++;
+        }
+        for (int i = 0; i < numIds; i++) {
+            this.offsets[i + 1] += this.offsets[i];
+        }
+
+        int[] positions = new int[numIds];
+        System.arraycopy(this.offsets, 0, positions, 0, numIds);
+        this.occurrences = new int[ids.length];
+        this.prefix = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int position = positions[ids[i]]++;
+            this.occurrences[position] = i;
+            if (position > this.offsets[ids[i]]) {
+                int previous = this.occurrences[position - 1];
+                this.prefix[position] = this.prefix[position - 1] +
+                    this.ends[previous] - this.starts[previous] + 1;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the index of the first period at or after a period that uses an entry.
+     *
+     * @param id     the index of the entry in the string table.
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the first period at or after {@code index} that uses the entry, or
+     *         {@code -1} if there is none.
+     */
+    int next(int id, int index) {
+        int position = this.lowerBound(id, index);
+        return position < this.offsets[id + 1] ? this.occurrences[position] : -1;
+    }
+
+
+    /**
+     * Returns the index of the last period at or before a period that uses an entry.
+     *
+     * @param id     the index of the entry in the string table.
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the last period at or before {@code index} that uses the entry, or
+     *         {@code -1} if there is none.
+     */
+    int previous(int id, int index) {
+        int position = this.lowerBound(id, index + 1) - 1;
+        return position >= this.offsets[id] ? this.occurrences[position] : -1;
+    }
+
+
+    /**
+     * Returns the time spent in periods that use an entry before a time.
+     *
+     * @param id     the index of the entry in the string table.
+     * @param index  the index of the last period that starts at or before {@code epoch}, or
+     *               {@code -1} if there is none.
+     * @param epoch  the time, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds before {@code epoch} in periods that use the entry.
+     */
+    long timeBefore(int id, int index, long epoch) {
+        if (index == -1) {
+            return 0;
+        }
+
+        int position = this.lowerBound(id, index);
+        if (position == this.offsets[id + 1]) {
+            return this.total(id);
+        }
+
+        long time = this.prefix[position];
+        if (this.occurrences[position] == index) {
+            time += Math.min(epoch, this.ends[index] + 1) - this.starts[index];
+        }
+        return time;
+    }
+
+
+    /**
+     * Returns the time spent in every period that uses an entry.
+     *
+     * @param id  the index of the entry in the string table.
+     *
+     * @return the number of milliseconds in periods that use the entry.
+     */
+    private long total(int id) {
+        int last = this.offsets[id + 1] - 1;
+        if (last < this.offsets[id]) {
+            return 0;
+        }
+        int index = this.occurrences[last];
+        return this.prefix[last] + this.ends[index] - this.starts[index] + 1;
+    }
+
+
+    /**
+     * Returns the position of the first occurrence of an entry whose period index is at least a
+     * given index.
+     *
+     * @param id     the index of the entry in the string table.
+     * @param index  the period index to search for.
+     *
+     * @return the position in {@code occurrences} of the first occurrence at or after
+     *         {@code index}, or the end of the group of the entry if there is none.
+     */
+    private int lowerBound(int id, int index) {
+        int min = this.offsets[id];
+        int max = this.offsets[id + 1];
+
+        while (min < max) {
+            int middle = (min + max) >>> 1;
+            if (this.occurrences[middle] < index) {
+                min = middle + 1;
+            }
+            else {
+                max = middle;
+            }
+        }
+        return min;
+    }
+
+}
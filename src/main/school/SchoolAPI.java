@@ -5,6 +5,14 @@ import java.util.Map;
 import java.util.List;
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
 import time.UTCTime;
 import time.Duration;
 
@@ -14,15 +22,33 @@ import time.Duration;
  * time remaining, upcoming periods, and the current period. More data is available from the other
  * classes in this package, but it is avised to use this API instead.
  *
+ * A {@code SchoolAPI} and the schedule behind it are not modified after construction; methods
+ * such as {@code withOverlay} return a new object. Once published, a {@code SchoolAPI} can be
+ * read by any number of threads without locking. To replace the {@code SchoolAPI} that other
+ * threads are reading, see {@code SchoolHolder}.
+ *
+ * The periods found for the countdown methods ({@code getTimeRemaining}, {@code getTotalTime},
+ * and {@code snapshot}) are remembered until the end of the current period, so that repeated
+ * calls within a period do not search the schedule again.
+ *
  * @author Jonathan Uhler
  */
 public class SchoolAPI {
     
     /**
      * Definition for the school year. This is an object-form of the school json file, making the
-     * data more accessible and providing some simple API methods.
+     * data more accessible and providing some simple API methods. This is either a materialized
+     * {@code SchoolYear}, a closed-form {@code SchoolCalendar}, or several school years in a
+     * {@code SchoolSegments}.
+     */
+    private final SchoolSchedule year;
+    /**
+     * The snapshot from the last search of the schedule for the countdown methods, or null if
+     * there has not been one. Its periods are reused for any time before it expires. A snapshot
+     * cannot be modified, so each thread sees either a complete snapshot or the one it replaced,
+     * and a lost update only costs another search.
      */
-    private SchoolYear year;
+    private volatile SchoolSnapshot context;
     
     
     /**
@@ -44,6 +70,29 @@ public class SchoolAPI {
     }
     
     
+    /**
+     * Constructs a new {@code SchoolAPI} object with a specified json file name, using a cache of
+     * precompiled binary schedules.
+     *
+     * If the cache directory holds a binary schedule compiled from the same json content, it is
+     * loaded instead of parsing and compiling the json file. Otherwise, the json file is compiled
+     * and a binary schedule is written to the cache directory for the next load.
+     *
+     * @param path      a {@code Path} object that points to the school json file, with the same
+     *                  meaning as in {@code SchoolAPI(Path)}.
+     * @param cacheDir  the directory that holds binary schedule files. This directory is created
+     *                  if it does not exist.
+     *
+     * @throws FileNotFoundException     if the json file does not exist.
+     * @throws IllegalArgumentException  if any json parse error occurs.
+     *
+     * @see SchoolBinary
+     */
+    public SchoolAPI(Path path, Path cacheDir) throws FileNotFoundException {
+        this.year = SchoolBinary.load(path, cacheDir);
+    }
+    
+    
     /**
      * Constructs a new {@code SchoolAPI} object from a {@code SchoolJson} object.
      *
@@ -56,6 +105,91 @@ public class SchoolAPI {
     public SchoolAPI(SchoolJson json) throws FileNotFoundException {
         this.year = new SchoolYear(json);
     }
+
+
+    /**
+     * Constructs a new {@code SchoolAPI} object from a closed-form {@code SchoolCalendar}.
+     *
+     * Periods are computed from the compiled day and week definitions when they are requested,
+     * instead of being created for the entire year when this object is constructed. This is
+     * preferred when only a few queries will be made with this object.
+     *
+     * @param calendar  the {@code SchoolCalendar} object containing school data.
+     *
+     * @throws NullPointerException  if {@code calendar} is null.
+     *
+     * @see SchoolCalendar
+     */
+    public SchoolAPI(SchoolCalendar calendar) {
+        if (calendar == null) {
+            throw new NullPointerException("calendar cannot be null");
+        }
+        this.year = calendar;
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolAPI} object from several consecutive school years.
+     *
+     * Each school year is compiled the first time a query reaches it, so a schedule with many
+     * years only pays for the years that are used. Countdowns near the end of one year continue
+     * into the next year.
+     *
+     * @param segments  the {@code SchoolSegments} object containing the school years.
+     *
+     * @throws NullPointerException  if {@code segments} is null.
+     *
+     * @see SchoolSegments
+     */
+    public SchoolAPI(SchoolSegments segments) {
+        if (segments == null) {
+            throw new NullPointerException("segments cannot be null");
+        }
+        this.year = segments;
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolAPI} object backed by an existing schedule.
+     *
+     * @param year  the schedule to back this API.
+     */
+    private SchoolAPI(SchoolSchedule year) {
+        this.year = year;
+    }
+
+
+    /**
+     * Creates a {@code SchoolAPI} that replaces the periods of some days of this API's schedule,
+     * such as the days of a user whose classes differ from the published bell schedule. This API
+     * is not modified, and its schedule is shared rather than copied, so the new API only uses
+     * memory for the replaced days.
+     *
+     * @param days  a map from the date tag ({@code yyyy-MM-dd}) of each replaced day to its list of
+     *              periods, in the same format as the "Days" section of the school json file.
+     *              Dates outside of the school year are ignored.
+     *
+     * @return a {@code SchoolAPI} with the replaced days.
+     *
+     * @throws NullPointerException      if {@code days} is null.
+     * @throws IllegalArgumentException  if any date tag cannot be parsed, or the periods of any
+     *                                   day are invalid or do not cover the entire day.
+     *
+     * @see SchoolOverlay
+     */
+    public SchoolAPI withOverlay(Map<String, List<Map<String, String>>> days) {
+        return new SchoolAPI(new SchoolOverlay(this.year, days));
+    }
+    
+    
+    /**
+     * Returns the schedule that backs this API.
+     *
+     * @return the schedule that backs this API.
+     */
+    SchoolSchedule getSchedule() {
+        return this.year;
+    }
     
     
     /**
@@ -71,6 +205,21 @@ public class SchoolAPI {
     }
     
     
+    /**
+     * Returns the compiled timeline of every period in the loaded school json file. Indices
+     * returned by the lookups of the timeline, including the batch lookup
+     * {@code SchoolTimeline::indexOf(long[], int[])}, can be turned into periods with
+     * {@code SchoolTimeline::getPeriod}. A batch lookup that works for every schedule is
+     * available from {@code getCurrentPeriods}.
+     *
+     * @return the compiled timeline of every period, or {@code null} if this API is backed by a
+     *         {@code SchoolCalendar}, which does not store its periods in a timeline.
+     */
+    public SchoolTimeline getTimeline() {
+        return this.year.getTimeline();
+    }
+    
+    
     /**
      * Returns the first possible period number.
      *
@@ -132,13 +281,37 @@ public class SchoolAPI {
     }
     
     
+    /**
+     * Gets the current period at each of many times, such as the current time of every user of a
+     * server or each sample of a report. The result for each time is the same as
+     * {@code getCurrentPeriod}, but the schedule reuses the work of one lookup for the next, so
+     * sorted times are much cheaper than separate calls.
+     *
+     * @param epochs  the times to get the current periods for, in epoch milliseconds.
+     *
+     * @return the current period at each time, or {@code null} for a time with no period.
+     *
+     * @throws NullPointerException  if {@code epochs} is null.
+     */
+    public SchoolPeriod[] getCurrentPeriods(long[] epochs) {
+        if (epochs == null) {
+            throw new NullPointerException("epochs cannot be null");
+        }
+
+        SchoolPeriod[] periods = new SchoolPeriod[epochs.length];
+        this.year.getPeriods(epochs, periods);
+        return periods;
+    }
+    
+    
     /**
      * Gets the period immediately after the period returned by {@code getCurrentPeriod}. This is
      * achieved by taking the end time of the current period and adding 1 millisecond, thus causing
      * the time to overflow to the start of the next period whose time is at least 1 millisecond.
      *
-     * If the current period is {@code null}, then the next calendar year is searched for the first
-     * period of the school year. If nothing is found after this search, {@code null} is returned.
+     * If the current period is {@code null}, then the first period after {@code time} is returned
+     * (e.g. the first period of the school year for a time before the year starts). If no period
+     * exists after {@code time}, {@code null} is returned.
      *
      * @param time  the time to get the next period for.
      *
@@ -164,20 +337,9 @@ public class SchoolAPI {
             return this.getCurrentPeriod(nextPeriodStart);
         }
 
-        // If the current period is null, then "walk" the time pointer for the next calendar year
-        // from the time specified by `time` to search for a period.
-        UTCTime walk = time;
-        UTCTime end = walk.plus(1, UTCTime.YEARS);
-        while (walk.isBefore(end)) {
-            SchoolPeriod nextPeriod = this.getCurrentPeriod(walk);
-            if (nextPeriod != null) {
-                return nextPeriod;
-            }
-            walk = walk.plus(1, UTCTime.DAYS);
-            walk = walk.toMidnight(this.year.getTimezone());
-        }
-            
-        return null;
+        // If the current period is null, then `time` is outside the school year. The schedule
+        // finds the nearest period after it with a single search
+        return this.year.getPeriodAtOrAfter(time);
     }
 
 
@@ -187,9 +349,9 @@ public class SchoolAPI {
      * causing the time to underflow to the end of the previous period whose time is at least 1
      * millisecond.
      *
-     * If the current period is {@code null}, then the previous calendar year is searched for the
-     * last period of the school year. If nothing is found after this search, {@code null} is
-     * returned.
+     * If the current period is {@code null}, then the last period before {@code time} is returned
+     * (e.g. the last period of the school year for a time after the year ends). If no period
+     * exists before {@code time}, {@code null} is returned.
      *
      * @param time  the time to get the next period for.
      *
@@ -212,18 +374,7 @@ public class SchoolAPI {
             return this.getCurrentPeriod(previousPeriodEnd);
         }
 
-        UTCTime walk = time;
-        UTCTime end = walk.plus(-1, UTCTime.YEARS);
-        while (walk.isAfter(end)) {
-            SchoolPeriod previousPeriod = this.getCurrentPeriod(walk);
-            if (previousPeriod != null) {
-                return previousPeriod;
-            }
-            walk = walk.toMidnight(this.year.getTimezone());
-            walk = walk.plus(-1, UTCTime.MILLISECONDS);
-        }
-
-        return null;
+        return this.year.getPeriodAtOrBefore(time);
     }
     
     
@@ -273,25 +424,18 @@ public class SchoolAPI {
             throw new NullPointerException("time cannot be null");
         }
 
+        // Within the year, the schedule finds the next counted period with a single lookup. If
+        // the time is not in the year, start from the next period that is
         SchoolPeriod currentPeriod = this.getCurrentPeriod(time);
-        if (currentPeriod != null && currentPeriod.isCounted()) {
-            return currentPeriod;
+        if (currentPeriod != null) {
+            return this.year.getNextCountedPeriod(time);
         }
-        UTCTime walk = time;
-        UTCTime end = time.plus(1, UTCTime.YEARS);
-        while (walk.isBefore(end)) {
-            SchoolPeriod nextPeriod = this.getNextPeriod(walk);
-            if (nextPeriod == null) {
-                return null;
-            }
-            if (nextPeriod.isCounted()) {
-                return nextPeriod;
-            }
-                
-            walk = nextPeriod.getEnd();
+
+        SchoolPeriod nextPeriod = this.getNextPeriod(time);
+        if (nextPeriod == null) {
+            return null;
         }
-	
-        return null;
+        return this.year.getNextCountedPeriod(nextPeriod.getStart());
     }
 
 
@@ -314,33 +458,23 @@ public class SchoolAPI {
         }
 
         SchoolPeriod currentPeriod = this.getCurrentPeriod(time);
-        if (currentPeriod != null && currentPeriod.isCounted()) {
-            return currentPeriod;
+        if (currentPeriod != null) {
+            return this.year.getPreviousCountedPeriod(time);
         }
 
-        UTCTime walk = time;
-        UTCTime end = time.plus(-1, UTCTime.YEARS);
-        while (walk.isAfter(end)) {
-            SchoolPeriod previousPeriod = this.getPreviousPeriod(walk);
-            if (previousPeriod == null) {
-                return null;
-            }
-            if (previousPeriod.isCounted()) {
-                return previousPeriod;
-            }
-
-            walk = previousPeriod.getStart();
+        SchoolPeriod previousPeriod = this.getPreviousPeriod(time);
+        if (previousPeriod == null) {
+            return null;
         }
-
-        return null;
+        return this.year.getPreviousCountedPeriod(previousPeriod.getStart());
     }
     
     
     /**
      * Gets the time remaining. The range of the "remaining time" is started by the argument
      * {@code time} and terminated by the end of the current period if its counted, else the
-     * start of the next period that is counted. At most, the next calendar year is searched for
-     * a valid period before the method is exited with a {@code null} return value.
+     * start of the next period that is counted. If no such period exists, {@code null} is
+     * returned.
      *
      * @param time  the time that starts the "remaining time" interval.
      *
@@ -353,16 +487,7 @@ public class SchoolAPI {
             throw new NullPointerException("time cannot be null");
         }
 
-        SchoolPeriod currentPeriod = this.getCurrentPeriod(time);
-        SchoolPeriod nextCountedPeriod = this.getNextCountedPeriod(time);
-        if (currentPeriod == null || nextCountedPeriod == null) {
-            return null;
-        }
-
-        if (currentPeriod.isCounted()) {
-            return new Duration(time, currentPeriod.getEnd());
-        }
-        return new Duration(time, nextCountedPeriod.getStart());
+        return this.getContext(time).getTimeRemainingAt(time);
     }
 
 
@@ -385,17 +510,321 @@ public class SchoolAPI {
             throw new NullPointerException("time cannot be null");
         }
 
-        SchoolPeriod currentPeriod = this.getCurrentPeriod(time);
-        SchoolPeriod previousCountedPeriod = this.getPreviousCountedPeriod(time);
-        SchoolPeriod nextCountedPeriod = this.getNextCountedPeriod(time);
-        if (currentPeriod == null || previousCountedPeriod == null || nextCountedPeriod == null) {
-            return null;
+        // The total time only depends on the periods, not on where the time is in them
+        return this.getContext(time).getTotalTime();
+    }
+
+
+    /**
+     * Gets the amount of counted time in the range {@code [from, to)}. Counted time is time within
+     * a period whose type is not {@code "Nothing"}; periods that overlap the range are only
+     * partially counted. For a schedule with a compiled timeline, this is found in logarithmic
+     * time regardless of the length of the range.
+     *
+     * @param from  the start of the range, inclusive.
+     * @param to    the end of the range, exclusive.
+     *
+     * @return the amount of counted time in the range.
+     *
+     * @throws NullPointerException      if {@code from} or {@code to} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public Duration getCountedTime(UTCTime from, UTCTime to) {
+        if (from == null) {
+            throw new NullPointerException("from cannot be null");
+        }
+        if (to == null) {
+            throw new NullPointerException("to cannot be null");
+        }
+
+        return new Duration(this.year.getCountedTime(from.getEpoch(), to.getEpoch()));
+    }
+
+
+    /**
+     * Gets the first period of a type that occurs during or after a given time, such as the next
+     * occurrence of a class period.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the first period of type {@code type} that ends at or after {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    public SchoolPeriod getNextPeriodOfType(UTCTime time, String type) {
+        return this.year.getNextPeriodOfType(time, type);
+    }
+
+
+    /**
+     * Gets the last period of a type that occurs during or before a given time.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the last period of type {@code type} that starts at or before {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    public SchoolPeriod getPreviousPeriodOfType(UTCTime time, String type) {
+        return this.year.getPreviousPeriodOfType(time, type);
+    }
+
+
+    /**
+     * Gets the amount of time in periods of a type in the range {@code [from, to)}, such as the
+     * time left in a class period over the rest of the year. Periods that overlap the range are
+     * only partially counted. For a schedule with a compiled timeline, this is found in
+     * logarithmic time regardless of the length of the range.
+     *
+     * @param type  the type of the periods to count.
+     * @param from  the start of the range, inclusive.
+     * @param to    the end of the range, exclusive.
+     *
+     * @return the amount of time in the range within periods of type {@code type}.
+     *
+     * @throws NullPointerException      if any argument is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public Duration getTimeOfType(String type, UTCTime from, UTCTime to) {
+        if (from == null) {
+            throw new NullPointerException("from cannot be null");
+        }
+        if (to == null) {
+            throw new NullPointerException("to cannot be null");
+        }
+
+        return new Duration(this.year.getTimeOfType(type, from.getEpoch(), to.getEpoch()));
+    }
+
+
+    /**
+     * Gets the portion of the counted time in the range {@code [from, to)} that is before a
+     * given time. This can be used for the progress through any part of the year, such as a
+     * term.
+     *
+     * @param time  the time to get the progress at.
+     * @param from  the start of the range, inclusive.
+     * @param to    the end of the range, exclusive.
+     *
+     * @return the portion of the counted time in the range that is before {@code time}, on the
+     *         interval [0, 1]. If the range has no counted time, this is 1 if {@code time} is at
+     *         or after {@code to}, else 0.
+     *
+     * @throws NullPointerException      if any argument is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public double getProgress(UTCTime time, UTCTime from, UTCTime to) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (from == null) {
+            throw new NullPointerException("from cannot be null");
+        }
+        if (to == null) {
+            throw new NullPointerException("to cannot be null");
+        }
+
+        return this.getProgress(time.getEpoch(), from.getEpoch(), to.getEpoch());
+    }
+
+
+    /**
+     * Gets the portion of the counted time in the school year that is before a given time.
+     *
+     * @param time  the time to get the progress at.
+     *
+     * @return the portion of the counted time in the school year that is before {@code time}, on
+     *         the interval [0, 1].
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public double getYearProgress(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        return this.getProgress(time.getEpoch(), Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+
+    /**
+     * Gets the portion of the counted time in a week that is before a given time. The week is
+     * the one that contains {@code time}, from midnight on sunday to midnight on the next sunday
+     * in the timezone of the school.
+     *
+     * @param time  the time to get the progress at.
+     *
+     * @return the portion of the counted time in the week that is before {@code time}, on the
+     *         interval [0, 1].
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public double getWeekProgress(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        ZoneId zone = ZoneId.of(this.getTimezone());
+        LocalDate sunday = time.asZonedDateTime()
+            .withZoneSameInstant(zone)
+            .toLocalDate()
+            .with(TemporalAdjusters.previousOrSame(UTCTime.SUNDAY));
+        LocalDate nextSunday = sunday.plusDays(Duration.DAYS_PER_WEEK);
+        long from = sunday.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = nextSunday.atStartOfDay(zone).toInstant().toEpochMilli();
+        return this.getProgress(time.getEpoch(), from, to);
+    }
+
+
+    /**
+     * Gets the portion of the counted time in the range {@code [from, to)} that is before a time.
+     *
+     * @param time  the time to get the progress at, in epoch milliseconds.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the portion of the counted time in the range that is before {@code time}.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    private double getProgress(long time, long from, long to) {
+        long total = this.year.getCountedTime(from, to);
+        if (total == 0) {
+            return time >= to ? 1 : 0;
+        }
+
+        long clamped = Math.min(Math.max(time, from), to);
+        return (double) this.year.getCountedTime(from, clamped) / total;
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a given time. The snapshot holds the current period,
+     * the previous and next counted periods, the time remaining, and the total time, all found
+     * with a single search of the schedule.
+     *
+     * Callers that need more than one of these values for the same time should prefer this
+     * method over calling each individual method, which may search the schedule again each time.
+     * Until the end of the current period, later snapshots reuse the periods of this one.
+     *
+     * @param time  the time to take a snapshot at.
+     *
+     * @return a snapshot of the schedule at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     *
+     * @see SchoolSnapshot
+     */
+    public SchoolSnapshot snapshot(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        SchoolSnapshot context = this.getContext(time);
+        return context.getTime() == time ? context : context.at(time);
+    }
+
+
+    /**
+     * Returns a snapshot whose periods are correct at a time. If the snapshot from the last search
+     * is still valid, it is returned without searching the schedule; the time of the returned
+     * snapshot may then differ from {@code time}.
+     *
+     * @param time  the time to find the periods for.
+     *
+     * @return a snapshot whose periods are correct at {@code time}.
+     */
+    private SchoolSnapshot getContext(UTCTime time) {
+        SchoolSnapshot context = this.context;
+        if (context != null && context.isValidAt(time)) {
+            return context;
+        }
+
+        context = this.year.getSnapshot(time);
+        if (context != null) {
+            this.context = context;
+            return context;
         }
 
-        if (currentPeriod.isCounted()) {
-            return new Duration(currentPeriod.getStart(), currentPeriod.getEnd());
+        // Outside of the school year there is no current period, but the nearest counted periods
+        // on either side may still exist. There is no period to bound such a snapshot, so it is
+        // not remembered
+        return new SchoolSnapshot(time,
+                                  null,
+                                  this.getPreviousCountedPeriod(time),
+                                  this.getNextCountedPeriod(time));
+    }
+
+
+    /**
+     * Returns a cursor that walks every period that overlaps the range {@code [from, to)}, in
+     * chronological order. The first period may start before {@code from}, and the last period
+     * may end after {@code to}.
+     *
+     * Walking the cursor does not create a {@code SchoolPeriod} or {@code UTCTime} for each
+     * period, so it is suited to exporting or summarizing long ranges.
+     *
+     * @param from  the start of the range, inclusive.
+     * @param to    the end of the range, exclusive.
+     *
+     * @return a cursor over the periods that overlap the range.
+     *
+     * @throws NullPointerException      if {@code from} or {@code to} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     *
+     * @see SchoolCursor
+     */
+    public SchoolCursor getPeriods(UTCTime from, UTCTime to) {
+        if (from == null) {
+            throw new NullPointerException("from cannot be null");
+        }
+        if (to == null) {
+            throw new NullPointerException("to cannot be null");
         }
-        return new Duration(previousCountedPeriod.getEnd(), nextCountedPeriod.getStart());
+
+        return this.year.getCursor(from.getEpoch(), to.getEpoch());
+    }
+
+
+    /**
+     * Returns the start time of every period that starts within the range {@code [from, to)}, in
+     * epoch milliseconds and in chronological order. These are the instants at which the current
+     * period changes, so they can be used to schedule work at the start of each period.
+     *
+     * @param from  the start of the range, inclusive.
+     * @param to    the end of the range, exclusive.
+     *
+     * @return a sequential stream of the period boundaries within the range.
+     *
+     * @throws NullPointerException      if {@code from} or {@code to} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public LongStream getBoundaries(UTCTime from, UTCTime to) {
+        SchoolCursor cursor = this.getPeriods(from, to);
+        long fromEpoch = from.getEpoch();
+
+        Spliterator.OfLong boundaries =
+            new Spliterators.AbstractLongSpliterator(Long.MAX_VALUE,
+                                                     Spliterator.ORDERED | Spliterator.DISTINCT |
+                                                     Spliterator.NONNULL)
+            {
+                @Override
+                public boolean tryAdvance(LongConsumer action) {
+                    while (cursor.next()) {
+                        // The first period can start before the range
+                        if (cursor.getStart() >= fromEpoch) {
+                            action.accept(cursor.getStart());
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            };
+        return StreamSupport.longStream(boundaries, false);
     }
     
 }
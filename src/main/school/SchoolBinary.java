@@ -0,0 +1,329 @@
+package school;
+
+
+import java.io.IOException;
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+
+/**
+ * Reads and writes a precompiled, binary form of a {@code SchoolYear}.
+ *
+ * A binary schedule file is written after a school json file is compiled for the first time, and
+ * is read on later loads so that neither the json parse nor the expansion of the year
+ * have to be repeated. Each file records the SHA-256 hash of the json content it was compiled
+ * from, and is ignored if that content changes or if the format version does not match.
+ *
+ * All values are big-endian. The layout of the file is:
+ *
+ * - {@code int     magic}: always {@code SchoolBinary.MAGIC}
+ * - {@code int     version}: always {@code SchoolBinary.VERSION}
+ * - {@code byte[]  hash}: SHA-256 hash of the school json content, {@code HASH_LENGTH} bytes
+ * - {@code int     firstPeriod}, {@code int lastPeriod}
+ * - {@code int     numTypes}, {@code int numNames}, {@code int numPeriods}
+ * - string table: the timezone, then {@code numTypes} types, then {@code numNames} names. Each
+ *   string is an {@code int} byte length followed by that many bytes of UTF-8
+ * - {@code long[numPeriods]     starts}
+ * - {@code long[numPeriods]     ends}
+ * - {@code int[numPeriods]      typeIds}
+ * - {@code int[numPeriods]      nameIds}
+ * - {@code byte[numPeriods]     lasts}
+ *
+ * @author Jonathan Uhler
+ */
+class SchoolBinary {
+
+    /** Identifies a binary schedule file. The bytes are ASCII "PCSB". */
+    static final int MAGIC = 0x50435342;
+    /** Version of the binary schedule format. Changed whenever the layout changes. */
+    static final int VERSION = 1;
+    /** Length, in bytes, of the SHA-256 hash of the source json content. */
+    static final int HASH_LENGTH = 32;
+    /** Extension added to the name of a school json file to get its binary schedule file. */
+    static final String EXTENSION = ".bin";
+
+    /** Logger for binary schedule files that cannot be read or written. */
+    private static final Logger LOGGER = Logger.getLogger(SchoolBinary.class.getName());
+    /** Whether a problem with the cache has been logged, so a broken cache is only logged once. */
+    private static final AtomicBoolean warned = new AtomicBoolean(false);
+
+
+    /**
+     * Returns the SHA-256 hash of school json content.
+     *
+     * @param content  the content of the school json file.
+     *
+     * @return the SHA-256 hash of {@code content}.
+     */
+    static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        }
+        catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available: " + e);
+        }
+    }
+
+
+    /**
+     * Loads a {@code SchoolYear} from a school json file, using a binary schedule file in a cache
+     * directory if one exists for the same json content.
+     *
+     * If no valid binary schedule file exists, the json file is compiled and a new binary
+     * schedule file is written. Failing to read or write the cache is not an error; the json
+     * file is compiled instead.
+     *
+     * @param path      the path to the school json file, as accepted by {@code SchoolYear}.
+     * @param cacheDir  the directory that holds binary schedule files.
+     *
+     * @return the {@code SchoolYear} for the school json file.
+     *
+     * @throws FileNotFoundException     if the json file does not exist.
+     * @throws IllegalArgumentException  if any parse error occurs from the provided path.
+     */
+    static SchoolYear load(Path path, Path cacheDir) throws FileNotFoundException {
+        byte[] content = SchoolYear.readSchoolFile(path);
+        byte[] hash = SchoolBinary.hash(content);
+        Path binaryPath = cacheDir.resolve(path.getFileName().toString() + SchoolBinary.EXTENSION);
+
+        if (Files.exists(binaryPath)) {
+            try {
+                SchoolYear year = SchoolBinary.read(binaryPath, hash);
+                if (year != null) {
+                    return year;
+                }
+            }
+            catch (IOException e) {
+                SchoolBinary.warnOnce("cannot read binary schedule file " + binaryPath + ": " + e);
+            }
+        }
+
+        SchoolYear year = new SchoolYear(new SchoolJsonCompiler(content));
+        try {
+            Files.createDirectories(cacheDir);
+            SchoolBinary.write(year, hash, binaryPath);
+        }
+        catch (IOException e) {
+            SchoolBinary.warnOnce("cannot write binary schedule file " + binaryPath + ": " + e);
+        }
+        return year;
+    }
+
+
+    /**
+     * Logs a problem with the cache of binary schedule files, unless one has already been logged.
+     * A cache directory that cannot be written fails the same way on every load, so only the
+     * first failure is logged.
+     *
+     * @param message  the message to log.
+     */
+    private static void warnOnce(String message) {
+        if (SchoolBinary.warned.compareAndSet(false, true)) {
+            SchoolBinary.LOGGER.warning(message);
+        }
+    }
+
+
+    /**
+     * Writes a binary schedule file. The file is written to a temporary file first and then
+     * moved into place, so a partially written file is never read.
+     *
+     * @param year  the compiled school year to write.
+     * @param hash  the SHA-256 hash of the json content {@code year} was compiled from.
+     * @param path  the path of the binary schedule file.
+     *
+     * @throws IOException  if the file cannot be written.
+     */
+    static void write(SchoolYear year, byte[] hash, Path path) throws IOException {
+        SchoolTimeline timeline = year.getTimeline();
+        String[] types = timeline.getTypeTable();
+        String[] names = timeline.getNameTable();
+        int size = timeline.size();
+
+        Path temp = path.resolveSibling(path.getFileName().toString() + ".tmp");
+        try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))
+        {
+            out.writeInt(SchoolBinary.MAGIC);
+            out.writeInt(SchoolBinary.VERSION);
+            out.write(hash, 0, SchoolBinary.HASH_LENGTH);
+            out.writeInt(year.getFirstPeriod());
+            out.writeInt(year.getLastPeriod());
+            out.writeInt(types.length);
+            out.writeInt(names.length);
+            out.writeInt(size);
+
+            SchoolBinary.writeString(out, year.getTimezone());
+            for (String type : types) {
+                SchoolBinary.writeString(out, type);
+            }
+            for (String name : names) {
+                SchoolBinary.writeString(out, name);
+            }
+
+            for (int i = 0; i < size; i++) {
+                out.writeLong(timeline.getStart(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeLong(timeline.getEnd(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeInt(timeline.getTypeId(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeInt(timeline.getNameId(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeByte(timeline.isLast(i) ? 1 : 0);
+            }
+        }
+
+        try {
+            Files.move(temp, path,
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+
+    /**
+     * Reads a binary schedule file.
+     *
+     * @param path  the path of the binary schedule file.
+     * @param hash  the SHA-256 hash of the json content the file must have been compiled from.
+     *
+     * @return the {@code SchoolYear} in the file, or {@code null} if the file was written by a
+     *         different format version or compiled from different json content.
+     *
+     * @throws IOException  if the file cannot be read or is malformed.
+     */
+    static SchoolYear read(Path path, byte[] hash) throws IOException {
+        // The columns are copied into arrays, so the file is read once rather than mapped
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        try {
+            if (buffer.getInt() != SchoolBinary.MAGIC || buffer.getInt() != SchoolBinary.VERSION) {
+                return null;
+            }
+            byte[] fileHash = new byte[SchoolBinary.HASH_LENGTH];
+            buffer.get(fileHash);
+            if (!Arrays.equals(fileHash, hash)) {
+                return null;
+            }
+
+            int firstPeriod = buffer.getInt();
+            int lastPeriod = buffer.getInt();
+            int numTypes = SchoolBinary.readCount(buffer, Integer.BYTES);
+            int numNames = SchoolBinary.readCount(buffer, Integer.BYTES);
+            int size = SchoolBinary.readCount(buffer, 2 * Long.BYTES + 2 * Integer.BYTES + 1);
+
+            String timezone = SchoolBinary.readString(buffer);
+            String[] types = new String[numTypes];
+            for (int i = 0; i < numTypes; i++) {
+                types[i] = SchoolBinary.readString(buffer);
+            }
+            String[] names = new String[numNames];
+            for (int i = 0; i < numNames; i++) {
+                names[i] = SchoolBinary.readString(buffer);
+            }
+
+            // Each column is a fixed-width block, so it is copied into its array in bulk
+            long[] starts = new long[size];
+            long[] ends = new long[size];
+            int[] typeIds = new int[size];
+            int[] nameIds = new int[size];
+            boolean[] lasts = new boolean[size];
+            buffer.asLongBuffer().get(starts);
+            buffer.position(buffer.position() + size * Long.BYTES);
+            buffer.asLongBuffer().get(ends);
+            buffer.position(buffer.position() + size * Long.BYTES);
+            buffer.asIntBuffer().get(typeIds);
+            buffer.position(buffer.position() + size * Integer.BYTES);
+            buffer.asIntBuffer().get(nameIds);
+            buffer.position(buffer.position() + size * Integer.BYTES);
+            for (int i = 0; i < size; i++) {
+                lasts[i] = buffer.get() != 0;
+                if (typeIds[i] < 0 || typeIds[i] >= numTypes ||
+                    nameIds[i] < 0 || nameIds[i] >= numNames)
+                {
+                    throw new IOException("string index out of range for period " + i);
+                }
+            }
+
+            SchoolTimeline timeline =
+                new SchoolTimeline(starts, ends, typeIds, nameIds, lasts, types, names);
+            return new SchoolYear(timeline, firstPeriod, lastPeriod, timezone);
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("malformed binary schedule file: " + e);
+        }
+    }
+
+
+    /**
+     * Reads a count from a binary schedule file, checking that it is not negative and that
+     * enough bytes remain for that many entries.
+     *
+     * @param buffer     the buffer to read from.
+     * @param entrySize  the minimum size, in bytes, of one entry.
+     *
+     * @return the count.
+     *
+     * @throws IOException  if the count is invalid.
+     */
+    private static int readCount(ByteBuffer buffer, int entrySize) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * entrySize > buffer.remaining()) {
+            throw new IOException("invalid count in binary schedule file: " + count);
+        }
+        return count;
+    }
+
+
+    /**
+     * Writes a string to a binary schedule file.
+     *
+     * @param out    the stream to write to.
+     * @param value  the string to write.
+     *
+     * @throws IOException  if the string cannot be written.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    /**
+     * Reads a string from a binary schedule file.
+     *
+     * @param buffer  the buffer to read from.
+     *
+     * @return the string.
+     *
+     * @throws IOException  if the string length is invalid.
+     */
+    private static String readString(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[SchoolBinary.readCount(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,1256 @@
+package school;
+
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import time.UTCTime;
+import time.Duration;
+
+
+/**
+ * Closed-form evaluation of the school json file.
+ *
+ * Unlike {@code SchoolYear}, a {@code SchoolCalendar} does not create every period of the year.
+ * Each day type is compiled once into a {@code DayTemplate}, and the period at a given time is
+ * found by mapping the time to its local date, resolving the week type of that date through the
+ * week exceptions, picking the day type from the week, and searching that day's periods.
+ * Construction is proportional to the number of day types and exceptions rather than the length
+ * of the calendar.
+ *
+ * @author Jonathan Uhler
+ */
+public class SchoolCalendar implements SchoolSchedule {
+
+    /** The first period number possible. */
+    private final int firstPeriod;
+    /** The last period number possible. */
+    private final int lastPeriod;
+    /** The unix TZ identifier for the school. */
+    private final String timezone;
+    /** The timezone of the school. */
+    private final ZoneId zone;
+
+    /** The week type for each week that has an exception. */
+    private final ExceptionIndex exceptions;
+    /** The compiled day types for each week type that can occur in the calendar. */
+    private final Map<String, DayTemplate[]> weeks;
+    /** The sunday on which the first week of the calendar starts. */
+    private final LocalDate firstDate;
+    /** The number of weeks in the calendar. */
+    private final int numWeeks;
+    /** The start of the first period of the calendar, in epoch milliseconds. */
+    private final long start;
+    /** The end of the last period of the calendar, in epoch milliseconds. */
+    private final long end;
+    /**
+     * The days on which each period type occurs, or null if there has not been a query by type.
+     * It is built once from every day of the calendar, so building it again after a lost update
+     * only costs another pass.
+     */
+    private volatile Map<String, TypeDays> typeDays;
+    /**
+     * The days on which counted periods occur, or null if there has not been a query by counted
+     * time. It is built in the same pass as {@code typeDays}.
+     */
+    private volatile TypeDays countedDays;
+
+
+    /**
+     * Constructs a new {@code SchoolCalendar} object from a {@code SchoolJson} object.
+     *
+     * @param json  the {@code SchoolJson} object containing school data.
+     *
+     * @throws NullPointerException      if {@code json} is null.
+     * @throws IllegalArgumentException  if any parse error occurs from the provided json data.
+     */
+    public SchoolCalendar(SchoolJson json) {
+        if (json == null) {
+            throw new NullPointerException("json cannot be null");
+        }
+
+        // The calendar runs in whole weeks, from the sunday on or before the first day to the
+        // saturday on or after the last day
+        SchoolInfo info = new SchoolInfo(json.info);
+        this.firstPeriod = info.getFirstPeriod();
+        this.lastPeriod = info.getLastPeriod();
+        this.timezone = info.getTimezone();
+        this.zone = info.getZone();
+        this.firstDate = info.getFirstDate();
+        this.numWeeks = info.getNumWeeks();
+
+        if (json.days == null) {
+            throw new IllegalArgumentException("missing Days field in school json file");
+        }
+        if (json.weeks == null) {
+            throw new IllegalArgumentException("missing Weeks field in school json file");
+        }
+        if (json.exceptions == null) {
+            throw new IllegalArgumentException("missing Exceptions field in school json file");
+        }
+        this.exceptions = new ExceptionIndex(json.exceptions, json.weeks, this.timezone);
+
+        // Compile every week type that can be used: the default week and any week type named
+        // by an exception. Day types are compiled once and shared between weeks
+        this.weeks = DayTemplate.compileWeeks(json, this.firstPeriod, this.lastPeriod);
+
+        if (this.numWeeks > 0) {
+            LocalDate lastDate = this.getLastDate();
+            DayTemplate lastTemplate = this.getDay(lastDate);
+            this.start = this.getDay(this.firstDate)
+                .getStart(0, DayOffsets.of(this.firstDate, this.zone));
+            this.end = lastTemplate.getEnd(lastTemplate.size() - 1,
+                                           DayOffsets.of(lastDate, this.zone));
+        }
+        else {
+            this.start = 0;
+            this.end = 0;
+        }
+    }
+
+
+    /**
+     * Returns the week type of the week that starts on the specified sunday.
+     *
+     * @param weekKey  the epoch day of the sunday that starts the week.
+     *
+     * @return the week type of the week.
+     */
+    String getWeekType(long weekKey) {
+        return this.exceptions.getWeekType(weekKey);
+    }
+
+
+    /**
+     * Returns the compiled day type that occurs on a specific local date.
+     *
+     * @param date  the local date. This date is not required to be within the calendar.
+     *
+     * @return the compiled day type that occurs on {@code date}.
+     */
+    DayTemplate getDay(LocalDate date) {
+        String weekType = this.getWeekType(ExceptionIndex.weekKey(date));
+        int dayOfWeek = date.getDayOfWeek().getValue() % Duration.DAYS_PER_WEEK;
+        return this.weeks.get(weekType)[dayOfWeek];
+    }
+
+
+    /**
+     * Returns the sunday on which the first week of the calendar starts.
+     *
+     * @return the first date of the calendar.
+     */
+    LocalDate getFirstDate() {
+        return this.firstDate;
+    }
+
+
+    /**
+     * Returns the saturday on which the last week of the calendar ends.
+     *
+     * @return the last date of the calendar.
+     */
+    LocalDate getLastDate() {
+        return this.firstDate.plusDays((long) this.numWeeks * Duration.DAYS_PER_WEEK - 1);
+    }
+
+
+    /**
+     * Returns the number of weeks in the calendar.
+     *
+     * @return the number of weeks in the calendar.
+     */
+    int getNumWeeks() {
+        return this.numWeeks;
+    }
+
+
+    /**
+     * Returns the timezone of the school.
+     *
+     * @return the timezone of the school.
+     */
+    ZoneId getZone() {
+        return this.zone;
+    }
+
+
+    /**
+     * Returns the local date of the day that contains a time. The time must be within the range
+     * of the calendar.
+     *
+     * @param epoch  the time in epoch milliseconds.
+     *
+     * @return the local date of the day that contains {@code epoch}.
+     */
+    private LocalDate dateOf(long epoch) {
+        // The local date of the time is almost always the day that contains it. Around a
+        // transition at midnight, the day may start before or after local midnight, so step to
+        // the adjacent day if needed
+        LocalDate date = Instant.ofEpochMilli(epoch).atZone(this.zone).toLocalDate();
+        DayTemplate day = this.getDay(date);
+        DayOffsets offsets = DayOffsets.of(date, this.zone);
+        if (epoch < day.getStart(0, offsets)) {
+            return date.minusDays(1);
+        }
+        else if (epoch > day.getEnd(day.size() - 1, offsets)) {
+            return date.plusDays(1);
+        }
+        return date;
+    }
+
+
+    /**
+     * Returns the index of the period in a day that contains a time. The time must be within
+     * the day.
+     *
+     * @param day    the compiled day type.
+     * @param date   the local date the day occurs on.
+     * @param epoch  the time in epoch milliseconds.
+     *
+     * @return the index of the period in {@code day} that contains {@code epoch}.
+     */
+    private int indexOf(DayTemplate day, LocalDate date, long epoch) {
+        return this.indexOf(day, DayOffsets.of(date, this.zone), epoch);
+    }
+
+
+    /**
+     * Returns the index of the period in a day that contains a time. The time must be within
+     * the day.
+     *
+     * @param day      the compiled day type.
+     * @param offsets  the UTC offsets of the date the day occurs on.
+     * @param epoch    the time in epoch milliseconds.
+     *
+     * @return the index of the period in {@code day} that contains {@code epoch}.
+     */
+    private int indexOf(DayTemplate day, DayOffsets offsets, long epoch) {
+        // Find the last period in the day that starts at or before the time
+        int min = 0;
+        int max = day.size() - 1;
+        while (min <= max) {
+            int middle = (min + max) >>> 1;
+            if (day.getStart(middle, offsets) <= epoch) {
+                min = middle + 1;
+            }
+            else {
+                max = middle - 1;
+            }
+        }
+        return max;
+    }
+
+
+    /**
+     * Creates a {@code SchoolPeriod} for a period of a day on a specific date.
+     *
+     * @param day    the compiled day type.
+     * @param date   the local date the day occurs on.
+     * @param index  the index of the period in {@code day}.
+     *
+     * @return a {@code SchoolPeriod} object for the period.
+     */
+    private SchoolPeriod getPeriod(DayTemplate day, LocalDate date, int index) {
+        return this.getPeriod(day, DayOffsets.of(date, this.zone), index);
+    }
+
+
+    /**
+     * Creates a {@code SchoolPeriod} for a period of a day with known UTC offsets.
+     *
+     * @param day      the compiled day type.
+     * @param offsets  the UTC offsets of the date the day occurs on.
+     * @param index    the index of the period in {@code day}.
+     *
+     * @return a {@code SchoolPeriod} object for the period.
+     */
+    private SchoolPeriod getPeriod(DayTemplate day, DayOffsets offsets, int index) {
+        return new SchoolPeriod(day.getType(index),
+                                day.getName(index),
+                                UTCTime.ofEpoch(day.getStart(index, offsets)),
+                                UTCTime.ofEpoch(day.getEnd(index, offsets)),
+                                day.isLast(index));
+    }
+
+
+    /**
+     * Gets the first counted period at or after a period of a day on a specific date.
+     *
+     * @param day    the compiled day type.
+     * @param date   the local date the day occurs on.
+     * @param index  the index of the period in {@code day} to start from.
+     *
+     * @return the first counted period at or after the period, or {@code null} if no such period
+     *         exists in the calendar.
+     */
+    private SchoolPeriod getNextCountedPeriod(DayTemplate day, LocalDate date, int index) {
+        // Each day type knows its next counted period, so only days without any counted period
+        // (e.g. weekends and holidays) are stepped over one at a time
+        LocalDate lastDate = this.getLastDate();
+        int counted = day.getNextCounted(index);
+        while (counted == -1) {
+            date = date.plusDays(1);
+            if (date.isAfter(lastDate)) {
+                return null;
+            }
+            day = this.getDay(date);
+            counted = day.getNextCounted(0);
+        }
+        return this.getPeriod(day, date, counted);
+    }
+
+
+    /**
+     * Gets the last counted period at or before a period of a day on a specific date.
+     *
+     * @param day    the compiled day type.
+     * @param date   the local date the day occurs on.
+     * @param index  the index of the period in {@code day} to start from.
+     *
+     * @return the last counted period at or before the period, or {@code null} if no such period
+     *         exists in the calendar.
+     */
+    private SchoolPeriod getPreviousCountedPeriod(DayTemplate day, LocalDate date, int index) {
+        int counted = day.getPreviousCounted(index);
+        while (counted == -1) {
+            date = date.minusDays(1);
+            if (date.isBefore(this.firstDate)) {
+                return null;
+            }
+            day = this.getDay(date);
+            counted = day.getPreviousCounted(day.size() - 1);
+        }
+        return this.getPeriod(day, date, counted);
+    }
+
+
+    /**
+     * Returns whether a time is within the range of the calendar.
+     *
+     * @param epoch  the time in epoch milliseconds.
+     *
+     * @return whether {@code epoch} is within the range of the calendar.
+     */
+    private boolean contains(long epoch) {
+        return this.numWeeks > 0 && epoch >= this.start && epoch <= this.end;
+    }
+
+
+    /**
+     * Gets the period at a given time such that {@code start <= time <= end}.
+     *
+     * If no such period exists, {@code null} is returned.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period which occurs during the provided time.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        long epoch = time.getEpoch();
+        if (!this.contains(epoch)) {
+            return null;
+        }
+
+        LocalDate date = this.dateOf(epoch);
+        DayTemplate day = this.getDay(date);
+        return this.getPeriod(day, date, this.indexOf(day, date, epoch));
+    }
+
+
+    /**
+     * Gets the period at each of many times. The result for each time is the same as
+     * {@code getPeriod}.
+     *
+     * The day found for one time is kept for the next, so a time in the same day as the time
+     * before it is only a binary search over the periods of that day. Resolving the date, week
+     * type, and UTC offsets of a day is done once for each run of times in the day, which makes
+     * sorted or clustered times much cheaper than separate calls to {@code getPeriod}.
+     *
+     * @param epochs   the times to get periods for, in epoch milliseconds.
+     * @param periods  the array to store the period at each time in, or {@code null} if no period
+     *                 occurs at the time. Must be at least as long as {@code epochs}.
+     *
+     * @throws NullPointerException      if {@code epochs} or {@code periods} is null.
+     * @throws IllegalArgumentException  if {@code periods} is shorter than {@code epochs}.
+     */
+    @Override
+    public void getPeriods(long[] epochs, SchoolPeriod[] periods) {
+        if (epochs == null) {
+            throw new NullPointerException("epochs cannot be null");
+        }
+        if (periods == null) {
+            throw new NullPointerException("periods cannot be null");
+        }
+        if (periods.length < epochs.length) {
+            throw new IllegalArgumentException("periods is shorter than epochs: " +
+                                               periods.length + " < " + epochs.length);
+        }
+
+        DayTemplate day = null;
+        DayOffsets offsets = null;
+        long dayStart = 0;
+        long dayEnd = -1;
+        for (int i = 0; i < epochs.length; i++) {
+            long epoch = epochs[i];
+            if (!this.contains(epoch)) {
+                periods[i] = null;
+                continue;
+            }
+
+            if (day == null || epoch < dayStart || epoch > dayEnd) {
+                LocalDate date = this.dateOf(epoch);
+                day = this.getDay(date);
+                offsets = DayOffsets.of(date, this.zone);
+                dayStart = day.getStart(0, offsets);
+                dayEnd = day.getEnd(day.size() - 1, offsets);
+            }
+            periods[i] = this.getPeriod(day, offsets, this.indexOf(day, offsets, epoch));
+        }
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the first period after it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or after {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrAfter(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        if (this.numWeeks == 0 || time.getEpoch() > this.end) {
+            return null;
+        }
+        return this.getPeriod(UTCTime.ofEpoch(Math.max(time.getEpoch(), this.start)));
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the last period before it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or before {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrBefore(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        if (this.numWeeks == 0 || time.getEpoch() < this.start) {
+            return null;
+        }
+        return this.getPeriod(UTCTime.ofEpoch(Math.min(time.getEpoch(), this.end)));
+    }
+
+
+    /**
+     * Gets the first counted period at or after the period that occurs during a given time.
+     *
+     * If no period occurs during the provided time, or no counted period exists at or after that
+     * period, {@code null} is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the first counted period at or after the period at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getNextCountedPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        long epoch = time.getEpoch();
+        if (!this.contains(epoch)) {
+            return null;
+        }
+
+        LocalDate date = this.dateOf(epoch);
+        DayTemplate day = this.getDay(date);
+        return this.getNextCountedPeriod(day, date, this.indexOf(day, date, epoch));
+    }
+
+
+    /**
+     * Gets the last counted period at or before the period that occurs during a given time.
+     *
+     * If no period occurs during the provided time, or no counted period exists at or before
+     * that period, {@code null} is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the last counted period at or before the period at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousCountedPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        long epoch = time.getEpoch();
+        if (!this.contains(epoch)) {
+            return null;
+        }
+
+        LocalDate date = this.dateOf(epoch);
+        DayTemplate day = this.getDay(date);
+        return this.getPreviousCountedPeriod(day, date, this.indexOf(day, date, epoch));
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a given time with a single search.
+     *
+     * If no period occurs during the provided time, {@code null} is returned.
+     *
+     * @param time  the time to take a snapshot at.
+     *
+     * @return a snapshot of the schedule at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot getSnapshot(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        long epoch = time.getEpoch();
+        if (!this.contains(epoch)) {
+            return null;
+        }
+
+        LocalDate date = this.dateOf(epoch);
+        DayTemplate day = this.getDay(date);
+        int index = this.indexOf(day, date, epoch);
+        return new SchoolSnapshot(time,
+                                  this.getPeriod(day, date, index),
+                                  this.getPreviousCountedPeriod(day, date, index),
+                                  this.getNextCountedPeriod(day, date, index));
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a time shortly after an earlier snapshot.
+     *
+     * Periods of a {@code SchoolCalendar} are not stored in a single timeline, so there is no
+     * position to step forward from. This method always returns {@code null}, and the caller
+     * should use {@code getSnapshot}, which only searches the periods of a single day.
+     *
+     * @param snapshot  the earlier snapshot.
+     * @param time      the time to take a snapshot at.
+     * @param maxSteps  the maximum number of periods to step forward.
+     *
+     * @return {@code null}.
+     *
+     * @throws NullPointerException  if {@code snapshot} or {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot advanceSnapshot(SchoolSnapshot snapshot, UTCTime time, int maxSteps) {
+        if (snapshot == null) {
+            throw new NullPointerException("snapshot cannot be null");
+        }
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the {@code SchoolPeriod} object with the specified {@code Type} string.
+     *
+     * If no such period exists, {@code null} is returned. The time-based information of the
+     * returned period (e.g. the start and end times, whether it's the last period in the day)
+     * are not guaranteed. Only the type and status (name) fields will be consistent.
+     *
+     * As in {@code SchoolYear}, this is the last period of the type in the calendar, so that a
+     * type whose name differs between day types resolves to the same name in both schedules.
+     *
+     * @param type  the type string of the period to find.
+     *
+     * @return a {@code SchoolPeriod} object with the specified {@code Type} string.
+     */
+    @Override
+    public SchoolPeriod getPeriodByType(String type) {
+        if (type == null || this.numWeeks == 0) {
+            return null;
+        }
+        return this.getPreviousPeriodOfType(UTCTime.ofEpoch(this.end), type);
+    }
+
+
+    /**
+     * Returns the unix TZ identifier for the school.
+     *
+     * @return the unix TZ identifier for the school.
+     */
+    @Override
+    public String getTimezone() {
+        return this.timezone;
+    }
+
+
+    /**
+     * Returns a cursor that walks every period that overlaps the range {@code [from, to)}.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return a cursor over the periods that overlap the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public SchoolCursor getCursor(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+        return new CalendarCursor(from, to);
+    }
+
+
+    /**
+     * Returns the amount of counted time in the range {@code [from, to)}.
+     *
+     * Only the periods of the first and last days of the range are walked. The counted time in
+     * the days between them is the difference of two prefix sums over the days on which counted
+     * periods occur, so year and week progress do not depend on the length of the range.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getCountedTime(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+
+        from = Math.max(from, this.start);
+        to = Math.min(to, this.end + 1);
+        if (this.numWeeks == 0 || from >= to) {
+            return 0;
+        }
+
+        LocalDate firstDate = this.dateOf(from);
+        LocalDate lastDate = this.dateOf(to - 1);
+        long time = this.getCountedTime(firstDate, from, to);
+        if (lastDate.equals(firstDate)) {
+            return time;
+        }
+
+        time += this.getCountedDays().timeBetween(this.dayNumber(firstDate) + 1,
+                                                  this.dayNumber(lastDate));
+        return time + this.getCountedTime(lastDate, from, to);
+    }
+
+
+    /**
+     * Returns the amount of counted time on one day that is within a range.
+     *
+     * @param date  the local date of the day.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds of the day in the range.
+     */
+    private long getCountedTime(LocalDate date, long from, long to) {
+        DayTemplate day = this.getDay(date);
+        DayOffsets offsets = DayOffsets.of(date, this.zone);
+        long time = 0;
+        for (int i = 0; i < day.size(); i++) {
+            if (day.getNextCounted(i) == i) {
+                long start = Math.max(day.getStart(i, offsets), from);
+                long end = Math.min(day.getEnd(i, offsets) + 1, to);
+                time += Math.max(end - start, 0);
+            }
+        }
+        return time;
+    }
+
+
+    /**
+     * Gets the first period of a type that occurs during or after a given time.
+     *
+     * The periods of the day that contains {@code time} are searched first. After that day, the
+     * first day with a period of the type is found with a binary search over the days on which
+     * the type occurs.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the first period of type {@code type} that ends at or after {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    @Override
+    public SchoolPeriod getNextPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+        if (this.numWeeks == 0 || time.getEpoch() > this.end) {
+            return null;
+        }
+
+        long epoch = Math.max(time.getEpoch(), this.start);
+        LocalDate date = this.dateOf(epoch);
+        DayTemplate day = this.getDay(date);
+        for (int i = this.indexOf(day, date, epoch); i < day.size(); i++) {
+            if (day.getType(i).equals(type)) {
+                return this.getPeriod(day, date, i);
+            }
+        }
+
+        TypeDays days = this.getTypeDays().get(type);
+        int next = days == null ? -1 : days.next(this.dayNumber(date) + 1);
+        if (next == -1) {
+            return null;
+        }
+        date = this.firstDate.plusDays(next);
+        day = this.getDay(date);
+        for (int i = 0; i < day.size(); i++) {
+            if (day.getType(i).equals(type)) {
+                return this.getPeriod(day, date, i);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Gets the last period of a type that occurs during or before a given time.
+     *
+     * The periods of the day that contains {@code time} are searched first. Before that day, the
+     * last day with a period of the type is found with a binary search over the days on which
+     * the type occurs.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the last period of type {@code type} that starts at or before {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+        if (this.numWeeks == 0 || time.getEpoch() < this.start) {
+            return null;
+        }
+
+        long epoch = Math.min(time.getEpoch(), this.end);
+        LocalDate date = this.dateOf(epoch);
+        DayTemplate day = this.getDay(date);
+        for (int i = this.indexOf(day, date, epoch); i >= 0; i--) {
+            if (day.getType(i).equals(type)) {
+                return this.getPeriod(day, date, i);
+            }
+        }
+
+        TypeDays days = this.getTypeDays().get(type);
+        int previous = days == null ? -1 : days.previous(this.dayNumber(date) - 1);
+        if (previous == -1) {
+            return null;
+        }
+        date = this.firstDate.plusDays(previous);
+        day = this.getDay(date);
+        for (int i = day.size() - 1; i >= 0; i--) {
+            if (day.getType(i).equals(type)) {
+                return this.getPeriod(day, date, i);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the amount of time in periods of a type in the range {@code [from, to)}.
+     *
+     * Only the periods of the first and last days of the range are walked. The time in the days
+     * between them is the difference of two prefix sums over the days on which the type occurs.
+     *
+     * @param type  the type of the periods to count.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods of type {@code type}.
+     *
+     * @throws NullPointerException      if {@code type} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getTimeOfType(String type, long from, long to) {
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+
+        from = Math.max(from, this.start);
+        to = Math.min(to, this.end + 1);
+        if (this.numWeeks == 0 || from >= to) {
+            return 0;
+        }
+
+        LocalDate firstDate = this.dateOf(from);
+        LocalDate lastDate = this.dateOf(to - 1);
+        long time = this.getTimeOfType(type, firstDate, from, to);
+        if (lastDate.equals(firstDate)) {
+            return time;
+        }
+
+        TypeDays days = this.getTypeDays().get(type);
+        if (days != null) {
+            time += days.timeBetween(this.dayNumber(firstDate) + 1, this.dayNumber(lastDate));
+        }
+        return time + this.getTimeOfType(type, lastDate, from, to);
+    }
+
+
+    /**
+     * Returns the amount of time in periods of a type on one day that is within a range.
+     *
+     * @param type  the type of the periods to count.
+     * @param date  the local date of the day.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds of the day in the range within periods of the type.
+     */
+    private long getTimeOfType(String type, LocalDate date, long from, long to) {
+        DayTemplate day = this.getDay(date);
+        DayOffsets offsets = DayOffsets.of(date, this.zone);
+        long time = 0;
+        for (int i = 0; i < day.size(); i++) {
+            if (day.getType(i).equals(type)) {
+                long start = Math.max(day.getStart(i, offsets), from);
+                long end = Math.min(day.getEnd(i, offsets) + 1, to);
+                time += Math.max(end - start, 0);
+            }
+        }
+        return time;
+    }
+
+
+    /**
+     * Returns the number of days between the first date of the calendar and a date.
+     *
+     * @param date  the local date.
+     *
+     * @return the index of {@code date} among the days of the calendar.
+     */
+    private int dayNumber(LocalDate date) {
+        return (int) (date.toEpochDay() - this.firstDate.toEpochDay());
+    }
+
+
+    /**
+     * Returns the days on which counted periods occur, building them on the first call.
+     *
+     * @return the days on which counted periods occur.
+     */
+    private TypeDays getCountedDays() {
+        TypeDays countedDays = this.countedDays;
+        if (countedDays != null) {
+            return countedDays;
+        }
+
+        // Both indices are built in one pass, and countedDays is published first
+        this.getTypeDays();
+        return this.countedDays;
+    }
+
+
+    /**
+     * Returns the days on which each period type occurs, building them on the first call. The
+     * days on which counted periods occur are built in the same pass.
+     *
+     * @return a map from each period type to the days on which it occurs.
+     */
+    private Map<String, TypeDays> getTypeDays() {
+        Map<String, TypeDays> typeDays = this.typeDays;
+        if (typeDays != null) {
+            return typeDays;
+        }
+
+        // The time of each type on a day is found from that day's offsets, so days with a
+        // daylight saving transition have their true length
+        int numDays = this.numWeeks * Duration.DAYS_PER_WEEK;
+        Map<String, TypeDays.Builder> builders = new HashMap<>();
+        TypeDays.Builder counted = new TypeDays.Builder();
+        for (int d = 0; d < numDays; d++) {
+            LocalDate date = this.firstDate.plusDays(d);
+            DayTemplate day = this.getDay(date);
+            DayOffsets offsets = DayOffsets.of(date, this.zone);
+            for (int i = 0; i < day.size(); i++) {
+                long time = day.getEnd(i, offsets) - day.getStart(i, offsets) + 1;
+                TypeDays.Builder builder =
+                    builders.computeIfAbsent(day.getType(i), type -> new TypeDays.Builder());
+                builder.add(d, time);
+                if (day.getNextCounted(i) == i) {
+                    counted.add(d, time);
+                }
+            }
+        }
+
+        typeDays = new HashMap<>();
+        for (Map.Entry<String, TypeDays.Builder> entry : builders.entrySet()) {
+            typeDays.put(entry.getKey(), entry.getValue().build());
+        }
+        this.countedDays = counted.build();
+        this.typeDays = typeDays;
+        return typeDays;
+    }
+
+
+    /**
+     * Returns the compiled timeline of every period in the schedule. Periods of a
+     * {@code SchoolCalendar} are evaluated from templates and are not stored in a timeline.
+     *
+     * @return {@code null}.
+     */
+    @Override
+    public SchoolTimeline getTimeline() {
+        return null;
+    }
+
+
+    /**
+     * Returns the first period number possible.
+     *
+     * @return the first period number possible.
+     */
+    @Override
+    public int getFirstPeriod() {
+        return this.firstPeriod;
+    }
+
+
+    /**
+     * Returns the last period number possible.
+     *
+     * @return the last period number possible.
+     */
+    @Override
+    public int getLastPeriod() {
+        return this.lastPeriod;
+    }
+
+
+    /**
+     * The days of the calendar on which one period type occurs, in order, with the total time of
+     * the type on the days before each one.
+     */
+    private static final class TypeDays {
+
+        /** Index of each day on which the type occurs, in increasing order. */
+        private final int[] days;
+        /** Milliseconds of the type on the days before each one, then the total. */
+        private final long[] prefix;
+
+
+        /**
+         * Constructs a new {@code TypeDays}. The arrays are not copied.
+         *
+         * @param days    the index of each day on which the type occurs, in increasing order.
+         * @param prefix  the milliseconds of the type on the days before each one, then the total.
+         */
+        private TypeDays(int[] days, long[] prefix) {
+            this.days = days;
+            this.prefix = prefix;
+        }
+
+
+        /**
+         * Returns the first day on which the type occurs that is at or after a day.
+         *
+         * @param day  the index of the day to start from.
+         *
+         * @return the index of the first such day, or {@code -1} if there is none.
+         */
+        int next(int day) {
+            int position = this.lowerBound(day);
+            return position < this.days.length ? this.days[position] : -1;
+        }
+
+
+        /**
+         * Returns the last day on which the type occurs that is at or before a day.
+         *
+         * @param day  the index of the day to start from.
+         *
+         * @return the index of the last such day, or {@code -1} if there is none.
+         */
+        int previous(int day) {
+            int position = this.lowerBound(day + 1) - 1;
+            return position >= 0 ? this.days[position] : -1;
+        }
+
+
+        /**
+         * Returns the time of the type on the days in a range of days.
+         *
+         * @param from  the index of the first day, inclusive.
+         * @param to    the index of the last day, exclusive.
+         *
+         * @return the number of milliseconds of the type on the days in the range.
+         */
+        long timeBetween(int from, int to) {
+            if (to <= from) {
+                return 0;
+            }
+            return this.prefix[this.lowerBound(to)] - this.prefix[this.lowerBound(from)];
+        }
+
+
+        /**
+         * Returns the position of the first day on which the type occurs that is at or after a
+         * day.
+         *
+         * @param day  the index of the day to search for.
+         *
+         * @return the position in {@code days} of the first such day, or the length of
+         *         {@code days} if there is none.
+         */
+        private int lowerBound(int day) {
+            int min = 0;
+            int max = this.days.length;
+
+            while (min < max) {
+                int middle = (min + max) >>> 1;
+                if (this.days[middle] < day) {
+                    min = middle + 1;
+                }
+                else {
+                    max = middle;
+                }
+            }
+            return min;
+        }
+
+
+        /**
+         * Collects the time of a type on each day, in order of the days.
+         */
+        static final class Builder {
+
+            /** Index of each day added so far. */
+            private int[] days = new int[16];
+            /** Milliseconds of the type on the days before each one. */
+            private long[] prefix = new long[17];
+            /** Number of days added so far. */
+            private int size;
+
+
+            /**
+             * Adds time of the type on a day. Days must be added in increasing order, and a day
+             * may be added more than once.
+             *
+             * @param day   the index of the day.
+             * @param time  the number of milliseconds of the type to add to the day.
+             */
+            void add(int day, long time) {
+                if (this.size == 0 || this.days[this.size - 1] != day) {
+                    if (this.size == this.days.length) {
+                        this.days = Arrays.copyOf(this.days, this.size * 2);
+                        this.prefix = Arrays.copyOf(this.prefix, this.size * 2 + 1);
+                    }
+                    this.days[this.size] = day;
+                    this.size++;
+                    this.prefix[this.size] = this.prefix[this.size - 1];
+                }
+                this.prefix[this.size] += time;
+            }
+
+
+            /**
+             * Creates the {@code TypeDays} for the days added so far.
+             *
+             * @return the {@code TypeDays} for the days added so far.
+             */
+            TypeDays build() {
+                return new TypeDays(Arrays.copyOf(this.days, this.size),
+                                    Arrays.copyOf(this.prefix, this.size + 1));
+            }
+
+        }
+
+    }
+
+
+    /**
+     * Cursor that steps through the periods of each day, moving to the next date at the end of a
+     * day.
+     */
+    private class CalendarCursor implements SchoolCursor {
+
+        private final long to;
+        private LocalDate date;
+        private DayOffsets offsets;
+        private DayTemplate day;
+        private int index;
+        private long start;
+        private long end;
+        private boolean onPeriod;
+        private boolean done;
+
+
+        /**
+         * Constructs a new {@code CalendarCursor} positioned before its first period.
+         *
+         * @param from  the start of the range, inclusive, in epoch milliseconds.
+         * @param to    the end of the range, exclusive, in epoch milliseconds.
+         */
+        CalendarCursor(long from, long to) {
+            this.to = to;
+            SchoolCalendar calendar = SchoolCalendar.this;
+            if (calendar.numWeeks == 0 || from >= to ||
+                from > calendar.end || to <= calendar.start)
+            {
+                this.done = true;
+                return;
+            }
+
+            long epoch = Math.max(from, calendar.start);
+            this.date = calendar.dateOf(epoch);
+            this.offsets = DayOffsets.of(this.date, calendar.zone);
+            this.day = calendar.getDay(this.date);
+            this.index = calendar.indexOf(this.day, this.date, epoch) - 1;
+        }
+
+
+        @Override
+        public boolean next() {
+            this.onPeriod = false;
+            if (this.done) {
+                return false;
+            }
+
+            SchoolCalendar calendar = SchoolCalendar.this;
+            this.index++;
+            if (this.index >= this.day.size()) {
+                this.date = this.date.plusDays(1);
+                if (this.date.isAfter(calendar.getLastDate())) {
+                    this.done = true;
+                    return false;
+                }
+                this.offsets = DayOffsets.of(this.date, calendar.zone);
+                this.day = calendar.getDay(this.date);
+                this.index = 0;
+            }
+
+            this.start = this.day.getStart(this.index, this.offsets);
+            if (this.start >= this.to) {
+                this.done = true;
+                return false;
+            }
+            this.end = this.day.getEnd(this.index, this.offsets);
+            this.onPeriod = true;
+            return true;
+        }
+
+
+        /**
+         * Checks that this cursor is on a period.
+         *
+         * @throws IllegalStateException  if this cursor is not on a period.
+         */
+        private void checkPeriod() {
+            if (!this.onPeriod) {
+                throw new IllegalStateException("cursor is not on a period");
+            }
+        }
+
+
+        @Override
+        public long getStart() {
+            this.checkPeriod();
+            return this.start;
+        }
+
+
+        @Override
+        public long getEnd() {
+            this.checkPeriod();
+            return this.end;
+        }
+
+
+        @Override
+        public String getType() {
+            this.checkPeriod();
+            return this.day.getType(this.index);
+        }
+
+
+        @Override
+        public String getName() {
+            this.checkPeriod();
+            return this.day.getName(this.index);
+        }
+
+
+        @Override
+        public boolean isLast() {
+            this.checkPeriod();
+            return this.day.isLast(this.index);
+        }
+
+
+        @Override
+        public boolean isCounted() {
+            this.checkPeriod();
+            return this.day.getNextCounted(this.index) == this.index;
+        }
+
+
+        @Override
+        public SchoolPeriod getPeriod() {
+            this.checkPeriod();
+            return SchoolCalendar.this.getPeriod(this.day, this.date, this.index);
+        }
+
+    }
+
+}
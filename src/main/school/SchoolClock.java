@@ -0,0 +1,110 @@
+package school;
+
+
+import time.UTCTime;
+
+
+/**
+ * A cursor over a {@code SchoolAPI} for consumers that ask about a time that moves forward in
+ * small steps, such as a display that updates once a second.
+ *
+ * The clock remembers the snapshot from its last tick. While the time stays within the same
+ * period, a tick only recomputes the durations and does not search the schedule. When the time
+ * moves into one of the next few periods, the clock steps forward from the period it remembers.
+ * Large jumps, and times before the last tick, fall back to a normal search with
+ * {@code SchoolAPI.snapshot}. As a result, a clock that ticks forward does an amortized constant
+ * amount of work per tick.
+ *
+ * A {@code SchoolClock} is not thread-safe. Each thread that ticks should use its own clock.
+ *
+ * @author Jonathan Uhler
+ */
+public class SchoolClock {
+
+    /** The maximum number of periods to step forward before searching instead. */
+    public static final int MAX_STEPS = 4;
+
+
+    /** The schedule this clock ticks over. */
+    private final SchoolAPI api;
+    /** The snapshot from the last tick, or null if the clock has not ticked. */
+    private SchoolSnapshot snapshot;
+
+
+    /**
+     * Constructs a new {@code SchoolClock} that has not ticked.
+     *
+     * @param api  the {@code SchoolAPI} to tick over.
+     *
+     * @throws NullPointerException  if {@code api} is null.
+     */
+    public SchoolClock(SchoolAPI api) {
+        if (api == null) {
+            throw new NullPointerException("api cannot be null");
+        }
+        this.api = api;
+    }
+
+
+    /**
+     * Returns the {@code SchoolAPI} this clock ticks over.
+     *
+     * @return the {@code SchoolAPI} this clock ticks over.
+     */
+    public SchoolAPI getSchoolAPI() {
+        return this.api;
+    }
+
+
+    /**
+     * Moves this clock to a time and returns a snapshot of the schedule at that time. The result
+     * is the same as {@code SchoolAPI.snapshot(time)}.
+     *
+     * @param time  the time to move to.
+     *
+     * @return a snapshot of the schedule at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public SchoolSnapshot tick(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        SchoolSnapshot next = null;
+        if (this.snapshot != null) {
+            if (this.snapshot.isValidAt(time)) {
+                next = this.snapshot.at(time);
+            }
+            else if (this.snapshot.getCurrentPeriod() != null) {
+                next = this.api.getSchedule()
+                    .advanceSnapshot(this.snapshot, time, SchoolClock.MAX_STEPS);
+            }
+        }
+        if (next == null) {
+            next = this.api.snapshot(time);
+        }
+
+        this.snapshot = next;
+        return next;
+    }
+
+
+    /**
+     * Returns the snapshot from the last tick of this clock.
+     *
+     * @return the snapshot from the last tick, or {@code null} if this clock has not ticked.
+     */
+    public SchoolSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+
+    /**
+     * Forgets the last tick of this clock, so that the next tick searches the schedule.
+     */
+    public void reset() {
+        this.snapshot = null;
+    }
+
+}
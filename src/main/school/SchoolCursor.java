@@ -0,0 +1,98 @@
+package school;
+
+
+/**
+ * Cursor that walks, in chronological order, every period that overlaps a range of time.
+ *
+ * A cursor starts before its first period, and {@code next} must be called to move onto each
+ * period. The accessors return primitive values and strings that are already stored by the
+ * schedule, so walking a range does not create a {@code SchoolPeriod} or {@code UTCTime} per
+ * period. {@code getPeriod} can be used to create a {@code SchoolPeriod} for the current period
+ * when one is needed.
+ *
+ * A {@code SchoolCursor} is not thread-safe.
+ *
+ * @author Jonathan Uhler
+ */
+public interface SchoolCursor {
+
+    /**
+     * Moves this cursor to the next period that overlaps its range.
+     *
+     * @return whether the cursor moved to a period. If {@code false}, every period in the range
+     *         has been walked and the accessors must not be called.
+     */
+    public boolean next();
+
+
+    /**
+     * Returns the start time, inclusive, of the current period in epoch milliseconds.
+     *
+     * @return the start time of the current period.
+     *
+     * @throws IllegalStateException  if the cursor is not on a period.
+     */
+    public long getStart();
+
+
+    /**
+     * Returns the end time, inclusive, of the current period in epoch milliseconds.
+     *
+     * @return the end time of the current period.
+     *
+     * @throws IllegalStateException  if the cursor is not on a period.
+     */
+    public long getEnd();
+
+
+    /**
+     * Returns the type of the current period.
+     *
+     * @return the type of the current period.
+     *
+     * @throws IllegalStateException  if the cursor is not on a period.
+     */
+    public String getType();
+
+
+    /**
+     * Returns the name of the current period.
+     *
+     * @return the name of the current period.
+     *
+     * @throws IllegalStateException  if the cursor is not on a period.
+     */
+    public String getName();
+
+
+    /**
+     * Returns whether the current period is the last period of its day (local time).
+     *
+     * @return whether the current period is the last period of its day.
+     *
+     * @throws IllegalStateException  if the cursor is not on a period.
+     */
+    public boolean isLast();
+
+
+    /**
+     * Returns whether the current period is counted. A "counted" period is one whose type is not
+     * {@code "Nothing"}.
+     *
+     * @return whether the current period is counted.
+     *
+     * @throws IllegalStateException  if the cursor is not on a period.
+     */
+    public boolean isCounted();
+
+
+    /**
+     * Creates a {@code SchoolPeriod} for the current period.
+     *
+     * @return a {@code SchoolPeriod} object for the current period.
+     *
+     * @throws IllegalStateException  if the cursor is not on a period.
+     */
+    public SchoolPeriod getPeriod();
+
+}
@@ -0,0 +1,148 @@
+package school;
+
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import time.Duration;
+
+
+/**
+ * Holds the current {@code SchoolAPI} of an application that may replace it while other threads
+ * are reading it, such as a display that repaints while the user chooses a new school file.
+ *
+ * A {@code SchoolAPI} is not modified after it is constructed, so it can be read by any number of
+ * threads once it is published. This class publishes each {@code SchoolAPI} with a single atomic
+ * reference write. Readers call {@code get} and never block; they see either the previous
+ * {@code SchoolAPI} or the new one, never one that is partly compiled. A reader that makes
+ * several queries should call {@code get} once and use the result for all of them, so that every
+ * query is answered by the same schedule.
+ *
+ * Reloads are compiled on a background thread, one at a time and in the order they were
+ * requested, so a slow reload cannot replace a newer one. If a reload fails, the current
+ * {@code SchoolAPI} is kept. The time taken by each reload is reported when it completes.
+ *
+ * All methods of this class are thread-safe.
+ *
+ * @author Jonathan Uhler
+ */
+public final class SchoolHolder {
+
+    /**
+     * Creates the {@code SchoolAPI} for a reload.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * Creates and compiles a {@code SchoolAPI}.
+         *
+         * @return the new {@code SchoolAPI}.
+         *
+         * @throws IOException  if the school data cannot be read.
+         */
+        public SchoolAPI load() throws IOException;
+
+    }
+
+
+    /** The current {@code SchoolAPI}, or null if none has been loaded. */
+    private final AtomicReference<SchoolAPI> current;
+    /** Single daemon thread that runs reloads in the order they were requested. */
+    private final ExecutorService reloader;
+    /** The time taken by the last successful reload, or null if there has not been one. */
+    private volatile Duration lastReloadTime;
+
+
+    /**
+     * Constructs a new {@code SchoolHolder} that does not hold a {@code SchoolAPI}.
+     */
+    public SchoolHolder() {
+        this.current = new AtomicReference<>();
+        this.reloader = Executors.newSingleThreadExecutor((runnable) -> {
+                Thread thread = new Thread(runnable, "SchoolHolder-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+
+    /**
+     * Returns the current {@code SchoolAPI}. This method never blocks.
+     *
+     * @return the current {@code SchoolAPI}, or {@code null} if none has been loaded.
+     */
+    public SchoolAPI get() {
+        return this.current.get();
+    }
+
+
+    /**
+     * Replaces the current {@code SchoolAPI} with one that has already been compiled.
+     *
+     * @param api  the new {@code SchoolAPI}.
+     *
+     * @throws NullPointerException  if {@code api} is null.
+     */
+    public void set(SchoolAPI api) {
+        if (api == null) {
+            throw new NullPointerException("api cannot be null");
+        }
+        this.current.set(api);
+    }
+
+
+    /**
+     * Compiles a new {@code SchoolAPI} on a background thread and replaces the current one with
+     * it. Until the reload completes, {@code get} returns the previous {@code SchoolAPI}.
+     *
+     * @param loader  creates the new {@code SchoolAPI}.
+     *
+     * @return a future that completes with the time taken by the reload, once the new
+     *         {@code SchoolAPI} is published, or completes exceptionally with the exception
+     *         thrown by {@code loader}, in which case the current {@code SchoolAPI} is kept.
+     *
+     * @throws NullPointerException  if {@code loader} is null.
+     */
+    public CompletableFuture<Duration> reload(Loader loader) {
+        if (loader == null) {
+            throw new NullPointerException("loader cannot be null");
+        }
+
+        CompletableFuture<Duration> result = new CompletableFuture<>();
+        this.reloader.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    SchoolAPI api = loader.load();
+                    if (api == null) {
+                        throw new NullPointerException("loader returned null");
+                    }
+                    this.current.set(api);
+
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    Duration reloadTime = new Duration(elapsed);
+                    this.lastReloadTime = reloadTime;
+                    result.complete(reloadTime);
+                }
+                catch (IOException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        return result;
+    }
+
+
+    /**
+     * Returns the time taken by the last successful reload.
+     *
+     * @return the time taken by the last successful reload, or {@code null} if no reload has
+     *         completed.
+     */
+    public Duration getLastReloadTime() {
+        return this.lastReloadTime;
+    }
+
+}
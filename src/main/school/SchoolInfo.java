@@ -0,0 +1,159 @@
+package school;
+
+
+import java.util.Map;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import time.UTCTime;
+import time.Duration;
+
+
+/**
+ * The parsed "Info" section of a school json file, and the range of whole weeks it describes.
+ *
+ * The weeks run from the sunday on or before the first day to the saturday on or after the last
+ * day. Weeks are aligned to the UTC date of local midnight, matching {@code UTCTime::getWeekTag}.
+ *
+ * @author Jonathan Uhler
+ */
+final class SchoolInfo {
+
+    /** The first period number possible. */
+    private final int firstPeriod;
+    /** The last period number possible. */
+    private final int lastPeriod;
+    /** The unix TZ identifier for the school. */
+    private final String timezone;
+    /** The timezone of the school. */
+    private final ZoneId zone;
+    /** The local date of the sunday that starts the first week. */
+    private final LocalDate firstDate;
+    /** The number of weeks in the range. */
+    private final int numWeeks;
+
+
+    /**
+     * Constructs a new {@code SchoolInfo} from the "Info" section of a school json file. Some
+     * basic checks are performed on this data.
+     *
+     * @param values  the "Info" section of the school json file.
+     *
+     * @throws IllegalArgumentException  if {@code values} is null or any required key is missing.
+     * @throws IllegalArgumentException  if the first or last period is not an integer.
+     * @throws IllegalArgumentException  if FirstPeriod is greater than LastPeriod.
+     * @throws IllegalArgumentException  if the timezone is not a valid TZ identifier.
+     * @throws IllegalArgumentException  if the first or last day tag cannot be parsed.
+     */
+    SchoolInfo(Map<String, String> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("missing Info field in school json file");
+        }
+        for (String key : new String[] {SchoolJson.FIRST_PERIOD,
+                                        SchoolJson.LAST_PERIOD,
+                                        SchoolJson.FIRST_DAY_TAG,
+                                        SchoolJson.LAST_DAY_TAG,
+                                        SchoolJson.TIMEZONE})
+        {
+            if (values.get(key) == null) {
+                throw new IllegalArgumentException("missing " + key + " in Info");
+            }
+        }
+
+        try {
+            this.firstPeriod = Integer.parseInt(values.get(SchoolJson.FIRST_PERIOD));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("first period is not an integer");
+        }
+
+        try {
+            this.lastPeriod = Integer.parseInt(values.get(SchoolJson.LAST_PERIOD));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("last period is not an integer");
+        }
+
+        if (this.firstPeriod > this.lastPeriod) {
+            throw new IllegalArgumentException("first period > last period");
+        }
+
+        this.timezone = values.get(SchoolJson.TIMEZONE);
+        try {
+            this.zone = ZoneId.of(this.timezone);
+        }
+        catch (DateTimeException e) {
+            throw new IllegalArgumentException("invalid timezone id: " + this.timezone);
+        }
+
+        UTCTime firstDay = UTCTime.of(values.get(SchoolJson.FIRST_DAY_TAG), this.timezone);
+        UTCTime lastDay = UTCTime.of(values.get(SchoolJson.LAST_DAY_TAG), this.timezone);
+        UTCTime firstWeek = firstDay.shiftedToPrevious(UTCTime.SUNDAY);
+        UTCTime end = lastDay.shiftedToNext(UTCTime.SATURDAY);
+        long msPerWeek = DayTemplate.MS_PER_DAY * Duration.DAYS_PER_WEEK;
+        long span = end.getEpoch() - firstWeek.getEpoch();
+        this.firstDate = firstWeek.asZonedDateTime().toLocalDate();
+        this.numWeeks = span <= 0 ? 0 : (int) ((span + msPerWeek - 1) / msPerWeek);
+    }
+
+
+    /**
+     * Returns the first period number possible.
+     *
+     * @return the first period number possible.
+     */
+    int getFirstPeriod() {
+        return this.firstPeriod;
+    }
+
+
+    /**
+     * Returns the last period number possible.
+     *
+     * @return the last period number possible.
+     */
+    int getLastPeriod() {
+        return this.lastPeriod;
+    }
+
+
+    /**
+     * Returns the unix TZ identifier for the school.
+     *
+     * @return the unix TZ identifier for the school.
+     */
+    String getTimezone() {
+        return this.timezone;
+    }
+
+
+    /**
+     * Returns the timezone of the school.
+     *
+     * @return the timezone of the school.
+     */
+    ZoneId getZone() {
+        return this.zone;
+    }
+
+
+    /**
+     * Returns the local date of the sunday that starts the first week.
+     *
+     * @return the local date of the sunday that starts the first week.
+     */
+    LocalDate getFirstDate() {
+        return this.firstDate;
+    }
+
+
+    /**
+     * Returns the number of weeks in the range.
+     *
+     * @return the number of weeks in the range.
+     */
+    int getNumWeeks() {
+        return this.numWeeks;
+    }
+
+}
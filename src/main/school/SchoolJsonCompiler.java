@@ -0,0 +1,381 @@
+package school;
+
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.ArrayList;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+
+/**
+ * Reads the content of a school json file directly into the compiled form used by
+ * {@code SchoolYear}, without creating a {@code SchoolJson} object.
+ *
+ * The content is read in a single pass with a streaming {@code JsonReader}. The periods of each
+ * day type and the values of each exception are stored in arrays as they are read, rather than
+ * in a map per period or exception, and are compiled into {@code DayTemplate} and
+ * {@code ExceptionIndex} objects once the "Info" section is known. The small "Info" and "Weeks"
+ * sections are kept as maps. The same content is accepted as by {@code Gson}, including its
+ * lenient syntax, except that a {@code null} value is not accepted within a section.
+ *
+ * The {@code SchoolJson} route is kept for school json data that is built in memory, such as by
+ * the wizard.
+ *
+ * @author Jonathan Uhler
+ */
+final class SchoolJsonCompiler {
+
+    /** The periods of one day type, as read from the "Days" section. */
+    private static class DayDef {
+        private final List<String> types = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<String> starts = new ArrayList<>();
+        private final List<String> ends = new ArrayList<>();
+    }
+
+
+    /** The "Info" section of the school json file. */
+    private Map<String, String> info;
+    /** The "Weeks" section of the school json file. */
+    private Map<String, List<String>> weeks;
+    /** The periods of each day type in the "Days" section of the school json file. */
+    private Map<String, DayDef> days;
+    /** The week type of each exception, or null if the "Exceptions" section was not read. */
+    private List<String> exceptionTypes;
+    /** The week tag of each exception, or null if the "Exceptions" section was not read. */
+    private List<String> exceptionTags;
+
+
+    /**
+     * Reads the content of a school json file.
+     *
+     * @param content  the content of the school json file, in UTF-8.
+     *
+     * @throws IllegalArgumentException  if the content cannot be parsed or is empty.
+     * @throws IllegalArgumentException  if the content does not have the structure of a school
+     *                                   json file, or any section is missing.
+     */
+    SchoolJsonCompiler(byte[] content) {
+        InputStreamReader stream =
+            new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+        try (JsonReader reader = new JsonReader(stream)) {
+            reader.setLenient(true);
+            if (reader.peek() == JsonToken.END_DOCUMENT) {
+                throw new IllegalArgumentException("school data file is empty");
+            }
+            this.readSchool(reader);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("json cannot be parsed: " + e);
+        }
+
+        if (this.info == null) {
+            throw new IllegalArgumentException("missing Info field in school json file");
+        }
+        if (this.days == null) {
+            throw new IllegalArgumentException("missing Days field in school json file");
+        }
+        if (this.weeks == null) {
+            throw new IllegalArgumentException("missing Weeks field in school json file");
+        }
+        if (this.exceptionTypes == null) {
+            throw new IllegalArgumentException("missing Exceptions field in school json file");
+        }
+    }
+
+
+    /**
+     * Returns the "Info" section of the school json file.
+     *
+     * @return the "Info" section of the school json file.
+     */
+    Map<String, String> getInfo() {
+        return this.info;
+    }
+
+
+    /**
+     * Compiles the "Exceptions" section of the school json file.
+     *
+     * @param timezone  the unix TZ identifier of the school.
+     *
+     * @return the compiled exceptions.
+     *
+     * @throws IllegalArgumentException  if any exception is invalid.
+     *
+     * @see ExceptionIndex
+     */
+    ExceptionIndex compileExceptions(String timezone) {
+        return new ExceptionIndex(this.exceptionTypes.toArray(new String[0]),
+                                  this.exceptionTags.toArray(new String[0]),
+                                  this.weeks,
+                                  timezone);
+    }
+
+
+    /**
+     * Compiles the day types of every week type that can be used by the school json file.
+     *
+     * @param firstPeriod  the first valid period number.
+     * @param lastPeriod   the last valid period number.
+     *
+     * @return a map from each week type to the compiled day types of its 7 days.
+     *
+     * @throws IllegalArgumentException  if a week type or day type is missing or invalid.
+     *
+     * @see DayTemplate#compileWeeks
+     */
+    Map<String, DayTemplate[]> compileWeeks(int firstPeriod, int lastPeriod) {
+        return DayTemplate.compileWeeks(this.weeks, this.exceptionTypes, (dayType) -> {
+                DayDef day = this.days.get(dayType);
+                if (day == null) {
+                    return null;
+                }
+                return new DayTemplate(dayType,
+                                       day.types.toArray(new String[0]),
+                                       day.names.toArray(new String[0]),
+                                       day.starts.toArray(new String[0]),
+                                       day.ends.toArray(new String[0]),
+                                       firstPeriod,
+                                       lastPeriod);
+            });
+    }
+
+
+    /**
+     * Reads the top-level object of a school json file. Keys other than the four sections are
+     * skipped, and a {@code null} section is treated as missing.
+     *
+     * @param reader  the reader positioned at the start of the document.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the content does not have the structure of a school
+     *                                   json file.
+     */
+    private void readSchool(JsonReader reader) throws IOException {
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String section = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (section) {
+            case "Info":
+                this.info = this.readInfo(reader);
+                break;
+            case "Days":
+                this.days = this.readDays(reader);
+                break;
+            case "Weeks":
+                this.weeks = this.readWeeks(reader);
+                break;
+            case "Exceptions":
+                this.readExceptions(reader);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+    }
+
+
+    /**
+     * Reads the "Info" section of a school json file.
+     *
+     * @param reader  the reader positioned at the start of the section.
+     *
+     * @return the keys and values of the section.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the section does not have the expected structure.
+     */
+    private Map<String, String> readInfo(JsonReader reader) throws IOException {
+        Map<String, String> info = new HashMap<>();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            info.put(key, SchoolJsonReader.readString(reader));
+        }
+        reader.endObject();
+
+        return info;
+    }
+
+
+    /**
+     * Reads the "Days" section of a school json file. The values of each period are added to
+     * the arrays of its day type, in order. Keys of a period other than its type, name, start,
+     * and end are skipped.
+     *
+     * @param reader  the reader positioned at the start of the section.
+     *
+     * @return the periods of each day type.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the section does not have the expected structure, or
+     *                                   any period is missing a key.
+     */
+    private Map<String, DayDef> readDays(JsonReader reader) throws IOException {
+        Map<String, DayDef> days = new HashMap<>();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String dayType = reader.nextName();
+            DayDef day = new DayDef();
+
+            SchoolJsonReader.expect(reader, JsonToken.BEGIN_ARRAY);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String type = null;
+                String name = null;
+                String start = null;
+                String end = null;
+
+                SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                    case SchoolJson.TYPE:
+                        type = SchoolJsonReader.readString(reader);
+                        break;
+                    case SchoolJson.NAME:
+                        name = SchoolJsonReader.readString(reader);
+                        break;
+                    case SchoolJson.START:
+                        start = SchoolJsonReader.readString(reader);
+                        break;
+                    case SchoolJson.END:
+                        end = SchoolJsonReader.readString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                    }
+                }
+                reader.endObject();
+
+                if (type == null) {
+                    throw new IllegalArgumentException("period missing " + SchoolJson.TYPE);
+                }
+                if (name == null) {
+                    throw new IllegalArgumentException("period missing " + SchoolJson.NAME);
+                }
+                if (start == null) {
+                    throw new IllegalArgumentException("period missing " + SchoolJson.START);
+                }
+                if (end == null) {
+                    throw new IllegalArgumentException("period missing " + SchoolJson.END);
+                }
+                day.types.add(type);
+                day.names.add(name);
+                day.starts.add(start);
+                day.ends.add(end);
+            }
+            reader.endArray();
+
+            days.put(dayType, day);
+        }
+        reader.endObject();
+
+        return days;
+    }
+
+
+    /**
+     * Reads the "Weeks" section of a school json file.
+     *
+     * @param reader  the reader positioned at the start of the section.
+     *
+     * @return a map of each week type to its list of day types.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the section does not have the expected structure.
+     */
+    private Map<String, List<String>> readWeeks(JsonReader reader) throws IOException {
+        Map<String, List<String>> weeks = new HashMap<>();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String weekType = reader.nextName();
+            List<String> dayTypes = new ArrayList<>();
+
+            SchoolJsonReader.expect(reader, JsonToken.BEGIN_ARRAY);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                dayTypes.add(SchoolJsonReader.readString(reader));
+            }
+            reader.endArray();
+
+            weeks.put(weekType, dayTypes);
+        }
+        reader.endObject();
+
+        return weeks;
+    }
+
+
+    /**
+     * Reads the "Exceptions" section of a school json file into the week type and week tag of
+     * each exception.
+     *
+     * @param reader  the reader positioned at the start of the section.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the section does not have the expected structure, or
+     *                                   any exception is missing a key.
+     */
+    private void readExceptions(JsonReader reader) throws IOException {
+        this.exceptionTypes = new ArrayList<>();
+        this.exceptionTags = new ArrayList<>();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_ARRAY);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String type = null;
+            String weekTag = null;
+
+            SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                case SchoolJson.TYPE:
+                    type = SchoolJsonReader.readString(reader);
+                    break;
+                case SchoolJson.WEEK_TAG:
+                    weekTag = SchoolJsonReader.readString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+                }
+            }
+            reader.endObject();
+
+            if (type == null) {
+                throw new IllegalArgumentException("exception missing " + SchoolJson.TYPE);
+            }
+            if (weekTag == null) {
+                throw new IllegalArgumentException("exception missing " + SchoolJson.WEEK_TAG);
+            }
+            this.exceptionTypes.add(type);
+            this.exceptionTags.add(weekTag);
+        }
+        reader.endArray();
+    }
+
+}
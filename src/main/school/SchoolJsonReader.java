@@ -0,0 +1,321 @@
+package school;
+
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.ArrayList;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+
+/**
+ * Validating reader for the content of school json files that are provided by an untrusted
+ * source, such as a school file uploaded through the web interface.
+ *
+ * The content is read in a single pass over its tokens. Its length is checked before any token
+ * is read, and the structure of each section is checked as its tokens are read, so oversized or
+ * malformed content is rejected before a {@code SchoolJson} object is created or compiled. The
+ * resulting {@code SchoolJson} object has the same data that {@code Gson.fromJson} would create
+ * for valid content.
+ *
+ * Like {@code Gson.fromJson} and {@code SchoolJsonCompiler}, the content is read leniently, so
+ * comments, single-quoted strings, and unquoted names are accepted. Only a single top-level
+ * object is accepted.
+ *
+ * Keys other than the "Info", "Days", "Weeks", and "Exceptions" sections are skipped, as they
+ * are by {@code Gson}. The values of the sections are not checked beyond their structure; that
+ * is done when the resulting object is compiled.
+ *
+ * @author Jonathan Uhler
+ */
+public final class SchoolJsonReader {
+
+    /** The maximum number of characters in the content of a school json file, by default. */
+    public static final int MAX_LENGTH = 1 << 20;
+
+
+    /**
+     * {@code SchoolJsonReader} cannot be instantiated.
+     */
+    private SchoolJsonReader() { }
+
+
+    /**
+     * Reads and validates the content of a school json file that is at most {@code MAX_LENGTH}
+     * characters long.
+     *
+     * @param content  the content of the school json file.
+     *
+     * @return the parsed {@code SchoolJson} object.
+     *
+     * @throws NullPointerException      if {@code content} is null.
+     * @throws IllegalArgumentException  if {@code content} is longer than {@code MAX_LENGTH}.
+     * @throws IllegalArgumentException  if {@code content} is not valid json or does not have
+     *                                   the structure of a school json file.
+     */
+    public static SchoolJson read(String content) {
+        return SchoolJsonReader.read(content, SchoolJsonReader.MAX_LENGTH);
+    }
+
+
+    /**
+     * Reads and validates the content of a school json file.
+     *
+     * @param content    the content of the school json file.
+     * @param maxLength  the maximum number of characters in {@code content}.
+     *
+     * @return the parsed {@code SchoolJson} object.
+     *
+     * @throws NullPointerException      if {@code content} is null.
+     * @throws IllegalArgumentException  if {@code maxLength} is less than 1.
+     * @throws IllegalArgumentException  if {@code content} is longer than {@code maxLength}.
+     * @throws IllegalArgumentException  if {@code content} is not valid json or does not have
+     *                                   the structure of a school json file.
+     */
+    public static SchoolJson read(String content, int maxLength) {
+        if (content == null) {
+            throw new NullPointerException("content cannot be null");
+        }
+        if (maxLength < 1) {
+            throw new IllegalArgumentException("maxLength must be at least 1, found " +
+                                               maxLength);
+        }
+        if (content.length() > maxLength) {
+            throw new IllegalArgumentException("school json is " + content.length() +
+                                               " characters, limit is " + maxLength);
+        }
+
+        try (JsonReader reader = new JsonReader(new StringReader(content))) {
+            reader.setLenient(true);
+            SchoolJson json = SchoolJsonReader.readSchool(reader);
+            SchoolJsonReader.expect(reader, JsonToken.END_DOCUMENT);
+            return json;
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("json cannot be parsed: " + e);
+        }
+    }
+
+
+    /**
+     * Checks that the next token of a reader has an expected type.
+     *
+     * @param reader  the reader to check.
+     * @param token   the expected type of the next token.
+     *
+     * @throws IOException               if the reader cannot read the next token.
+     * @throws IllegalArgumentException  if the next token is not of type {@code token}.
+     */
+    static void expect(JsonReader reader, JsonToken token) throws IOException {
+        JsonToken next = reader.peek();
+        if (next != token) {
+            throw new IllegalArgumentException("expected " + token + " but found " + next +
+                                               " at " + reader.getPath());
+        }
+    }
+
+
+    /**
+     * Reads the top-level object of a school json file.
+     *
+     * @param reader  the reader positioned at the start of the document.
+     *
+     * @return the parsed {@code SchoolJson} object.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the content does not have the structure of a school
+     *                                   json file, or if a section appears more than once.
+     */
+    private static SchoolJson readSchool(JsonReader reader) throws IOException {
+        SchoolJson json = new SchoolJson();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String section = reader.nextName();
+            switch (section) {
+            case "Info":
+                SchoolJsonReader.checkUnique(json.info, section);
+                json.info = SchoolJsonReader.readStringMap(reader);
+                break;
+            case "Days":
+                SchoolJsonReader.checkUnique(json.days, section);
+                json.days = SchoolJsonReader.readDays(reader);
+                break;
+            case "Weeks":
+                SchoolJsonReader.checkUnique(json.weeks, section);
+                json.weeks = SchoolJsonReader.readWeeks(reader);
+                break;
+            case "Exceptions":
+                SchoolJsonReader.checkUnique(json.exceptions, section);
+                json.exceptions = SchoolJsonReader.readStringMaps(reader);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+
+        return json;
+    }
+
+
+    /**
+     * Checks that a section of the school json file has not already been read.
+     *
+     * @param value    the value already read for the section, or null if it has not been read.
+     * @param section  the name of the section.
+     *
+     * @throws IllegalArgumentException  if {@code value} is not null.
+     */
+    private static void checkUnique(Object value, String section) {
+        if (value != null) {
+            throw new IllegalArgumentException("duplicate section " + section);
+        }
+    }
+
+
+    /**
+     * Reads the "Days" section of a school json file.
+     *
+     * @param reader  the reader positioned at the start of the section.
+     *
+     * @return a map of each day type to its list of periods.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the section does not have the expected structure.
+     */
+    private static Map<String, List<Map<String, String>>> readDays(JsonReader reader)
+        throws IOException
+    {
+        Map<String, List<Map<String, String>>> days = new HashMap<>();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String dayType = reader.nextName();
+            List<Map<String, String>> periods = SchoolJsonReader.readStringMaps(reader);
+            if (days.put(dayType, periods) != null) {
+                throw new IllegalArgumentException("duplicate day type " + dayType);
+            }
+        }
+        reader.endObject();
+
+        return days;
+    }
+
+
+    /**
+     * Reads the "Weeks" section of a school json file.
+     *
+     * @param reader  the reader positioned at the start of the section.
+     *
+     * @return a map of each week type to its list of day types.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the section does not have the expected structure.
+     */
+    private static Map<String, List<String>> readWeeks(JsonReader reader) throws IOException {
+        Map<String, List<String>> weeks = new HashMap<>();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String weekType = reader.nextName();
+            List<String> dayTypes = new ArrayList<>();
+
+            SchoolJsonReader.expect(reader, JsonToken.BEGIN_ARRAY);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                dayTypes.add(SchoolJsonReader.readString(reader));
+            }
+            reader.endArray();
+
+            if (weeks.put(weekType, dayTypes) != null) {
+                throw new IllegalArgumentException("duplicate week type " + weekType);
+            }
+        }
+        reader.endObject();
+
+        return weeks;
+    }
+
+
+    /**
+     * Reads an array of objects whose values are all strings.
+     *
+     * @param reader  the reader positioned at the start of the array.
+     *
+     * @return the list of objects in the array.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the array does not have the expected structure.
+     */
+    private static List<Map<String, String>> readStringMaps(JsonReader reader)
+        throws IOException
+    {
+        List<Map<String, String>> maps = new ArrayList<>();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_ARRAY);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            maps.add(SchoolJsonReader.readStringMap(reader));
+        }
+        reader.endArray();
+
+        return maps;
+    }
+
+
+    /**
+     * Reads an object whose values are all strings.
+     *
+     * @param reader  the reader positioned at the start of the object.
+     *
+     * @return the keys and values of the object.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the object does not have the expected structure, or
+     *                                   if a key appears more than once.
+     */
+    private static Map<String, String> readStringMap(JsonReader reader) throws IOException {
+        Map<String, String> map = new HashMap<>();
+
+        SchoolJsonReader.expect(reader, JsonToken.BEGIN_OBJECT);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (map.put(key, SchoolJsonReader.readString(reader)) != null) {
+                throw new IllegalArgumentException("duplicate key " + key + " at " +
+                                                   reader.getPath());
+            }
+        }
+        reader.endObject();
+
+        return map;
+    }
+
+
+    /**
+     * Reads a string value. As with {@code Gson}, a number is read as the string of its digits.
+     *
+     * @param reader  the reader positioned at the value.
+     *
+     * @return the string value.
+     *
+     * @throws IOException               if the content is not valid json.
+     * @throws IllegalArgumentException  if the value is not a string or number.
+     */
+    static String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        SchoolJsonReader.expect(reader, JsonToken.STRING);
+        return reader.nextString();
+    }
+
+}
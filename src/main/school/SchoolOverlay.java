@@ -0,0 +1,897 @@
+package school;
+
+
+import java.util.Map;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import time.UTCTime;
+
+
+/**
+ * A schedule that replaces the periods of some days of a shared schedule, such as the days of a
+ * user whose classes differ from the published bell schedule.
+ *
+ * The base schedule is not copied or modified, so many overlays can share one compiled school.
+ * Each overridden day is compiled into a {@code DayTemplate} and kept in a small array sorted by
+ * date, so the memory used by an overlay is proportional to the number of overridden days rather
+ * than the length of the school year. Every lookup checks the overridden days first, with a
+ * binary search, and otherwise asks the base schedule. Searches that cross days (such as for the
+ * next counted period) ask the base schedule for the nearest match and only step through the
+ * overridden days between the start of the search and that match.
+ *
+ * Overridden days must cover the entire day, in the same format as the "Days" section of the
+ * school json file. Dates outside the range of the base schedule are ignored.
+ *
+ * @author Jonathan Uhler
+ */
+final class SchoolOverlay implements SchoolSchedule {
+
+    /** The shared schedule under the overridden days. */
+    private final SchoolSchedule base;
+    /** The compiled periods of each overridden day, in chronological order. */
+    private final DayTemplate[] days;
+    /** The UTC offsets of each overridden day. */
+    private final DayOffsets[] offsets;
+    /** The start of each overridden day, inclusive, in epoch milliseconds. */
+    private final long[] dayStarts;
+    /** The end of each overridden day, inclusive, in epoch milliseconds. */
+    private final long[] dayEnds;
+
+
+    /**
+     * Constructs a new {@code SchoolOverlay}.
+     *
+     * A date whose start is not within a period of the base schedule, such as a day kept from a
+     * previous school year, is skipped rather than rejected, so that the days a user defined for
+     * an earlier year do not stop the current year from loading. Its periods are still checked.
+     *
+     * @param base     the schedule under the overridden days.
+     * @param dayDefs  a map from the date tag ({@code yyyy-MM-dd}) of each overridden day to its
+     *                 list of periods.
+     *
+     * @throws NullPointerException      if either argument is null.
+     * @throws IllegalArgumentException  if any date tag cannot be parsed.
+     * @throws IllegalArgumentException  if the periods of any day are invalid or do not cover the
+     *                                   entire day.
+     */
+    SchoolOverlay(SchoolSchedule base, Map<String, List<Map<String, String>>> dayDefs) {
+        if (base == null) {
+            throw new NullPointerException("base cannot be null");
+        }
+        if (dayDefs == null) {
+            throw new NullPointerException("dayDefs cannot be null");
+        }
+
+        this.base = base;
+
+        Map<LocalDate, String> dates = new TreeMap<>();
+        for (String dateTag : dayDefs.keySet()) {
+            try {
+                dates.put(LocalDate.parse(dateTag), dateTag);
+            }
+            catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("invalid date tag in overlay: " + dateTag);
+            }
+        }
+
+        ZoneId zone = ZoneId.of(base.getTimezone());
+        int count = 0;
+        DayTemplate[] days = new DayTemplate[dates.size()];
+        DayOffsets[] offsets = new DayOffsets[dates.size()];
+        long[] dayStarts = new long[dates.size()];
+        long[] dayEnds = new long[dates.size()];
+        for (Map.Entry<LocalDate, String> entry : dates.entrySet()) {
+            String dateTag = entry.getValue();
+            DayTemplate day = new DayTemplate(dateTag,
+                                              dayDefs.get(dateTag),
+                                              base.getFirstPeriod(),
+                                              base.getLastPeriod());
+            DayOffsets dayOffsets = DayOffsets.of(entry.getKey(), zone);
+            long start = dayOffsets.resolve(0);
+            if (base.getPeriod(UTCTime.ofEpoch(start)) == null) {
+                continue;
+            }
+
+            days[count] = day;
+            offsets[count] = dayOffsets;
+            dayStarts[count] = start;
+            dayEnds[count] = dayOffsets.resolve(DayTemplate.MS_PER_DAY) - 1;
+            count++;
+        }
+
+        this.days = Arrays.copyOf(days, count);
+        this.offsets = Arrays.copyOf(offsets, count);
+        this.dayStarts = Arrays.copyOf(dayStarts, count);
+        this.dayEnds = Arrays.copyOf(dayEnds, count);
+    }
+
+
+    /**
+     * Returns the index of the last overridden day that starts at or before a time.
+     *
+     * @param epoch  the time, in epoch milliseconds.
+     *
+     * @return the index of the last overridden day that starts at or before {@code epoch}, or
+     *         {@code -1} if there is none.
+     */
+    private int floorDay(long epoch) {
+        int min = 0;
+        int max = this.days.length - 1;
+
+        while (min <= max) {
+            int middle = (min + max) >>> 1;
+            if (this.dayStarts[middle] <= epoch) {
+                min = middle + 1;
+            }
+            else {
+                max = middle - 1;
+            }
+        }
+        return max;
+    }
+
+
+    /**
+     * Returns the index of the overridden day that contains a time.
+     *
+     * @param epoch  the time, in epoch milliseconds.
+     *
+     * @return the index of the overridden day that contains {@code epoch}, or {@code -1} if the
+     *         time is not in an overridden day.
+     */
+    private int dayOf(long epoch) {
+        int day = this.floorDay(epoch);
+        if (day == -1 || epoch > this.dayEnds[day]) {
+            return -1;
+        }
+        return day;
+    }
+
+
+    /**
+     * Returns the index of the period of an overridden day that contains a time.
+     *
+     * @param day    the index of the overridden day.
+     * @param epoch  a time within the day, in epoch milliseconds.
+     *
+     * @return the index of the period that contains {@code epoch}.
+     */
+    private int indexOf(int day, long epoch) {
+        int index = 0;
+        while (index < this.days[day].size() - 1 && this.getEnd(day, index) < epoch) {
+            index++;
+        }
+        return index;
+    }
+
+
+    /**
+     * Returns the start of a period of an overridden day.
+     *
+     * @param day    the index of the overridden day.
+     * @param index  the index of the period in the day.
+     *
+     * @return the start time, inclusive, of the period in epoch milliseconds.
+     */
+    private long getStart(int day, int index) {
+        return this.days[day].getStart(index, this.offsets[day]);
+    }
+
+
+    /**
+     * Returns the end of a period of an overridden day.
+     *
+     * @param day    the index of the overridden day.
+     * @param index  the index of the period in the day.
+     *
+     * @return the end time, inclusive, of the period in epoch milliseconds.
+     */
+    private long getEnd(int day, int index) {
+        return this.days[day].getEnd(index, this.offsets[day]);
+    }
+
+
+    /**
+     * Creates a {@code SchoolPeriod} for a period of an overridden day.
+     *
+     * @param day    the index of the overridden day.
+     * @param index  the index of the period in the day.
+     *
+     * @return a {@code SchoolPeriod} object for the period.
+     */
+    private SchoolPeriod getPeriod(int day, int index) {
+        return new SchoolPeriod(this.days[day].getType(index),
+                                this.days[day].getName(index),
+                                UTCTime.ofEpoch(this.getStart(day, index)),
+                                UTCTime.ofEpoch(this.getEnd(day, index)),
+                                this.days[day].isLast(index));
+    }
+
+
+    /**
+     * Finds the first period that ends at or after a time and matches a condition.
+     *
+     * @param epoch     the time to start searching from, in epoch milliseconds.
+     * @param match     the condition a period of an overridden day must match.
+     * @param baseNext  finds the first matching period of the base schedule from a time, which
+     *                  is used outside of the overridden days.
+     *
+     * @return the first matching period, or {@code null} if there is none.
+     */
+    private SchoolPeriod findNext(long epoch,
+                                  Predicate<SchoolPeriod> match,
+                                  LongFunction<SchoolPeriod> baseNext)
+    {
+        while (true) {
+            int day = this.floorDay(epoch);
+            if (day != -1 && epoch <= this.dayEnds[day]) {
+                for (int i = this.indexOf(day, epoch); i < this.days[day].size(); i++) {
+                    SchoolPeriod period = this.getPeriod(day, i);
+                    if (match.test(period)) {
+                        return period;
+                    }
+                }
+                epoch = this.dayEnds[day] + 1;
+                continue;
+            }
+
+            // The base schedule's match is only valid if no overridden day comes before it
+            day++;
+            SchoolPeriod next = baseNext.apply(epoch);
+            if (next != null &&
+                (day == this.days.length || next.getStart().getEpoch() < this.dayStarts[day]))
+            {
+                return next;
+            }
+            if (day == this.days.length) {
+                return null;
+            }
+            epoch = this.dayStarts[day];
+        }
+    }
+
+
+    /**
+     * Finds the last period that starts at or before a time and matches a condition.
+     *
+     * @param epoch     the time to start searching from, in epoch milliseconds.
+     * @param match     the condition a period of an overridden day must match.
+     * @param basePrev  finds the last matching period of the base schedule from a time, which is
+     *                  used outside of the overridden days.
+     *
+     * @return the last matching period, or {@code null} if there is none.
+     */
+    private SchoolPeriod findPrevious(long epoch,
+                                      Predicate<SchoolPeriod> match,
+                                      LongFunction<SchoolPeriod> basePrev)
+    {
+        while (true) {
+            int day = this.floorDay(epoch);
+            if (day != -1 && epoch <= this.dayEnds[day]) {
+                for (int i = this.indexOf(day, epoch); i >= 0; i--) {
+                    SchoolPeriod period = this.getPeriod(day, i);
+                    if (match.test(period)) {
+                        return period;
+                    }
+                }
+                epoch = this.dayStarts[day] - 1;
+                continue;
+            }
+
+            // The base schedule's match is only valid if no overridden day comes after it
+            SchoolPeriod previous = basePrev.apply(epoch);
+            if (previous != null &&
+                (day == -1 || previous.getEnd().getEpoch() > this.dayEnds[day]))
+            {
+                return previous;
+            }
+            if (day == -1) {
+                return null;
+            }
+            epoch = this.dayEnds[day];
+        }
+    }
+
+
+    /**
+     * Gets the period at a given time such that {@code start <= time <= end}.
+     *
+     * If no such period exists, {@code null} is returned.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period which occurs during the provided time.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int day = this.dayOf(time.getEpoch());
+        if (day == -1) {
+            return this.base.getPeriod(time);
+        }
+        return this.getPeriod(day, this.indexOf(day, time.getEpoch()));
+    }
+
+
+    /**
+     * Gets the period at each of many times. The result for each time is the same as
+     * {@code getPeriod}. Every time is looked up in the base schedule with a single batch, and
+     * the times in overridden days are then replaced.
+     *
+     * @param epochs   the times to get periods for, in epoch milliseconds.
+     * @param periods  the array to store the period at each time in, or {@code null} if no period
+     *                 occurs at the time. Must be at least as long as {@code epochs}.
+     *
+     * @throws NullPointerException      if {@code epochs} or {@code periods} is null.
+     * @throws IllegalArgumentException  if {@code periods} is shorter than {@code epochs}.
+     */
+    @Override
+    public void getPeriods(long[] epochs, SchoolPeriod[] periods) {
+        this.base.getPeriods(epochs, periods);
+        for (int i = 0; i < epochs.length; i++) {
+            int day = this.dayOf(epochs[i]);
+            if (day != -1) {
+                periods[i] = this.getPeriod(day, this.indexOf(day, epochs[i]));
+            }
+        }
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the first period after it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or after {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrAfter(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        return this.findNext(time.getEpoch(),
+                             (period) -> true,
+                             (epoch) -> this.base.getPeriodAtOrAfter(UTCTime.ofEpoch(epoch)));
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the last period before it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or before {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrBefore(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        return this.findPrevious(time.getEpoch(),
+                                 (period) -> true,
+                                 (epoch) -> this.base.getPeriodAtOrBefore(UTCTime.ofEpoch(epoch)));
+    }
+
+
+    /**
+     * Gets the first counted period at or after the period that occurs during a given time.
+     *
+     * If no period occurs during the provided time, or no counted period exists at or after that
+     * period, {@code null} is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the first counted period at or after the period at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getNextCountedPeriod(UTCTime time) {
+        if (this.getPeriod(time) == null) {
+            return null;
+        }
+
+        return this.findNext(time.getEpoch(),
+                             SchoolPeriod::isCounted,
+                             (epoch) -> this.base.getNextCountedPeriod(UTCTime.ofEpoch(epoch)));
+    }
+
+
+    /**
+     * Gets the last counted period at or before the period that occurs during a given time.
+     *
+     * If no period occurs during the provided time, or no counted period exists at or before
+     * that period, {@code null} is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the last counted period at or before the period at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousCountedPeriod(UTCTime time) {
+        if (this.getPeriod(time) == null) {
+            return null;
+        }
+
+        return this.findPrevious(time.getEpoch(),
+                                 SchoolPeriod::isCounted,
+                                 (epoch) -> {
+                                     UTCTime at = UTCTime.ofEpoch(epoch);
+                                     return this.base.getPreviousCountedPeriod(at);
+                                 });
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a given time.
+     *
+     * If no period occurs during the provided time, {@code null} is returned.
+     *
+     * @param time  the time to take a snapshot at.
+     *
+     * @return a snapshot of the schedule at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot getSnapshot(UTCTime time) {
+        SchoolPeriod period = this.getPeriod(time);
+        if (period == null) {
+            return null;
+        }
+        return new SchoolSnapshot(time,
+                                  period,
+                                  this.getPreviousCountedPeriod(time),
+                                  this.getNextCountedPeriod(time));
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a time shortly after an earlier snapshot.
+     *
+     * The periods of an overlay are not stored in a single timeline, so there is no position to
+     * step forward from. This method always returns {@code null}, and the caller should use
+     * {@code getSnapshot}.
+     *
+     * @param snapshot  the earlier snapshot.
+     * @param time      the time to take a snapshot at.
+     * @param maxSteps  the maximum number of periods to step forward.
+     *
+     * @return {@code null}.
+     *
+     * @throws NullPointerException  if {@code snapshot} or {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot advanceSnapshot(SchoolSnapshot snapshot, UTCTime time, int maxSteps) {
+        if (snapshot == null) {
+            throw new NullPointerException("snapshot cannot be null");
+        }
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the {@code SchoolPeriod} object with the specified {@code Type} string.
+     *
+     * If no such period exists, {@code null} is returned. Only the type and status (name) fields
+     * of the returned period are guaranteed.
+     *
+     * @param type  the type string of the period to find.
+     *
+     * @return a {@code SchoolPeriod} object with the specified {@code Type} string.
+     */
+    @Override
+    public SchoolPeriod getPeriodByType(String type) {
+        SchoolPeriod period = this.base.getPeriodByType(type);
+        for (int day = this.days.length - 1; day >= 0 && period == null; day--) {
+            for (int i = 0; i < this.days[day].size(); i++) {
+                if (this.days[day].getType(i).equals(type)) {
+                    return this.getPeriod(day, i);
+                }
+            }
+        }
+        return period;
+    }
+
+
+    /**
+     * Gets the first period of a type that occurs during or after a given time.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the first period of type {@code type} that ends at or after {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    @Override
+    public SchoolPeriod getNextPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+
+        return this.findNext(time.getEpoch(),
+                             (period) -> period.getType().equals(type),
+                             (epoch) -> {
+                                 UTCTime at = UTCTime.ofEpoch(epoch);
+                                 return this.base.getNextPeriodOfType(at, type);
+                             });
+    }
+
+
+    /**
+     * Gets the last period of a type that occurs during or before a given time.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the last period of type {@code type} that starts at or before {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+
+        return this.findPrevious(time.getEpoch(),
+                                 (period) -> period.getType().equals(type),
+                                 (epoch) -> {
+                                     UTCTime at = UTCTime.ofEpoch(epoch);
+                                     return this.base.getPreviousPeriodOfType(at, type);
+                                 });
+    }
+
+
+    /**
+     * Returns the amount of time in periods of a type in the range {@code [from, to)}.
+     *
+     * The time is found from the base schedule, then corrected for each overridden day in the
+     * range.
+     *
+     * @param type  the type of the periods to count.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods of type {@code type}.
+     *
+     * @throws NullPointerException      if {@code type} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getTimeOfType(String type, long from, long to) {
+        long time = this.base.getTimeOfType(type, from, to);
+        for (int day = this.floorDay(from); day < this.days.length; day++) {
+            if (day == -1 || this.dayEnds[day] < from) {
+                continue;
+            }
+            if (this.dayStarts[day] >= to) {
+                break;
+            }
+
+            long start = Math.max(from, this.dayStarts[day]);
+            long end = Math.min(to, this.dayEnds[day] + 1);
+            time -= this.base.getTimeOfType(type, start, end);
+            for (int i = 0; i < this.days[day].size(); i++) {
+                if (this.days[day].getType(i).equals(type)) {
+                    time += this.getOverlap(day, i, start, end);
+                }
+            }
+        }
+        return time;
+    }
+
+
+    /**
+     * Returns the unix TZ identifier for the school.
+     *
+     * @return the unix TZ identifier for the school.
+     */
+    @Override
+    public String getTimezone() {
+        return this.base.getTimezone();
+    }
+
+
+    /**
+     * Returns a cursor that walks every period that overlaps the range {@code [from, to)}.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return a cursor over the periods that overlap the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public SchoolCursor getCursor(long from, long to) {
+        return new OverlayCursor(this.base.getCursor(from, to), from, to);
+    }
+
+
+    /**
+     * Returns the amount of counted time in the range {@code [from, to)}.
+     *
+     * The counted time is found from the base schedule, then corrected for each overridden day
+     * in the range.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getCountedTime(long from, long to) {
+        long counted = this.base.getCountedTime(from, to);
+        for (int day = this.floorDay(from); day < this.days.length; day++) {
+            if (day == -1 || this.dayEnds[day] < from) {
+                continue;
+            }
+            if (this.dayStarts[day] >= to) {
+                break;
+            }
+
+            long start = Math.max(from, this.dayStarts[day]);
+            long end = Math.min(to, this.dayEnds[day] + 1);
+            counted -= this.base.getCountedTime(start, end);
+            for (int i = 0; i < this.days[day].size(); i++) {
+                if (!this.days[day].getType(i).equals(SchoolJson.NOTHING)) {
+                    counted += this.getOverlap(day, i, start, end);
+                }
+            }
+        }
+        return counted;
+    }
+
+
+    /**
+     * Returns the amount of time that a period of an overridden day overlaps a range.
+     *
+     * @param day    the index of the overridden day.
+     * @param index  the index of the period in the day.
+     * @param from   the start of the range, inclusive, in epoch milliseconds.
+     * @param to     the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds of the period within the range.
+     */
+    private long getOverlap(int day, int index, long from, long to) {
+        long start = Math.max(from, this.getStart(day, index));
+        long end = Math.min(to, this.getEnd(day, index) + 1);
+        return Math.max(0, end - start);
+    }
+
+
+    /**
+     * Returns the compiled timeline of every period in the schedule. The periods of an overlay
+     * are not stored in a single timeline.
+     *
+     * @return {@code null}.
+     */
+    @Override
+    public SchoolTimeline getTimeline() {
+        return null;
+    }
+
+
+    /**
+     * Returns the first period number possible.
+     *
+     * @return the first period number possible.
+     */
+    @Override
+    public int getFirstPeriod() {
+        return this.base.getFirstPeriod();
+    }
+
+
+    /**
+     * Returns the last period number possible.
+     *
+     * @return the last period number possible.
+     */
+    @Override
+    public int getLastPeriod() {
+        return this.base.getLastPeriod();
+    }
+
+
+    /**
+     * Cursor that walks the periods of the base schedule, replacing the periods of each
+     * overridden day with the periods of the overlay.
+     */
+    private class OverlayCursor implements SchoolCursor {
+
+        private final SchoolCursor base;
+        private final long from;
+        private final long to;
+        /** Index of the next overridden day the cursor will reach. */
+        private int nextDay;
+        /** Index of the overridden day the cursor is in, or -1 if on a base period. */
+        private int day;
+        private int index;
+        /** The end of the last overridden day reached; base periods up to it are skipped. */
+        private long skipUntil;
+        private boolean onPeriod;
+
+
+        /**
+         * Constructs a new {@code OverlayCursor} positioned before its first period.
+         *
+         * @param base  a cursor over the base schedule for the same range.
+         * @param from  the start of the range, inclusive, in epoch milliseconds.
+         * @param to    the end of the range, exclusive, in epoch milliseconds.
+         */
+        OverlayCursor(SchoolCursor base, long from, long to) {
+            this.base = base;
+            this.from = from;
+            this.to = to;
+            this.day = -1;
+            this.skipUntil = Long.MIN_VALUE;
+
+            SchoolOverlay overlay = SchoolOverlay.this;
+            this.nextDay = overlay.floorDay(from);
+            if (this.nextDay == -1 || overlay.dayEnds[this.nextDay] < from) {
+                this.nextDay++;
+            }
+        }
+
+
+        @Override
+        public boolean next() {
+            this.onPeriod = false;
+            SchoolOverlay overlay = SchoolOverlay.this;
+            while (true) {
+                if (this.day != -1) {
+                    this.index++;
+                    if (this.index < overlay.days[this.day].size() &&
+                        overlay.getStart(this.day, this.index) < this.to)
+                    {
+                        this.onPeriod = true;
+                        return true;
+                    }
+                    this.day = -1;
+                }
+
+                if (!this.base.next()) {
+                    return false;
+                }
+                long start = this.base.getStart();
+                if (start <= this.skipUntil) {
+                    continue;
+                }
+                if (this.nextDay < overlay.days.length &&
+                    start >= overlay.dayStarts[this.nextDay])
+                {
+                    this.day = this.nextDay++;
+                    long first = Math.max(this.from, overlay.dayStarts[this.day]);
+                    this.index = overlay.indexOf(this.day, first) - 1;
+                    this.skipUntil = overlay.dayEnds[this.day];
+                    continue;
+                }
+
+                this.onPeriod = true;
+                return true;
+            }
+        }
+
+
+        /**
+         * Checks that this cursor is on a period.
+         *
+         * @throws IllegalStateException  if this cursor is not on a period.
+         */
+        private void checkPeriod() {
+            if (!this.onPeriod) {
+                throw new IllegalStateException("cursor is not on a period");
+            }
+        }
+
+
+        @Override
+        public long getStart() {
+            this.checkPeriod();
+            if (this.day == -1) {
+                return this.base.getStart();
+            }
+            return SchoolOverlay.this.getStart(this.day, this.index);
+        }
+
+
+        @Override
+        public long getEnd() {
+            this.checkPeriod();
+            if (this.day == -1) {
+                return this.base.getEnd();
+            }
+            return SchoolOverlay.this.getEnd(this.day, this.index);
+        }
+
+
+        @Override
+        public String getType() {
+            this.checkPeriod();
+            if (this.day == -1) {
+                return this.base.getType();
+            }
+            return SchoolOverlay.this.days[this.day].getType(this.index);
+        }
+
+
+        @Override
+        public String getName() {
+            this.checkPeriod();
+            if (this.day == -1) {
+                return this.base.getName();
+            }
+            return SchoolOverlay.this.days[this.day].getName(this.index);
+        }
+
+
+        @Override
+        public boolean isLast() {
+            this.checkPeriod();
+            if (this.day == -1) {
+                return this.base.isLast();
+            }
+            return SchoolOverlay.this.days[this.day].isLast(this.index);
+        }
+
+
+        @Override
+        public boolean isCounted() {
+            this.checkPeriod();
+            if (this.day == -1) {
+                return this.base.isCounted();
+            }
+            return !SchoolOverlay.this.days[this.day].getType(this.index)
+                .equals(SchoolJson.NOTHING);
+        }
+
+
+        @Override
+        public SchoolPeriod getPeriod() {
+            this.checkPeriod();
+            if (this.day == -1) {
+                return this.base.getPeriod();
+            }
+            return SchoolOverlay.this.getPeriod(this.day, this.index);
+        }
+
+    }
+
+}
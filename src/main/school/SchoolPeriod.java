@@ -165,6 +165,40 @@ public class SchoolPeriod {
     }
     
     
+    /**
+     * Returns whether this {@code SchoolPeriod} has the same type, name, start, end, and last
+     * status as the argument.
+     *
+     * @param o  a {@code SchoolPeriod} to compare to.
+     *
+     * @return whether this {@code SchoolPeriod} describes the same period as the argument.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SchoolPeriod)) {
+            return false;
+        }
+
+        SchoolPeriod other = (SchoolPeriod) o;
+        return this.type.equals(other.type) &&
+               this.name.equals(other.name) &&
+               this.start.equals(other.start) &&
+               this.end.equals(other.end) &&
+               this.isLast == other.isLast;
+    }
+    
+    
+    /**
+     * Returns a hash code for this {@code SchoolPeriod}.
+     *
+     * @return a hash code for this {@code SchoolPeriod}.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * this.start.hashCode() + this.end.hashCode();
+    }
+    
+    
     /**
      * Returns a string representation of this {@code SchoolPeriod}.
      *
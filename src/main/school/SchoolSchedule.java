@@ -0,0 +1,253 @@
+package school;
+
+
+import time.UTCTime;
+
+
+/**
+ * Common interface for the evaluated forms of the school json file.
+ *
+ * A schedule can either be materialized (every period of the year is created up front, see
+ * {@code SchoolYear}) or evaluated in closed form (periods are computed from the day and week
+ * definitions when they are requested, see {@code SchoolCalendar}). Both forms return the same
+ * periods for the same school json data.
+ *
+ * @author Jonathan Uhler
+ */
+interface SchoolSchedule {
+
+    /**
+     * Gets the period at a given time such that {@code start <= time <= end}.
+     *
+     * If no such period exists, {@code null} is returned.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period which occurs during the provided time.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public SchoolPeriod getPeriod(UTCTime time);
+
+
+    /**
+     * Gets the period at each of many times. The result for each time is the same as
+     * {@code getPeriod}, but a schedule may reuse the work of one lookup for the next, so sorted
+     * or clustered times can be much cheaper than separate calls.
+     *
+     * @param epochs   the times to get periods for, in epoch milliseconds.
+     * @param periods  the array to store the period at each time in, or {@code null} if no period
+     *                 occurs at the time. Must be at least as long as {@code epochs}.
+     *
+     * @throws NullPointerException      if {@code epochs} or {@code periods} is null.
+     * @throws IllegalArgumentException  if {@code periods} is shorter than {@code epochs}.
+     */
+    public void getPeriods(long[] epochs, SchoolPeriod[] periods);
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the first period after it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or after {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public SchoolPeriod getPeriodAtOrAfter(UTCTime time);
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the last period before it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or before {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public SchoolPeriod getPeriodAtOrBefore(UTCTime time);
+
+
+    /**
+     * Gets the first counted period at or after the period that occurs during a given time.
+     *
+     * If no period occurs during the provided time, or no counted period exists at or after that
+     * period, {@code null} is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the first counted period at or after the period at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public SchoolPeriod getNextCountedPeriod(UTCTime time);
+
+
+    /**
+     * Gets the last counted period at or before the period that occurs during a given time.
+     *
+     * If no period occurs during the provided time, or no counted period exists at or before
+     * that period, {@code null} is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the last counted period at or before the period at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public SchoolPeriod getPreviousCountedPeriod(UTCTime time);
+
+
+    /**
+     * Takes a snapshot of the schedule at a given time with a single search.
+     *
+     * If no period occurs during the provided time, {@code null} is returned.
+     *
+     * @param time  the time to take a snapshot at.
+     *
+     * @return a snapshot of the schedule at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public SchoolSnapshot getSnapshot(UTCTime time);
+
+
+    /**
+     * Takes a snapshot of the schedule at a time shortly after an earlier snapshot, by stepping
+     * forward from the current period of the earlier snapshot instead of searching.
+     *
+     * If the new time is not within {@code maxSteps} periods after the earlier snapshot's current
+     * period, or this schedule cannot step between periods, {@code null} is returned and the
+     * caller should use {@code getSnapshot} instead.
+     *
+     * @param snapshot  the earlier snapshot, which must have come from this schedule.
+     * @param time      the time to take a snapshot at.
+     * @param maxSteps  the maximum number of periods to step forward.
+     *
+     * @return a snapshot of the schedule at {@code time}, or {@code null}.
+     *
+     * @throws NullPointerException  if {@code snapshot} or {@code time} is null.
+     */
+    public SchoolSnapshot advanceSnapshot(SchoolSnapshot snapshot, UTCTime time, int maxSteps);
+
+
+    /**
+     * Returns the {@code SchoolPeriod} object with the specified {@code Type} string.
+     *
+     * If no such period exists, {@code null} is returned. Only the type and status (name) fields
+     * of the returned period are guaranteed.
+     *
+     * @param type  the type string of the period to find.
+     *
+     * @return a {@code SchoolPeriod} object with the specified {@code Type} string.
+     */
+    public SchoolPeriod getPeriodByType(String type);
+
+
+    /**
+     * Returns the unix TZ identifier for the school.
+     *
+     * @return the unix TZ identifier for the school.
+     */
+    public String getTimezone();
+
+
+    /**
+     * Returns a cursor that walks every period that overlaps the range {@code [from, to)}.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return a cursor over the periods that overlap the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public SchoolCursor getCursor(long from, long to);
+
+
+    /**
+     * Returns the amount of counted time in the range {@code [from, to)}. Counted time is time
+     * within a period whose type is not {@code "Nothing"}.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public long getCountedTime(long from, long to);
+
+
+    /**
+     * Gets the first period of a type that occurs during or after a given time.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the first period of type {@code type} that ends at or after {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    public SchoolPeriod getNextPeriodOfType(UTCTime time, String type);
+
+
+    /**
+     * Gets the last period of a type that occurs during or before a given time.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the last period of type {@code type} that starts at or before {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    public SchoolPeriod getPreviousPeriodOfType(UTCTime time, String type);
+
+
+    /**
+     * Returns the amount of time in periods of a type in the range {@code [from, to)}. Periods
+     * that overlap the range are only partially counted.
+     *
+     * @param type  the type of the periods to count.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods of type {@code type}.
+     *
+     * @throws NullPointerException      if {@code type} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public long getTimeOfType(String type, long from, long to);
+
+
+    /**
+     * Returns the compiled timeline of every period in the schedule, if the schedule has one.
+     *
+     * @return the compiled timeline of every period in the schedule, or {@code null} if the
+     *         periods are not stored in a timeline.
+     */
+    public SchoolTimeline getTimeline();
+
+
+    /**
+     * Returns the first period number possible.
+     *
+     * @return the first period number possible.
+     */
+    public int getFirstPeriod();
+
+
+    /**
+     * Returns the last period number possible.
+     *
+     * @return the last period number possible.
+     */
+    public int getLastPeriod();
+
+}
@@ -0,0 +1,1197 @@
+package school;
+
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import com.google.gson.Gson;
+import time.UTCTime;
+
+
+/**
+ * Schedule made of several consecutive school years, each described by its own school json data.
+ *
+ * Only the "Info" section of each year is read when this object is constructed. A year is
+ * compiled into a {@code SchoolYear} the first time a query reaches it, and the compiled year is
+ * evicted once it has not been queried for an idle time; it is compiled again if a later query
+ * reaches it. Idle years are evicted each time a year is compiled, or by calling
+ * {@code evictIdle}. Errors in the days, weeks, or exceptions of a year are therefore reported by
+ * the first query that compiles it. The json data of each year is serialized when this object is
+ * constructed and compiled from that copy, so later changes to the caller's data are not seen.
+ *
+ * A compiled year that ended long enough ago, as decided by {@code CompactTimeline::isCold}, is
+ * kept in the smaller form of a {@code CompactTimeline} rather than as a {@code SchoolYear}.
+ * Queries of such a year decode only the blocks of periods they reach. A year that becomes cold
+ * while it is compiled is compacted the next time idle years are evicted.
+ *
+ * A compiled year has periods for every day of each week it touches, from the sunday on or before
+ * its first day. Each year answers for the times from the start of its first week to the start of
+ * the next year's first week, so the weeks of two consecutive years must not overlap. A lookup
+ * that runs off the end of one year, such as the next counted period after the last day of
+ * school, continues with a single search of the adjacent year.
+ *
+ * A {@code SchoolSegments} is safe to read from multiple threads. Each year is compiled at most
+ * once at a time, and a query that is compiling a year does not block queries of other years.
+ *
+ * @author Jonathan Uhler
+ */
+public final class SchoolSegments implements SchoolSchedule {
+
+    /** Milliseconds a year must go unqueried before it is evicted, by default. */
+    public static final long DEFAULT_IDLE_TIME = 10 * 60 * 1000L;
+
+    /** The school years, in chronological order. */
+    private final Segment[] segments;
+    /** Start of the first week of each year, in epoch milliseconds. */
+    private final long[] bounds;
+    /** The unix TZ identifier shared by every year. */
+    private final String timezone;
+    /** The smallest first period number of any year. */
+    private final int firstPeriod;
+    /** The largest last period number of any year. */
+    private final int lastPeriod;
+    /** Milliseconds a year must go unqueried before it is evicted when another is compiled. */
+    private final long idleTime;
+    /** Milliseconds after the end of a year before it is compacted. */
+    private final long coldAfter;
+
+
+    /**
+     * Constructs a new {@code SchoolSegments} from the json data of each school year, with the
+     * default idle time and cold threshold. No year is compiled until it is queried.
+     *
+     * @param years  the school json data of each year, in chronological order.
+     *
+     * @throws NullPointerException      if {@code years} or any of its elements is null.
+     * @throws IllegalArgumentException  if {@code years} is empty.
+     * @throws IllegalArgumentException  if the "Info" section of any year is missing a key or has
+     *                                   an invalid value.
+     * @throws IllegalArgumentException  if the years do not all have the same timezone.
+     * @throws IllegalArgumentException  if the weeks of any two consecutive years overlap.
+     *
+     * @see #DEFAULT_IDLE_TIME
+     * @see CompactTimeline#DEFAULT_COLD_AFTER
+     */
+    public SchoolSegments(List<SchoolJson> years) {
+        this(years, SchoolSegments.DEFAULT_IDLE_TIME, CompactTimeline.DEFAULT_COLD_AFTER);
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolSegments} from the json data of each school year. No year is
+     * compiled until it is queried.
+     *
+     * @param years      the school json data of each year, in chronological order.
+     * @param idleTime   the number of milliseconds a year must go unqueried before it is evicted
+     *                   when another year is compiled.
+     * @param coldAfter  the number of milliseconds after the end of a year before it is kept
+     *                   compacted.
+     *
+     * @throws NullPointerException      if {@code years} or any of its elements is null.
+     * @throws IllegalArgumentException  if {@code years} is empty.
+     * @throws IllegalArgumentException  if {@code idleTime} or {@code coldAfter} is negative.
+     * @throws IllegalArgumentException  if the "Info" section of any year is missing a key or has
+     *                                   an invalid value.
+     * @throws IllegalArgumentException  if the years do not all have the same timezone.
+     * @throws IllegalArgumentException  if the weeks of any two consecutive years overlap.
+     */
+    public SchoolSegments(List<SchoolJson> years, long idleTime, long coldAfter) {
+        this(SchoolSegments.toSegments(years), idleTime, coldAfter);
+    }
+
+
+    /**
+     * Reads the "Info" section of each school year without compiling it.
+     *
+     * @param years  the school json data of each year, in chronological order.
+     *
+     * @return an uncompiled segment for each year.
+     *
+     * @throws NullPointerException      if {@code years} or any of its elements is null.
+     * @throws IllegalArgumentException  if {@code years} is empty, or the "Info" section of any
+     *                                   year is invalid.
+     */
+    private static Segment[] toSegments(List<SchoolJson> years) {
+        if (years == null) {
+            throw new NullPointerException("years cannot be null");
+        }
+        if (years.isEmpty()) {
+            throw new IllegalArgumentException("years cannot be empty");
+        }
+
+        Segment[] segments = new Segment[years.size()];
+        for (int i = 0; i < segments.length; i++) {
+            if (years.get(i) == null) {
+                throw new NullPointerException("year " + i + " cannot be null");
+            }
+            segments[i] = new Segment(years.get(i));
+        }
+        return segments;
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolSegments} that shares already validated years.
+     *
+     * @param segments   the school years, in chronological order.
+     * @param idleTime   the number of milliseconds a year must go unqueried before it is evicted.
+     * @param coldAfter  the number of milliseconds after the end of a year before it is compacted.
+     *
+     * @throws IllegalArgumentException  if {@code idleTime} or {@code coldAfter} is negative.
+     */
+    private SchoolSegments(Segment[] segments, long idleTime, long coldAfter) {
+        if (idleTime < 0) {
+            throw new IllegalArgumentException("idleTime cannot be negative, found " + idleTime);
+        }
+        if (coldAfter < 0) {
+            throw new IllegalArgumentException("coldAfter cannot be negative, found " + coldAfter);
+        }
+
+        this.idleTime = idleTime;
+        this.coldAfter = coldAfter;
+        this.segments = segments;
+        this.timezone = segments[0].timezone;
+        this.bounds = SchoolSegments.bounds(segments, this.timezone);
+
+        int firstPeriod = Integer.MAX_VALUE;
+        int lastPeriod = Integer.MIN_VALUE;
+        for (Segment segment : segments) {
+            firstPeriod = Math.min(firstPeriod, segment.firstPeriod);
+            lastPeriod = Math.max(lastPeriod, segment.lastPeriod);
+        }
+        this.firstPeriod = firstPeriod;
+        this.lastPeriod = lastPeriod;
+    }
+
+
+    /**
+     * Finds the start of the first week of each year, checking that the years share a timezone
+     * and that their weeks do not overlap.
+     *
+     * @param segments  the school years, in chronological order.
+     * @param timezone  the timezone every year must have.
+     *
+     * @return the start of the first week of each year, in epoch milliseconds.
+     *
+     * @throws IllegalArgumentException  if any check fails.
+     */
+    private static long[] bounds(Segment[] segments, String timezone) {
+        ZoneId zone;
+        try {
+            zone = ZoneId.of(timezone);
+        }
+        catch (DateTimeException e) {
+            throw new IllegalArgumentException("invalid timezone id: " + timezone);
+        }
+
+        long[] bounds = new long[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            Segment segment = segments[i];
+            if (!segment.timezone.equals(timezone)) {
+                throw new IllegalArgumentException("all years must have timezone " + timezone +
+                                                   ", found " + segment.timezone);
+            }
+
+            LocalDate sunday =
+                segment.firstDay.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+            if (i > 0 && !sunday.isAfter(segments[i - 1].lastDay)) {
+                throw new IllegalArgumentException("the first week of " + segment.firstDay +
+                                                   " overlaps the year ending " +
+                                                   segments[i - 1].lastDay);
+            }
+            bounds[i] = sunday.atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return bounds;
+    }
+
+
+    /**
+     * Returns the number of school years in this schedule.
+     *
+     * @return the number of school years in this schedule.
+     */
+    public int size() {
+        return this.segments.length;
+    }
+
+
+    /**
+     * Returns whether a school year is currently compiled, in either its full or compacted form.
+     *
+     * @param index  the index of the school year.
+     *
+     * @return whether the school year is compiled.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid year index.
+     */
+    public boolean isLoaded(int index) {
+        return this.segments[index].year != null;
+    }
+
+
+    /**
+     * Returns whether a school year is currently compiled and kept compacted.
+     *
+     * @param index  the index of the school year.
+     *
+     * @return whether the school year is compiled into a {@code CompactTimeline}.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid year index.
+     */
+    public boolean isCompacted(int index) {
+        return this.segments[index].year instanceof CompactYear;
+    }
+
+
+    /**
+     * Evicts every compiled school year that has not been queried for a length of time, and
+     * compacts every other compiled year that has become cold. An evicted year keeps its json data
+     * and is compiled again by the next query that reaches it.
+     *
+     * @param idleTime  the number of milliseconds a year must go unqueried before it is evicted.
+     *
+     * @return the number of years that were evicted.
+     *
+     * @throws IllegalArgumentException  if {@code idleTime} is negative.
+     */
+    public int evictIdle(long idleTime) {
+        if (idleTime < 0) {
+            throw new IllegalArgumentException("idleTime cannot be negative, found " + idleTime);
+        }
+        return this.evictIdle(idleTime, -1);
+    }
+
+
+    /**
+     * Evicts every compiled school year, other than one, that has not been queried for a length
+     * of time, and compacts every other compiled year that has become cold.
+     *
+     * @param idleTime  the number of milliseconds a year must go unqueried before it is evicted.
+     * @param keep      the index of a school year that is never evicted, or {@code -1}.
+     *
+     * @return the number of years that were evicted.
+     */
+    private int evictIdle(long idleTime, int keep) {
+        long before = SchoolSegments.now() - idleTime;
+        int evicted = 0;
+        for (int i = 0; i < this.segments.length; i++) {
+            if (i != keep && this.segments[i].evict(before)) {
+                evicted++;
+            }
+            else {
+                this.segments[i].compact(this.coldAfter);
+            }
+        }
+        return evicted;
+    }
+
+
+    /**
+     * Returns the index of the year that answers for a time.
+     *
+     * @param epoch  the time in epoch milliseconds.
+     *
+     * @return the index of the last year whose first week starts at or before {@code epoch}, or
+     *         {@code 0} if {@code epoch} is before every year.
+     */
+    private int segmentOf(long epoch) {
+        int min = 0;
+        int max = this.bounds.length - 1;
+
+        while (min <= max) {
+            int middle = (min + max) >>> 1;
+            if (this.bounds[middle] <= epoch) {
+                min = middle + 1;
+            }
+            else {
+                max = middle - 1;
+            }
+        }
+        return Math.max(max, 0);
+    }
+
+
+    /**
+     * Returns a compiled school year, compiling it if needed. Compiling a year also evicts the
+     * other years that have been idle for longer than the idle time of this schedule.
+     *
+     * @param index  the index of the school year.
+     *
+     * @return the compiled school year, which is compacted if it is cold.
+     *
+     * @throws IllegalArgumentException  if the json data of the year cannot be compiled.
+     */
+    private SchoolSchedule year(int index) {
+        Segment segment = this.segments[index];
+        if (segment.year != null) {
+            return segment.get(this.coldAfter);
+        }
+
+        SchoolSchedule year = segment.get(this.coldAfter);
+        this.evictIdle(this.idleTime, index);
+        return year;
+    }
+
+
+    /**
+     * Returns the start of the first week of a school year.
+     *
+     * @param index  the index of the school year.
+     *
+     * @return the start of the first week of the school year.
+     */
+    private UTCTime startOf(int index) {
+        return UTCTime.ofEpoch(this.bounds[index]);
+    }
+
+
+    /**
+     * Returns the last time before the first week of a school year.
+     *
+     * @param index  the index of the school year.
+     *
+     * @return one millisecond before the start of the first week of the school year.
+     */
+    private UTCTime endBefore(int index) {
+        return UTCTime.ofEpoch(this.bounds[index] - 1);
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period which occurs during the provided time, or {@code null} if none does.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        return this.year(this.segmentOf(time.getEpoch())).getPeriod(time);
+    }
+
+
+    /**
+     * Gets the period at each of many times. The result for each time is the same as
+     * {@code getPeriod}. Each run of times in one school year is looked up with a single batch
+     * of that year.
+     *
+     * @param epochs   the times to get periods for, in epoch milliseconds.
+     * @param periods  the array to store the period at each time in, or {@code null} if no period
+     *                 occurs at the time. Must be at least as long as {@code epochs}.
+     *
+     * @throws NullPointerException      if {@code epochs} or {@code periods} is null.
+     * @throws IllegalArgumentException  if {@code periods} is shorter than {@code epochs}.
+     */
+    @Override
+    public void getPeriods(long[] epochs, SchoolPeriod[] periods) {
+        if (epochs == null) {
+            throw new NullPointerException("epochs cannot be null");
+        }
+        if (periods == null) {
+            throw new NullPointerException("periods cannot be null");
+        }
+        if (periods.length < epochs.length) {
+            throw new IllegalArgumentException("periods is shorter than epochs: " +
+                                               periods.length + " < " + epochs.length);
+        }
+
+        int i = 0;
+        while (i < epochs.length) {
+            int segment = this.segmentOf(epochs[i]);
+            int j = i + 1;
+            while (j < epochs.length && this.segmentOf(epochs[j]) == segment) {
+                j++;
+            }
+
+            SchoolPeriod[] found = new SchoolPeriod[j - i];
+            this.year(segment).getPeriods(Arrays.copyOfRange(epochs, i, j), found);
+            System.arraycopy(found, 0, periods, i, found.length);
+            i = j;
+        }
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the first period after it, which may be in the next school year.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or after {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrAfter(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int segment = this.segmentOf(time.getEpoch());
+        SchoolPeriod period = this.year(segment).getPeriodAtOrAfter(time);
+        for (segment++; period == null && segment < this.segments.length; segment++) {
+            period = this.year(segment).getPeriodAtOrAfter(this.startOf(segment));
+        }
+        return period;
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the last period before it, which may be in the previous school year.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or before {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrBefore(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int segment = this.segmentOf(time.getEpoch());
+        SchoolPeriod period = this.year(segment).getPeriodAtOrBefore(time);
+        for (segment--; period == null && segment >= 0; segment--) {
+            period = this.year(segment).getPeriodAtOrBefore(this.endBefore(segment + 1));
+        }
+        return period;
+    }
+
+
+    /**
+     * Gets the first counted period at or after the period that occurs during a given time. If
+     * the rest of the school year has no counted period, the first counted period of a later
+     * year is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the first counted period at or after the period at {@code time}, or {@code null} if
+     *         no period occurs during {@code time} or no such counted period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getNextCountedPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int segment = this.segmentOf(time.getEpoch());
+        SchoolSchedule year = this.year(segment);
+        SchoolPeriod period = year.getNextCountedPeriod(time);
+        if (period != null || year.getPeriod(time) == null) {
+            return period;
+        }
+        return this.getFirstCountedPeriod(segment + 1);
+    }
+
+
+    /**
+     * Gets the last counted period at or before the period that occurs during a given time. If
+     * the school year has no counted period before it, the last counted period of an earlier year
+     * is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the last counted period at or before the period at {@code time}, or {@code null} if
+     *         no period occurs during {@code time} or no such counted period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousCountedPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int segment = this.segmentOf(time.getEpoch());
+        SchoolSchedule year = this.year(segment);
+        SchoolPeriod period = year.getPreviousCountedPeriod(time);
+        if (period != null || year.getPeriod(time) == null) {
+            return period;
+        }
+        return this.getLastCountedPeriod(segment - 1);
+    }
+
+
+    /**
+     * Returns the first counted period of a school year or, if it has none, of the first later
+     * year that does.
+     *
+     * @param from  the index of the first school year to search.
+     *
+     * @return the first counted period, or {@code null} if no such period exists.
+     */
+    private SchoolPeriod getFirstCountedPeriod(int from) {
+        for (int segment = from; segment < this.segments.length; segment++) {
+            SchoolSchedule year = this.year(segment);
+            SchoolPeriod first = year.getPeriodAtOrAfter(this.startOf(segment));
+            if (first == null) {
+                continue;
+            }
+            SchoolPeriod period = year.getNextCountedPeriod(first.getStart());
+            if (period != null) {
+                return period;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the last counted period of a school year or, if it has none, of the last earlier
+     * year that does.
+     *
+     * @param from  the index of the first school year to search.
+     *
+     * @return the last counted period, or {@code null} if no such period exists.
+     */
+    private SchoolPeriod getLastCountedPeriod(int from) {
+        for (int segment = from; segment >= 0; segment--) {
+            SchoolSchedule year = this.year(segment);
+            SchoolPeriod last = year.getPeriodAtOrBefore(this.endBefore(segment + 1));
+            if (last == null) {
+                continue;
+            }
+            SchoolPeriod period = year.getPreviousCountedPeriod(last.getEnd());
+            if (period != null) {
+                return period;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a given time. The counted periods on either side of the
+     * current period may be in adjacent school years.
+     *
+     * @param time  the time to take a snapshot at.
+     *
+     * @return a snapshot of the schedule at {@code time}, or {@code null} if no period occurs
+     *         during {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot getSnapshot(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int segment = this.segmentOf(time.getEpoch());
+        return this.join(segment, this.year(segment).getSnapshot(time));
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a time shortly after an earlier snapshot, by stepping
+     * forward within the school year of the earlier snapshot.
+     *
+     * If the new time is in a different school year, or is not within {@code maxSteps} periods
+     * after the earlier snapshot's current period, {@code null} is returned and the caller should
+     * use {@code getSnapshot} instead.
+     *
+     * @param snapshot  the earlier snapshot, which must have come from this schedule.
+     * @param time      the time to take a snapshot at.
+     * @param maxSteps  the maximum number of periods to step forward.
+     *
+     * @return a snapshot of the schedule at {@code time}, or {@code null}.
+     *
+     * @throws NullPointerException  if {@code snapshot} or {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot advanceSnapshot(SchoolSnapshot snapshot, UTCTime time, int maxSteps) {
+        if (snapshot == null) {
+            throw new NullPointerException("snapshot cannot be null");
+        }
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        SchoolPeriod current = snapshot.getCurrentPeriod();
+        int segment = this.segmentOf(time.getEpoch());
+        if (current == null || this.segmentOf(current.getStart().getEpoch()) != segment) {
+            return null;
+        }
+        return this.join(segment, this.year(segment).advanceSnapshot(snapshot, time, maxSteps));
+    }
+
+
+    /**
+     * Fills in the counted periods of a snapshot from one school year that lie in adjacent years.
+     *
+     * @param segment   the index of the school year the snapshot was taken in.
+     * @param snapshot  the snapshot taken in that year, or null.
+     *
+     * @return a snapshot with the counted periods of every year, or {@code null} if
+     *         {@code snapshot} is null.
+     */
+    private SchoolSnapshot join(int segment, SchoolSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+
+        SchoolPeriod previous = snapshot.getPreviousCountedPeriod();
+        SchoolPeriod next = snapshot.getNextCountedPeriod();
+        if (previous != null && next != null) {
+            return snapshot;
+        }
+
+        if (previous == null) {
+            previous = this.getLastCountedPeriod(segment - 1);
+        }
+        if (next == null) {
+            next = this.getFirstCountedPeriod(segment + 1);
+        }
+        return new SchoolSnapshot(snapshot.getTime(),
+                                  snapshot.getCurrentPeriod(),
+                                  previous,
+                                  next,
+                                  snapshot.getIndex());
+    }
+
+
+    /**
+     * Returns the {@code SchoolPeriod} object with the specified {@code Type} string, from the
+     * first school year that has such a period.
+     *
+     * If no such period exists, {@code null} is returned. Only the type and status (name) fields
+     * of the returned period are guaranteed.
+     *
+     * @param type  the type string of the period to find.
+     *
+     * @return a {@code SchoolPeriod} object with the specified {@code Type} string.
+     */
+    @Override
+    public SchoolPeriod getPeriodByType(String type) {
+        for (int segment = 0; segment < this.segments.length; segment++) {
+            SchoolPeriod period = this.year(segment).getPeriodByType(type);
+            if (period != null) {
+                return period;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the unix TZ identifier for the school.
+     *
+     * @return the unix TZ identifier for the school.
+     */
+    @Override
+    public String getTimezone() {
+        return this.timezone;
+    }
+
+
+    /**
+     * Returns a cursor that walks every period that overlaps the range {@code [from, to)}, across
+     * every school year the range reaches.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return a cursor over the periods that overlap the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public SchoolCursor getCursor(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+        return new SegmentCursor(from, to);
+    }
+
+
+    /**
+     * Returns the amount of counted time in the range {@code [from, to)}, summed over every
+     * school year the range reaches.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getCountedTime(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+
+        long counted = 0;
+        for (int segment = this.segmentOf(from); segment <= this.segmentOf(to - 1); segment++) {
+            counted += this.year(segment).getCountedTime(this.clampFrom(segment, from),
+                                                         this.clampTo(segment, to));
+        }
+        return counted;
+    }
+
+
+    /**
+     * Gets the first period of a type that occurs during or after a given time, which may be in
+     * a later school year.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the first period of type {@code type} that ends at or after {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    @Override
+    public SchoolPeriod getNextPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+
+        int segment = this.segmentOf(time.getEpoch());
+        SchoolPeriod period = this.year(segment).getNextPeriodOfType(time, type);
+        for (segment++; period == null && segment < this.segments.length; segment++) {
+            period = this.year(segment).getNextPeriodOfType(this.startOf(segment), type);
+        }
+        return period;
+    }
+
+
+    /**
+     * Gets the last period of a type that occurs during or before a given time, which may be in
+     * an earlier school year.
+     *
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
+     *
+     * @return the last period of type {@code type} that starts at or before {@code time}, or
+     *         {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+
+        int segment = this.segmentOf(time.getEpoch());
+        SchoolPeriod period = this.year(segment).getPreviousPeriodOfType(time, type);
+        for (segment--; period == null && segment >= 0; segment--) {
+            period = this.year(segment).getPreviousPeriodOfType(this.endBefore(segment + 1), type);
+        }
+        return period;
+    }
+
+
+    /**
+     * Returns the amount of time in periods of a type in the range {@code [from, to)}, summed
+     * over every school year the range reaches.
+     *
+     * @param type  the type of the periods to count.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods of type {@code type}.
+     *
+     * @throws NullPointerException      if {@code type} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getTimeOfType(String type, long from, long to) {
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
+        }
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+
+        long time = 0;
+        for (int segment = this.segmentOf(from); segment <= this.segmentOf(to - 1); segment++) {
+            time += this.year(segment).getTimeOfType(type,
+                                                     this.clampFrom(segment, from),
+                                                     this.clampTo(segment, to));
+        }
+        return time;
+    }
+
+
+    /**
+     * Clamps the start of a range to the times a school year answers for.
+     *
+     * @param segment  the index of the school year.
+     * @param from     the start of the range, inclusive, in epoch milliseconds.
+     *
+     * @return the start of the part of the range the school year answers for.
+     */
+    private long clampFrom(int segment, long from) {
+        return segment == 0 ? from : Math.max(from, this.bounds[segment]);
+    }
+
+
+    /**
+     * Clamps the end of a range to the times a school year answers for.
+     *
+     * @param segment  the index of the school year.
+     * @param to       the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the end of the part of the range the school year answers for.
+     */
+    private long clampTo(int segment, long to) {
+        return segment + 1 == this.bounds.length ? to : Math.min(to, this.bounds[segment + 1]);
+    }
+
+
+    /**
+     * Returns {@code null}, since the periods of the school years are stored in one timeline per
+     * year rather than a single timeline.
+     *
+     * @return {@code null}.
+     */
+    @Override
+    public SchoolTimeline getTimeline() {
+        return null;
+    }
+
+
+    /**
+     * Returns the first period number possible in any school year.
+     *
+     * @return the first period number possible.
+     */
+    @Override
+    public int getFirstPeriod() {
+        return this.firstPeriod;
+    }
+
+
+    /**
+     * Returns the last period number possible in any school year.
+     *
+     * @return the last period number possible.
+     */
+    @Override
+    public int getLastPeriod() {
+        return this.lastPeriod;
+    }
+
+
+    /**
+     * Returns the current value of the monotonic clock, which is not affected by changes to the
+     * system time.
+     *
+     * @return the current value of the monotonic clock, in milliseconds.
+     */
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+
+    /**
+     * One school year: its json data, the values of its "Info" section that are needed before it
+     * is compiled, and the compiled year if it is loaded.
+     */
+    private static final class Segment {
+
+        /** The serialized school json data of the year, which is compiled again after eviction. */
+        private final byte[] content;
+        /** The first day of school, from the "Info" section. */
+        private final LocalDate firstDay;
+        /** The last day of school, from the "Info" section. */
+        private final LocalDate lastDay;
+        /** The unix TZ identifier of the year. */
+        private final String timezone;
+        /** The first period number possible in the year. */
+        private final int firstPeriod;
+        /** The last period number possible in the year. */
+        private final int lastPeriod;
+        /**
+         * The compiled year, as a {@code SchoolYear} or, if it is cold, a {@code CompactYear}. This
+         * is null if the year has not been compiled or was evicted.
+         */
+        private volatile SchoolSchedule year;
+        /** The time of the last query of this year, in milliseconds of the monotonic clock. */
+        private volatile long lastUsed;
+
+
+        /**
+         * Constructs a new {@code Segment} that is not compiled.
+         *
+         * @param json  the school json data of the year.
+         *
+         * @throws IllegalArgumentException  if the "Info" section is missing a key or has an
+         *                                   invalid value.
+         */
+        Segment(SchoolJson json) {
+            if (json.info == null) {
+                throw new IllegalArgumentException("missing Info field in school json file");
+            }
+
+            // The year is compiled from a private copy, read directly into its compiled form
+            this.content = new Gson().toJson(json).getBytes(StandardCharsets.UTF_8);
+            this.firstDay = Segment.parseDay(json.info.get(SchoolJson.FIRST_DAY_TAG),
+                                             SchoolJson.FIRST_DAY_TAG);
+            this.lastDay = Segment.parseDay(json.info.get(SchoolJson.LAST_DAY_TAG),
+                                            SchoolJson.LAST_DAY_TAG);
+            this.timezone = json.info.get(SchoolJson.TIMEZONE);
+            if (this.timezone == null) {
+                throw new IllegalArgumentException("missing " + SchoolJson.TIMEZONE + " in Info");
+            }
+            this.firstPeriod = Segment.parsePeriod(json.info.get(SchoolJson.FIRST_PERIOD),
+                                                   SchoolJson.FIRST_PERIOD);
+            this.lastPeriod = Segment.parsePeriod(json.info.get(SchoolJson.LAST_PERIOD),
+                                                  SchoolJson.LAST_PERIOD);
+        }
+
+
+        /**
+         * Parses a day tag of the "Info" section.
+         *
+         * @param tag  the day tag, in the format {@code yyyy-MM-dd}.
+         * @param key  the key of the day tag.
+         *
+         * @return the date of the day tag.
+         *
+         * @throws IllegalArgumentException  if {@code tag} is null or cannot be parsed.
+         */
+        private static LocalDate parseDay(String tag, String key) {
+            if (tag == null) {
+                throw new IllegalArgumentException("missing " + key + " in Info");
+            }
+            try {
+                return LocalDate.parse(tag);
+            }
+            catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("invalid " + key + ": " + tag);
+            }
+        }
+
+
+        /**
+         * Parses a period number of the "Info" section.
+         *
+         * @param number  the period number.
+         * @param key     the key of the period number.
+         *
+         * @return the period number.
+         *
+         * @throws IllegalArgumentException  if {@code number} is null or not an integer.
+         */
+        private static int parsePeriod(String number, String key) {
+            if (number == null) {
+                throw new IllegalArgumentException("missing " + key + " in Info");
+            }
+            try {
+                return Integer.parseInt(number);
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + " is not an integer");
+            }
+        }
+
+
+        /**
+         * Returns the compiled year, compiling it if it is not loaded, and records the query.
+         *
+         * @param coldAfter  the number of milliseconds after the end of the year before a newly
+         *                   compiled year is compacted.
+         *
+         * @return the compiled year.
+         *
+         * @throws IllegalArgumentException  if the json data cannot be compiled.
+         */
+        SchoolSchedule get(long coldAfter) {
+            SchoolSchedule year = this.year;
+            if (year == null) {
+                synchronized (this) {
+                    year = this.year;
+                    if (year == null) {
+                        SchoolYear compiled = new SchoolYear(new SchoolJsonCompiler(this.content));
+                        year = Segment.compact(compiled, coldAfter);
+                        this.year = year;
+                    }
+                }
+            }
+            this.lastUsed = SchoolSegments.now();
+            return year;
+        }
+
+
+        /**
+         * Compacts the compiled year if it is not already compacted and has become cold.
+         *
+         * @param coldAfter  the number of milliseconds after the end of the year before it is
+         *                   compacted.
+         */
+        synchronized void compact(long coldAfter) {
+            if (this.year instanceof SchoolYear) {
+                this.year = Segment.compact((SchoolYear) this.year, coldAfter);
+            }
+        }
+
+
+        /**
+         * Returns the form a compiled year should be kept in.
+         *
+         * @param year       the compiled year.
+         * @param coldAfter  the number of milliseconds after the end of the year before it is
+         *                   compacted.
+         *
+         * @return a {@code CompactYear} with the periods of {@code year} if it is cold, otherwise
+         *         {@code year} itself.
+         */
+        private static SchoolSchedule compact(SchoolYear year, long coldAfter) {
+            long now = System.currentTimeMillis();
+            if (CompactTimeline.isCold(year.getTimeline(), now, coldAfter)) {
+                return new CompactYear(year);
+            }
+            return year;
+        }
+
+
+        /**
+         * Evicts the compiled year if it has not been queried since a time.
+         *
+         * @param before  the time, in milliseconds of the monotonic clock, before which the last
+         *                query must have been.
+         *
+         * @return whether the compiled year was evicted.
+         */
+        synchronized boolean evict(long before) {
+            if (this.year == null || this.lastUsed > before) {
+                return false;
+            }
+            this.year = null;
+            return true;
+        }
+
+    }
+
+
+    /**
+     * Cursor that walks the periods of each school year a range reaches, one year after another.
+     */
+    private class SegmentCursor implements SchoolCursor {
+
+        /** The start of the range, inclusive, in epoch milliseconds. */
+        private final long from;
+        /** The end of the range, exclusive, in epoch milliseconds. */
+        private final long to;
+        /** Index of the school year of {@code cursor}. */
+        private int segment;
+        /** Index of the last school year the range reaches. */
+        private final int last;
+        /** Cursor over the part of the range in the current school year. */
+        private SchoolCursor cursor;
+
+
+        /**
+         * Constructs a new {@code SegmentCursor} positioned before its first period.
+         *
+         * @param from  the start of the range, inclusive, in epoch milliseconds.
+         * @param to    the end of the range, exclusive, in epoch milliseconds.
+         */
+        SegmentCursor(long from, long to) {
+            SchoolSegments segments = SchoolSegments.this;
+            this.from = from;
+            this.to = to;
+            this.segment = segments.segmentOf(from);
+            this.last = from == to ? this.segment : segments.segmentOf(to - 1);
+            this.cursor = this.open();
+        }
+
+
+        /**
+         * Opens a cursor over the part of the range that the current school year answers for.
+         *
+         * @return a cursor over the current school year.
+         */
+        private SchoolCursor open() {
+            SchoolSegments segments = SchoolSegments.this;
+            long from = segments.clampFrom(this.segment, this.from);
+            long to = Math.max(from, segments.clampTo(this.segment, this.to));
+            return segments.year(this.segment).getCursor(from, to);
+        }
+
+
+        @Override
+        public boolean next() {
+            while (!this.cursor.next()) {
+                if (this.segment == this.last) {
+                    return false;
+                }
+                this.segment++;
+                this.cursor = this.open();
+            }
+            return true;
+        }
+
+
+        @Override
+        public long getStart() {
+            return this.cursor.getStart();
+        }
+
+
+        @Override
+        public long getEnd() {
+            return this.cursor.getEnd();
+        }
+
+
+        @Override
+        public String getType() {
+            return this.cursor.getType();
+        }
+
+
+        @Override
+        public String getName() {
+            return this.cursor.getName();
+        }
+
+
+        @Override
+        public boolean isLast() {
+            return this.cursor.isLast();
+        }
+
+
+        @Override
+        public boolean isCounted() {
+            return this.cursor.isCounted();
+        }
+
+
+        @Override
+        public SchoolPeriod getPeriod() {
+            return this.cursor.getPeriod();
+        }
+
+    }
+
+}
@@ -0,0 +1,280 @@
+package school;
+
+
+import time.UTCTime;
+import time.Duration;
+
+
+/**
+ * The state of the school schedule at a single instant.
+ *
+ * A snapshot holds the current period, the nearest counted periods on either side of it, and the
+ * time remaining and total time derived from them. All of these are found with a single search
+ * of the schedule by {@code SchoolAPI.snapshot}, rather than one search per value.
+ *
+ * The periods in a snapshot remain correct for any time up to and including the end of the
+ * current period ({@code getExpireTime}). The durations are computed for the time the snapshot
+ * was taken at.
+ *
+ * A {@code SchoolSnapshot} cannot be modified after it is constructed.
+ *
+ * @author Jonathan Uhler
+ */
+public final class SchoolSnapshot {
+
+    /** The time this snapshot was taken at. */
+    private final UTCTime time;
+    /** The period at {@code time}, or null if there is none. */
+    private final SchoolPeriod currentPeriod;
+    /** The last counted period at or before {@code currentPeriod}, or null if there is none. */
+    private final SchoolPeriod previousCountedPeriod;
+    /** The first counted period at or after {@code currentPeriod}, or null if there is none. */
+    private final SchoolPeriod nextCountedPeriod;
+    /** The time remaining, as defined by {@code SchoolAPI.getTimeRemaining}. */
+    private final Duration timeRemaining;
+    /** The total time, as defined by {@code SchoolAPI.getTotalTime}. */
+    private final Duration totalTime;
+    /** Index of the current period in the timeline it came from, or -1 if there is none. */
+    private final int index;
+
+
+    /**
+     * Constructs a new {@code SchoolSnapshot}. The time remaining and total time are derived from
+     * the provided periods.
+     *
+     * @param time                   the time the snapshot is taken at.
+     * @param currentPeriod          the period at {@code time}, or null if there is none.
+     * @param previousCountedPeriod  the last counted period at or before the current period, or
+     *                               null if there is none.
+     * @param nextCountedPeriod      the first counted period at or after the current period, or
+     *                               null if there is none.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    SchoolSnapshot(UTCTime time,
+                   SchoolPeriod currentPeriod,
+                   SchoolPeriod previousCountedPeriod,
+                   SchoolPeriod nextCountedPeriod)
+    {
+        this(time, currentPeriod, previousCountedPeriod, nextCountedPeriod, -1);
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolSnapshot} that records the position of the current period in
+     * a {@code SchoolTimeline}. The time remaining and total time are derived from the provided
+     * periods.
+     *
+     * @param time                   the time the snapshot is taken at.
+     * @param currentPeriod          the period at {@code time}, or null if there is none.
+     * @param previousCountedPeriod  the last counted period at or before the current period, or
+     *                               null if there is none.
+     * @param nextCountedPeriod      the first counted period at or after the current period, or
+     *                               null if there is none.
+     * @param index                  the index of the current period in its timeline, or -1 if
+     *                               the current period is not from a timeline.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    SchoolSnapshot(UTCTime time,
+                   SchoolPeriod currentPeriod,
+                   SchoolPeriod previousCountedPeriod,
+                   SchoolPeriod nextCountedPeriod,
+                   int index)
+    {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        this.time = time;
+        this.currentPeriod = currentPeriod;
+        this.previousCountedPeriod = previousCountedPeriod;
+        this.nextCountedPeriod = nextCountedPeriod;
+        this.index = index;
+
+        this.timeRemaining = this.getTimeRemainingAt(time);
+
+        if (currentPeriod == null || previousCountedPeriod == null || nextCountedPeriod == null) {
+            this.totalTime = null;
+        }
+        else if (currentPeriod.isCounted()) {
+            this.totalTime = new Duration(currentPeriod.getStart(), currentPeriod.getEnd());
+        }
+        else {
+            this.totalTime = new Duration(previousCountedPeriod.getEnd(),
+                                          nextCountedPeriod.getStart());
+        }
+    }
+
+
+    /**
+     * Returns a snapshot with the same periods as this snapshot, taken at a different time. The
+     * schedule is not searched again, so the time should satisfy {@code isValidAt}.
+     *
+     * @param time  the time of the new snapshot.
+     *
+     * @return a snapshot with the same periods as this snapshot, taken at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    SchoolSnapshot at(UTCTime time) {
+        return new SchoolSnapshot(time,
+                                  this.currentPeriod,
+                                  this.previousCountedPeriod,
+                                  this.nextCountedPeriod,
+                                  this.index);
+    }
+
+
+    /**
+     * Returns the time remaining at a different time, using the periods of this snapshot. The
+     * schedule is not searched again, so the time should satisfy {@code isValidAt}.
+     *
+     * @param time  the time that starts the remaining time.
+     *
+     * @return the time remaining at {@code time}, or {@code null} if it is not defined.
+     */
+    Duration getTimeRemainingAt(UTCTime time) {
+        if (this.currentPeriod == null || this.nextCountedPeriod == null) {
+            return null;
+        }
+        if (this.currentPeriod.isCounted()) {
+            return new Duration(time, this.currentPeriod.getEnd());
+        }
+        return new Duration(time, this.nextCountedPeriod.getStart());
+    }
+
+
+    /**
+     * Returns the index of the current period in the timeline it came from.
+     *
+     * @return the index of the current period, or -1 if the current period is not from a
+     *         timeline.
+     */
+    int getIndex() {
+        return this.index;
+    }
+
+
+    /**
+     * Returns the time this snapshot was taken at.
+     *
+     * @return the time this snapshot was taken at.
+     */
+    public UTCTime getTime() {
+        return this.time;
+    }
+
+
+    /**
+     * Returns the period at the time of this snapshot.
+     *
+     * @return the current period, or {@code null} if there is none.
+     *
+     * @see SchoolAPI#getCurrentPeriod
+     */
+    public SchoolPeriod getCurrentPeriod() {
+        return this.currentPeriod;
+    }
+
+
+    /**
+     * Returns the last counted period at or before the current period.
+     *
+     * @return the previous counted period, or {@code null} if there is none.
+     *
+     * @see SchoolAPI#getPreviousCountedPeriod
+     */
+    public SchoolPeriod getPreviousCountedPeriod() {
+        return this.previousCountedPeriod;
+    }
+
+
+    /**
+     * Returns the first counted period at or after the current period.
+     *
+     * @return the next counted period, or {@code null} if there is none.
+     *
+     * @see SchoolAPI#getNextCountedPeriod
+     */
+    public SchoolPeriod getNextCountedPeriod() {
+        return this.nextCountedPeriod;
+    }
+
+
+    /**
+     * Returns the time remaining at the time of this snapshot.
+     *
+     * @return the time remaining, or {@code null} if it is not defined.
+     *
+     * @see SchoolAPI#getTimeRemaining
+     */
+    public Duration getTimeRemaining() {
+        return this.timeRemaining;
+    }
+
+
+    /**
+     * Returns the total time of the block that contains the time of this snapshot.
+     *
+     * @return the total time, or {@code null} if it is not defined.
+     *
+     * @see SchoolAPI#getTotalTime
+     */
+    public Duration getTotalTime() {
+        return this.totalTime;
+    }
+
+
+    /**
+     * Returns the last time at which the periods in this snapshot are correct. This is the end of
+     * the current period.
+     *
+     * @return the last time at which the periods in this snapshot are correct, or {@code null} if
+     *         there is no current period.
+     */
+    public UTCTime getExpireTime() {
+        if (this.currentPeriod == null) {
+            return null;
+        }
+        return this.currentPeriod.getEnd();
+    }
+
+
+    /**
+     * Returns whether the periods in this snapshot are correct at a different time. This is true
+     * if the time is within the current period.
+     *
+     * @param time  the time to check.
+     *
+     * @return whether the periods in this snapshot are correct at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    public boolean isValidAt(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+        if (this.currentPeriod == null) {
+            return false;
+        }
+
+        return !time.isBefore(this.currentPeriod.getStart()) &&
+            !time.isAfter(this.currentPeriod.getEnd());
+    }
+
+
+    /**
+     * Returns a string representation of this {@code SchoolSnapshot}.
+     *
+     * @return a string representation of this {@code SchoolSnapshot}.
+     */
+    @Override
+    public String toString() {
+        return "SchoolSnapshot[time=" + this.time + ", current=" + this.currentPeriod +
+            ", previousCounted=" + this.previousCountedPeriod +
+            ", nextCounted=" + this.nextCountedPeriod + ", timeRemaining=" + this.timeRemaining +
+            ", totalTime=" + this.totalTime + "]";
+    }
+
+}
@@ -0,0 +1,1154 @@
+package school;
+
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import time.UTCTime;
+
+
+/**
+ * Compiled, primitive representation of every period in a school year.
+ *
+ * Periods are stored in chronological order as parallel arrays: the start and end of each period
+ * as millisecond offsets from the unix epoch, and the type and name of each period as indices
+ * into a table of unique strings. Lookups by time are an iterative binary search over the start
+ * array, and {@code SchoolPeriod} objects are only created when a caller asks for one with
+ * {@code getPeriod(int)}.
+ *
+ * A {@code SchoolTimeline} cannot be modified after it is built.
+ *
+ * @author Jonathan Uhler
+ */
+public class SchoolTimeline {
+
+    /** Minimum number of times in a batch lookup before it is split across a fork-join pool. */
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+    /** Number of periods a batch lookup steps through linearly before it searches instead. */
+    private static final int MAX_LINEAR_STEPS = 8;
+
+    /** Start time, inclusive, of each period in epoch milliseconds. */
+    private final long[] starts;
+    /** End time, inclusive, of each period in epoch milliseconds. */
+    private final long[] ends;
+    /** Index into {@code types} for each period. */
+    private final int[] typeIds;
+    /** Index into {@code names} for each period. */
+    private final int[] nameIds;
+    /** Whether each period is the last period of its day (local time). */
+    private final boolean[] lasts;
+    /** Table of unique period types. */
+    private final String[] types;
+    /** Table of unique period names. */
+    private final String[] names;
+    /** Whether each entry in {@code types} is counted (e.g. is not {@code "Nothing"}). */
+    private final boolean[] countedTypes;
+    /** Index of the first counted period at or after each period, or -1 if there is none. */
+    private final int[] nextCounted;
+    /** Index of the last counted period at or before each period, or -1 if there is none. */
+    private final int[] prevCounted;
+    /** Counted milliseconds in every period before each index, and in every period at the end. */
+    private final long[] countedPrefix;
+    /** Index of each entry in {@code types}. */
+    private final Map<String, Integer> typeLookup;
+    /** Index of each entry in {@code names}. */
+    private final Map<String, Integer> nameLookup;
+    /** The periods of each type, with prefix sums of their length. */
+    private final OccurrenceIndex typeOccurrences;
+    /** The periods of each name, with prefix sums of their length. */
+    private final OccurrenceIndex nameOccurrences;
+
+
+    /**
+     * Constructs a new {@code SchoolTimeline} from the contents of a builder.
+     *
+     * @param builder  the builder to copy periods from.
+     */
+    private SchoolTimeline(Builder builder) {
+        this(Arrays.copyOf(builder.starts, builder.size),
+             Arrays.copyOf(builder.ends, builder.size),
+             Arrays.copyOf(builder.typeIds, builder.size),
+             Arrays.copyOf(builder.nameIds, builder.size),
+             Arrays.copyOf(builder.lasts, builder.size),
+             builder.types.toArray(new String[0]),
+             builder.names.toArray(new String[0]));
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolTimeline} that takes ownership of already compiled arrays.
+     * The arrays are not copied or validated, and must not be modified after this call.
+     *
+     * @param starts   the start time, inclusive, of each period in epoch milliseconds.
+     * @param ends     the end time, inclusive, of each period in epoch milliseconds.
+     * @param typeIds  the index into {@code types} for each period.
+     * @param nameIds  the index into {@code names} for each period.
+     * @param lasts    whether each period is the last period of its day.
+     * @param types    the table of unique period types.
+     * @param names    the table of unique period names.
+     */
+    SchoolTimeline(long[] starts,
+                   long[] ends,
+                   int[] typeIds,
+                   int[] nameIds,
+                   boolean[] lasts,
+                   String[] types,
+                   String[] names)
+    {
+        this.starts = starts;
+        this.ends = ends;
+        this.typeIds = typeIds;
+        this.nameIds = nameIds;
+        this.lasts = lasts;
+        this.types = types;
+        this.names = names;
+
+        this.countedTypes = new boolean[this.types.length];
+        for (int i = 0; i < this.types.length; i++) {
+            this.countedTypes[i] = !this.types[i].equals(SchoolJson.NOTHING);
+        }
+
+        // Jump tables for the nearest counted period in each direction, so that skipping a run
+        // of uncounted periods (e.g. a weekend or holiday) is a single lookup
+        int size = this.starts.length;
+        this.nextCounted = new int[size];
+        this.prevCounted = new int[size];
+        int next = -1;
+        for (int i = size - 1; i >= 0; i--) {
+            if (this.isCounted(i)) {
+                next = i;
+            }
+            this.nextCounted[i] = next;
+        }
+        int prev = -1;
+        for (int i = 0; i < size; i++) {
+            if (this.isCounted(i)) {
+                prev = i;
+            }
+            this.prevCounted[i] = prev;
+        }
+
+        // Prefix sums of counted time, so that the counted time between any two instants is
+        // the difference of two entries, adjusted for the periods that contain the instants
+        this.countedPrefix = new long[size + 1];
+        for (int i = 0; i < size; i++) {
+            long counted = this.isCounted(i) ? this.ends[i] - this.starts[i] + 1 : 0;
+            this.countedPrefix[i + 1] = this.countedPrefix[i] + counted;
+        }
+
+        // Inverted indices from each type and name to the periods that use it, so that the next
+        // occurrence of a period type, or the time spent in it, does not need a scan
+        this.typeLookup = SchoolTimeline.lookup(this.types);
+        this.nameLookup = SchoolTimeline.lookup(this.names);
+        this.typeOccurrences =
+            new OccurrenceIndex(this.typeIds, this.types.length, this.starts, this.ends);
+        this.nameOccurrences =
+            new OccurrenceIndex(this.nameIds, this.names.length, this.starts, this.ends);
+    }
+
+
+    /**
+     * Creates a map from each string in a table of unique strings to its index.
+     *
+     * @param table  the table of unique strings.
+     *
+     * @return a map from each string in {@code table} to its index.
+     */
+    private static Map<String, Integer> lookup(String[] table) {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < table.length; i++) {
+            indices.put(table[i], i);
+        }
+        return indices;
+    }
+
+
+    /**
+     * Returns the number of periods in this timeline.
+     *
+     * @return the number of periods in this timeline.
+     */
+    public int size() {
+        return this.starts.length;
+    }
+
+
+    /**
+     * Returns the index of the period such that {@code start <= epoch <= end}.
+     *
+     * @param epoch  the time to find a period for, in epoch milliseconds.
+     *
+     * @return the index of the period that occupies {@code epoch}, or {@code -1} if no such
+     *         period exists.
+     */
+    public int indexOf(long epoch) {
+        int index = this.floorIndexOf(epoch);
+        if (index == -1 || epoch > this.ends[index]) {
+            return -1;
+        }
+        return index;
+    }
+
+
+    /**
+     * Returns the index of the last period that starts at or before a time. Since periods are
+     * contiguous, this is the period that occupies the time or, for a time after the end of the
+     * timeline, the last period.
+     *
+     * @param epoch  the time to find a period for, in epoch milliseconds.
+     *
+     * @return the index of the last period that starts at or before {@code epoch}, or {@code -1}
+     *         if {@code epoch} is before the first period.
+     */
+    public int floorIndexOf(long epoch) {
+        int min = 0;
+        int max = this.starts.length - 1;
+
+        while (min <= max) {
+            int middle = (min + max) >>> 1;
+            if (this.starts[middle] <= epoch) {
+                min = middle + 1;
+            }
+            else {
+                max = middle - 1;
+            }
+        }
+        return max;
+    }
+
+
+    /**
+     * Returns the index of the first period that ends at or after a time. Since periods are
+     * contiguous, this is the period that occupies the time or, for a time before the start of
+     * the timeline, the first period.
+     *
+     * @param epoch  the time to find a period for, in epoch milliseconds.
+     *
+     * @return the index of the first period that ends at or after {@code epoch}, or {@code -1}
+     *         if {@code epoch} is after the last period.
+     */
+    public int ceilingIndexOf(long epoch) {
+        int index = this.floorIndexOf(epoch);
+        if (index == -1) {
+            return this.starts.length > 0 ? 0 : -1;
+        }
+        if (epoch > this.ends[index]) {
+            return index + 1 < this.starts.length ? index + 1 : -1;
+        }
+        return index;
+    }
+
+
+    /**
+     * Returns the amount of counted time in the range {@code [from, to)}. Counted time is time
+     * within a period whose type is not {@code "Nothing"}. Periods that overlap the range are
+     * only partially counted.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public long getCountedTime(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+        return this.getCountedTimeBefore(to) - this.getCountedTimeBefore(from);
+    }
+
+
+    /**
+     * Returns the amount of counted time before a time.
+     *
+     * @param epoch  the time, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in every period before {@code epoch}.
+     */
+    private long getCountedTimeBefore(long epoch) {
+        int index = this.floorIndexOf(epoch);
+        if (index == -1) {
+            return 0;
+        }
+
+        long counted = this.countedPrefix[index];
+        if (this.isCounted(index)) {
+            counted += Math.min(epoch, this.ends[index] + 1) - this.starts[index];
+        }
+        return counted;
+    }
+
+
+    /**
+     * Returns the index of the first period of a type at or after a period.
+     *
+     * @param type   the type of the period to find.
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the first period of type {@code type} at or after {@code index}, or
+     *         {@code -1} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code type} is null.
+     */
+    public int getNextOfType(String type, int index) {
+        return SchoolTimeline.next(this.typeOccurrences, this.typeLookup, "type", type, index);
+    }
+
+
+    /**
+     * Returns the index of the last period of a type at or before a period.
+     *
+     * @param type   the type of the period to find.
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the last period of type {@code type} at or before {@code index}, or
+     *         {@code -1} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code type} is null.
+     */
+    public int getPreviousOfType(String type, int index) {
+        return SchoolTimeline.previous(this.typeOccurrences, this.typeLookup, "type", type, index);
+    }
+
+
+    /**
+     * Returns the amount of time in periods of a type in the range {@code [from, to)}. Periods
+     * that overlap the range are only partially counted.
+     *
+     * @param type  the type of the periods to count.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods of type {@code type}.
+     *
+     * @throws NullPointerException      if {@code type} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public long getTimeOfType(String type, long from, long to) {
+        return this.getTime(this.typeOccurrences, this.typeLookup, "type", type, from, to);
+    }
+
+
+    /**
+     * Returns the index of the first period with a name at or after a period.
+     *
+     * @param name   the name of the period to find.
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the first period named {@code name} at or after {@code index}, or
+     *         {@code -1} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code name} is null.
+     */
+    public int getNextOfName(String name, int index) {
+        return SchoolTimeline.next(this.nameOccurrences, this.nameLookup, "name", name, index);
+    }
+
+
+    /**
+     * Returns the index of the last period with a name at or before a period.
+     *
+     * @param name   the name of the period to find.
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the last period named {@code name} at or before {@code index}, or
+     *         {@code -1} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code name} is null.
+     */
+    public int getPreviousOfName(String name, int index) {
+        return SchoolTimeline.previous(this.nameOccurrences, this.nameLookup, "name", name, index);
+    }
+
+
+    /**
+     * Returns the amount of time in periods with a name in the range {@code [from, to)}. Periods
+     * that overlap the range are only partially counted.
+     *
+     * @param name  the name of the periods to count.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods named {@code name}.
+     *
+     * @throws NullPointerException      if {@code name} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public long getTimeOfName(String name, long from, long to) {
+        return this.getTime(this.nameOccurrences, this.nameLookup, "name", name, from, to);
+    }
+
+
+    /**
+     * Returns the index of the first period at or after a period that uses a string.
+     *
+     * @param occurrences  the index of the periods that use each string.
+     * @param lookup       a map from each string to its index in the string table.
+     * @param field        the name of the field the string is for, used in exceptions.
+     * @param value        the string to find.
+     * @param index        the index of the period to start from.
+     *
+     * @return the index of the first period at or after {@code index} that uses {@code value},
+     *         or {@code -1} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code value} is null.
+     */
+    private static int next(OccurrenceIndex occurrences,
+                            Map<String, Integer> lookup,
+                            String field,
+                            String value,
+                            int index)
+    {
+        if (value == null) {
+            throw new NullPointerException(field + " cannot be null");
+        }
+
+        Integer id = lookup.get(value);
+        return id == null ? -1 : occurrences.next(id, index);
+    }
+
+
+    /**
+     * Returns the index of the last period at or before a period that uses a string.
+     *
+     * @param occurrences  the index of the periods that use each string.
+     * @param lookup       a map from each string to its index in the string table.
+     * @param field        the name of the field the string is for, used in exceptions.
+     * @param value        the string to find.
+     * @param index        the index of the period to start from.
+     *
+     * @return the index of the last period at or before {@code index} that uses {@code value},
+     *         or {@code -1} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code value} is null.
+     */
+    private static int previous(OccurrenceIndex occurrences,
+                                Map<String, Integer> lookup,
+                                String field,
+                                String value,
+                                int index)
+    {
+        if (value == null) {
+            throw new NullPointerException(field + " cannot be null");
+        }
+
+        Integer id = lookup.get(value);
+        return id == null ? -1 : occurrences.previous(id, index);
+    }
+
+
+    /**
+     * Returns the amount of time in periods that use a string in the range {@code [from, to)}.
+     *
+     * @param occurrences  the index of the periods that use each string.
+     * @param lookup       a map from each string to its index in the string table.
+     * @param field        the name of the field the string is for, used in exceptions.
+     * @param value        the string to count.
+     * @param from         the start of the range, inclusive, in epoch milliseconds.
+     * @param to           the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods that use {@code value}.
+     *
+     * @throws NullPointerException      if {@code value} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    private long getTime(OccurrenceIndex occurrences,
+                         Map<String, Integer> lookup,
+                         String field,
+                         String value,
+                         long from,
+                         long to)
+    {
+        if (value == null) {
+            throw new NullPointerException(field + " cannot be null");
+        }
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+
+        Integer id = lookup.get(value);
+        if (id == null) {
+            return 0;
+        }
+        return occurrences.timeBefore(id, this.floorIndexOf(to), to) -
+            occurrences.timeBefore(id, this.floorIndexOf(from), from);
+    }
+
+
+    /**
+     * Finds the period that occupies each of many times. The result for each time is the same as
+     * {@code indexOf(long)}.
+     *
+     * Each lookup starts from the period found for the previous time. If the times are sorted,
+     * the lookup is a linear merge of the times with the periods; a time earlier than the one
+     * before it, or far after it, is found with a binary search instead.
+     *
+     * @param epochs   the times to find periods for, in epoch milliseconds.
+     * @param indices  the array to store the index of the period that occupies each time in, or
+     *                 {@code -1} if no period occupies the time. Must be at least as long as
+     *                 {@code epochs}.
+     *
+     * @throws NullPointerException      if {@code epochs} or {@code indices} is null.
+     * @throws IllegalArgumentException  if {@code indices} is shorter than {@code epochs}.
+     */
+    public void indexOf(long[] epochs, int[] indices) {
+        this.checkBatch(epochs, indices);
+        this.indexOf(epochs, indices, 0, epochs.length);
+    }
+
+
+    /**
+     * Finds the period that occupies each of many times, splitting the work across a fork-join
+     * pool if there are at least {@code PARALLEL_THRESHOLD} times. The result for each time is the
+     * same as {@code indexOf(long)}.
+     *
+     * @param epochs   the times to find periods for, in epoch milliseconds.
+     * @param indices  the array to store the index of the period that occupies each time in, or
+     *                 {@code -1} if no period occupies the time. Must be at least as long as
+     *                 {@code epochs}.
+     * @param pool     the pool to run the lookup in.
+     *
+     * @throws NullPointerException      if {@code epochs}, {@code indices}, or {@code pool} is
+     *                                   null.
+     * @throws IllegalArgumentException  if {@code indices} is shorter than {@code epochs}.
+     *
+     * @see #indexOf(long[], int[])
+     */
+    public void indexOf(long[] epochs, int[] indices, ForkJoinPool pool) {
+        if (pool == null) {
+            throw new NullPointerException("pool cannot be null");
+        }
+        this.checkBatch(epochs, indices);
+
+        if (epochs.length < SchoolTimeline.PARALLEL_THRESHOLD) {
+            this.indexOf(epochs, indices, 0, epochs.length);
+        }
+        else {
+            pool.invoke(new BatchLookup(this, epochs, indices, 0, epochs.length));
+        }
+    }
+
+
+    /**
+     * Checks the arguments of a batch lookup.
+     *
+     * @param epochs   the times to find periods for.
+     * @param indices  the array to store period indices in.
+     *
+     * @throws NullPointerException      if {@code epochs} or {@code indices} is null.
+     * @throws IllegalArgumentException  if {@code indices} is shorter than {@code epochs}.
+     */
+    private void checkBatch(long[] epochs, int[] indices) {
+        if (epochs == null) {
+            throw new NullPointerException("epochs cannot be null");
+        }
+        if (indices == null) {
+            throw new NullPointerException("indices cannot be null");
+        }
+        if (indices.length < epochs.length) {
+            throw new IllegalArgumentException("indices is shorter than epochs: " +
+                                               indices.length + " < " + epochs.length);
+        }
+    }
+
+
+    /**
+     * Finds the period that occupies each time in a range of a batch lookup.
+     *
+     * @param epochs   the times to find periods for.
+     * @param indices  the array to store period indices in.
+     * @param from     the first index in {@code epochs} to look up, inclusive.
+     * @param to       the last index in {@code epochs} to look up, exclusive.
+     */
+    private void indexOf(long[] epochs, int[] indices, int from, int to) {
+        int size = this.starts.length;
+        int floor = -1;
+        long previous = Long.MIN_VALUE;
+
+        for (int i = from; i < to; i++) {
+            long epoch = epochs[i];
+            if (epoch < previous) {
+                floor = this.floorIndexOf(epoch);
+            }
+            else {
+                int steps = 0;
+                while (floor + 1 < size && this.starts[floor + 1] <= epoch &&
+                       steps < SchoolTimeline.MAX_LINEAR_STEPS)
+                {
+                    floor++;
+                    steps++;
+                }
+                if (floor + 1 < size && this.starts[floor + 1] <= epoch) {
+                    floor = this.floorIndexOf(epoch);
+                }
+            }
+            previous = epoch;
+
+            indices[i] = (floor == -1 || epoch > this.ends[floor]) ? -1 : floor;
+        }
+    }
+
+
+    /**
+     * Returns a cursor that walks every period that overlaps the range {@code [from, to)}.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return a cursor over the periods that overlap the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    public SchoolCursor cursor(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("to cannot be before from: " + from + ", " + to);
+        }
+
+        if (from == to) {
+            return new TimelineCursor(this, 0, -1);
+        }
+        int first = this.ceilingIndexOf(from);
+        int last = this.floorIndexOf(to - 1);
+        if (first == -1) {
+            return new TimelineCursor(this, 0, -1);
+        }
+        return new TimelineCursor(this, first, last);
+    }
+
+
+    /**
+     * Returns the start time, inclusive, of a period in epoch milliseconds.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the start time of the period.
+     */
+    public long getStart(int index) {
+        return this.starts[index];
+    }
+
+
+    /**
+     * Returns the end time, inclusive, of a period in epoch milliseconds.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the end time of the period.
+     */
+    public long getEnd(int index) {
+        return this.ends[index];
+    }
+
+
+    /**
+     * Returns the type of a period.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the type of the period.
+     */
+    public String getType(int index) {
+        return this.types[this.typeIds[index]];
+    }
+
+
+    /**
+     * Returns the name of a period.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the name of the period.
+     */
+    public String getName(int index) {
+        return this.names[this.nameIds[index]];
+    }
+
+
+    /**
+     * Returns whether a period is the last in its day (local time).
+     *
+     * @param index  the index of the period.
+     *
+     * @return whether the period is the last in its day.
+     */
+    public boolean isLast(int index) {
+        return this.lasts[index];
+    }
+
+
+    /**
+     * Returns whether a period is counted. A "counted" period is one whose type is not
+     * {@code "Nothing"}.
+     *
+     * @param index  the index of the period.
+     *
+     * @return whether the period is counted.
+     */
+    public boolean isCounted(int index) {
+        return this.countedTypes[this.typeIds[index]];
+    }
+
+
+    /**
+     * Returns the index of the first counted period at or after a period.
+     *
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the first counted period at or after {@code index}, or {@code -1} if
+     *         no such period exists.
+     */
+    public int getNextCounted(int index) {
+        return this.nextCounted[index];
+    }
+
+
+    /**
+     * Returns the index of the last counted period at or before a period.
+     *
+     * @param index  the index of the period to start from.
+     *
+     * @return the index of the last counted period at or before {@code index}, or {@code -1} if
+     *         no such period exists.
+     */
+    public int getPreviousCounted(int index) {
+        return this.prevCounted[index];
+    }
+
+
+    /**
+     * Returns the index of the type of a period in the table of unique types.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the index of the type of the period.
+     */
+    int getTypeId(int index) {
+        return this.typeIds[index];
+    }
+
+
+    /**
+     * Returns the index of the name of a period in the table of unique names.
+     *
+     * @param index  the index of the period.
+     *
+     * @return the index of the name of the period.
+     */
+    int getNameId(int index) {
+        return this.nameIds[index];
+    }
+
+
+    /**
+     * Returns a copy of the table of unique period types.
+     *
+     * @return a copy of the table of unique period types.
+     */
+    String[] getTypeTable() {
+        return this.types.clone();
+    }
+
+
+    /**
+     * Returns a copy of the table of unique period names.
+     *
+     * @return a copy of the table of unique period names.
+     */
+    String[] getNameTable() {
+        return this.names.clone();
+    }
+
+
+    /**
+     * Creates a {@code SchoolPeriod} view of a period in this timeline.
+     *
+     * @param index  the index of the period.
+     *
+     * @return a {@code SchoolPeriod} object for the period at {@code index}.
+     *
+     * @throws IndexOutOfBoundsException  if {@code index} is not a valid period index.
+     */
+    public SchoolPeriod getPeriod(int index) {
+        if (index < 0 || index >= this.starts.length) {
+            throw new IndexOutOfBoundsException("invalid period index: " + index);
+        }
+
+        return new SchoolPeriod(this.getType(index),
+                                this.getName(index),
+                                UTCTime.ofEpoch(this.starts[index]),
+                                UTCTime.ofEpoch(this.ends[index]),
+                                this.lasts[index]);
+    }
+
+
+    /**
+     * Cursor over a contiguous range of indices in a timeline.
+     */
+    private static class TimelineCursor implements SchoolCursor {
+
+        private final SchoolTimeline timeline;
+        private final int first;
+        private final int last;
+        private int index;
+
+
+        /**
+         * Constructs a new {@code TimelineCursor} positioned before its first period.
+         *
+         * @param timeline  the timeline to walk.
+         * @param first     the index of the first period to walk.
+         * @param last      the index of the last period to walk, or less than {@code first} if
+         *                  the cursor has no periods.
+         */
+        TimelineCursor(SchoolTimeline timeline, int first, int last) {
+            this.timeline = timeline;
+            this.first = first;
+            this.last = last;
+            this.index = first - 1;
+        }
+
+
+        @Override
+        public boolean next() {
+            if (this.index > this.last) {
+                return false;
+            }
+            this.index++;
+            return this.index <= this.last;
+        }
+
+
+        /**
+         * Checks that this cursor is on a period.
+         *
+         * @throws IllegalStateException  if this cursor is not on a period.
+         */
+        private void checkPeriod() {
+            if (this.index < this.first || this.index > this.last) {
+                throw new IllegalStateException("cursor is not on a period");
+            }
+        }
+
+
+        @Override
+        public long getStart() {
+            this.checkPeriod();
+            return this.timeline.getStart(this.index);
+        }
+
+
+        @Override
+        public long getEnd() {
+            this.checkPeriod();
+            return this.timeline.getEnd(this.index);
+        }
+
+
+        @Override
+        public String getType() {
+            this.checkPeriod();
+            return this.timeline.getType(this.index);
+        }
+
+
+        @Override
+        public String getName() {
+            this.checkPeriod();
+            return this.timeline.getName(this.index);
+        }
+
+
+        @Override
+        public boolean isLast() {
+            this.checkPeriod();
+            return this.timeline.isLast(this.index);
+        }
+
+
+        @Override
+        public boolean isCounted() {
+            this.checkPeriod();
+            return this.timeline.isCounted(this.index);
+        }
+
+
+        @Override
+        public SchoolPeriod getPeriod() {
+            this.checkPeriod();
+            return this.timeline.getPeriod(this.index);
+        }
+
+    }
+
+
+    /**
+     * Fork-join task that splits a batch lookup in half until each part is smaller than
+     * {@code PARALLEL_THRESHOLD}.
+     */
+    private static class BatchLookup extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SchoolTimeline timeline;
+        private final long[] epochs;
+        private final int[] indices;
+        private final int from;
+        private final int to;
+
+
+        /**
+         * Constructs a new {@code BatchLookup} for a range of a batch lookup.
+         *
+         * @param timeline  the timeline to find periods in.
+         * @param epochs    the times to find periods for.
+         * @param indices   the array to store period indices in.
+         * @param from      the first index in {@code epochs} to look up, inclusive.
+         * @param to        the last index in {@code epochs} to look up, exclusive.
+         */
+        BatchLookup(SchoolTimeline timeline, long[] epochs, int[] indices, int from, int to) {
+            this.timeline = timeline;
+            this.epochs = epochs;
+            this.indices = indices;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from < SchoolTimeline.PARALLEL_THRESHOLD) {
+                this.timeline.indexOf(this.epochs, this.indices, this.from, this.to);
+                return;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            RecursiveAction.invokeAll(new BatchLookup(this.timeline, this.epochs, this.indices,
+                                                      this.from, middle),
+                                      new BatchLookup(this.timeline, this.epochs, this.indices,
+                                                      middle, this.to));
+        }
+
+    }
+
+
+    /**
+     * Accumulates periods in chronological order to build a {@code SchoolTimeline}.
+     */
+    static class Builder {
+
+        private long[] starts;
+        private long[] ends;
+        private int[] typeIds;
+        private int[] nameIds;
+        private boolean[] lasts;
+        private int size;
+
+        private List<String> types;
+        private List<String> names;
+        private Map<String, Integer> typeIndices;
+        private Map<String, Integer> nameIndices;
+
+
+        /**
+         * Constructs a new, empty {@code Builder}.
+         */
+        Builder() {
+            int capacity = 64;
+            this.starts = new long[capacity];
+            this.ends = new long[capacity];
+            this.typeIds = new int[capacity];
+            this.nameIds = new int[capacity];
+            this.lasts = new boolean[capacity];
+            this.size = 0;
+
+            this.types = new ArrayList<>();
+            this.names = new ArrayList<>();
+            this.typeIndices = new HashMap<>();
+            this.nameIndices = new HashMap<>();
+        }
+
+
+        /**
+         * Returns the index of a string in a table of unique strings, adding it if needed.
+         *
+         * @param value    the string to find.
+         * @param table    the list of unique strings.
+         * @param indices  a map from each string in {@code table} to its index.
+         *
+         * @return the index of {@code value} in {@code table}.
+         */
+        private static int intern(String value, List<String> table, Map<String, Integer> indices) {
+            Integer index = indices.get(value);
+            if (index == null) {
+                index = table.size();
+                table.add(value);
+                indices.put(value, index);
+            }
+            return index;
+        }
+
+
+        /**
+         * Appends a period to the end of the timeline being built. The same checks that the
+         * {@code SchoolPeriod} constructor performs are applied here.
+         *
+         * @param type    the type of the period.
+         * @param name    the name of the period.
+         * @param start   the start time, inclusive, of the period in epoch milliseconds.
+         * @param end     the end time, inclusive, of the period in epoch milliseconds.
+         * @param isLast  whether this period is the last in its containing day (local time).
+         *
+         * @throws NullPointerException      if {@code type} or {@code name} is null.
+         * @throws IllegalArgumentException  if {@code start} is after {@code end}.
+         * @throws IllegalArgumentException  if {@code type} is not {@code "Nothing"},
+         *                                   {@code "Special"}, or an integer.
+         *
+         * @see SchoolPeriod
+         */
+        void add(String type, String name, long start, long end, boolean isLast) {
+            if (type == null) {
+                throw new NullPointerException("type cannot be null");
+            }
+            if (name == null) {
+                throw new NullPointerException("name cannot be null");
+            }
+            if (start > end) {
+                throw new IllegalArgumentException("start cannot be after end");
+            }
+            if (!type.equals(SchoolJson.NOTHING) && !type.equals(SchoolJson.SPECIAL)) {
+                try {
+                    Integer.parseInt(type);
+                }
+                catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid type for SchoolPeriod: " + type);
+                }
+            }
+
+            this.add(this.internType(type), this.internName(name), start, end, isLast);
+        }
+
+
+        /**
+         * Returns the id of a period type in this builder, adding the type if needed. The id can
+         * be passed to {@code add(int, int, long, long, boolean)}.
+         *
+         * @param type  the period type.
+         *
+         * @return the id of {@code type}.
+         */
+        int internType(String type) {
+            return Builder.intern(type, this.types, this.typeIndices);
+        }
+
+
+        /**
+         * Returns the id of a period name in this builder, adding the name if needed. The id can
+         * be passed to {@code add(int, int, long, long, boolean)}.
+         *
+         * @param name  the period name.
+         *
+         * @return the id of {@code name}.
+         */
+        int internName(String name) {
+            return Builder.intern(name, this.names, this.nameIndices);
+        }
+
+
+        /**
+         * Appends a period whose type and name were already interned with {@code internType} and
+         * {@code internName}. The type must already have been validated.
+         *
+         * @param typeId  the id of the period type.
+         * @param nameId  the id of the period name.
+         * @param start   the start time, inclusive, in epoch milliseconds.
+         * @param end     the end time, inclusive, in epoch milliseconds.
+         * @param isLast  whether the period is the last in its day.
+         *
+         * @throws IllegalArgumentException  if {@code start} is after {@code end}.
+         */
+        void add(int typeId, int nameId, long start, long end, boolean isLast) {
+            if (start > end) {
+                throw new IllegalArgumentException("start cannot be after end");
+            }
+
+            this.ensureCapacity(this.size + 1);
+
+            this.starts[this.size] = start;
+            this.ends[this.size] = end;
+            this.typeIds[this.size] = typeId;
+            this.nameIds[this.size] = nameId;
+            this.lasts[this.size] = isLast;
+            this.size++;
+        }
+
+
+        /**
+         * Grows the arrays of this builder to hold at least a number of periods.
+         *
+         * @param capacity  the number of periods the arrays must hold.
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity <= this.starts.length) {
+                return;
+            }
+
+            capacity = Math.max(capacity, this.starts.length * 2);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+            this.typeIds = Arrays.copyOf(this.typeIds, capacity);
+            this.nameIds = Arrays.copyOf(this.nameIds, capacity);
+            this.lasts = Arrays.copyOf(this.lasts, capacity);
+        }
+
+
+        /**
+         * Returns the start time of a period added so far.
+         *
+         * @param index  the index of the period.
+         *
+         * @return the start time of the period in epoch milliseconds.
+         */
+        long getStart(int index) {
+            return this.starts[index];
+        }
+
+
+        /**
+         * Returns the end time of a period added so far.
+         *
+         * @param index  the index of the period.
+         *
+         * @return the end time of the period in epoch milliseconds.
+         */
+        long getEnd(int index) {
+            return this.ends[index];
+        }
+
+
+        /**
+         * Returns the number of periods added so far.
+         *
+         * @return the number of periods added so far.
+         */
+        int size() {
+            return this.size;
+        }
+
+
+        /**
+         * Creates an immutable {@code SchoolTimeline} with every period added so far.
+         *
+         * @return an immutable {@code SchoolTimeline}.
+         */
+        SchoolTimeline build() {
+            return new SchoolTimeline(this);
+        }
+
+    }
+
+}
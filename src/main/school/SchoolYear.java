@@ -1,23 +1,20 @@
 package school;
 
 
-import java.util.List;
-import java.util.ArrayList;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import time.Interval;
 import time.UTCTime;
 import time.Duration;
 import os.OSPath;
-import user.UserJson;
 
 
 /**
@@ -25,16 +22,26 @@ import user.UserJson;
  *
  * @author Jonathan Uhler
  */
-public class SchoolYear {
-
-    private SchoolJson schoolJson;
-    private List<SchoolPeriod> year;
-    private Map<String, SchoolPeriod> periodTypes;
-    private int firstPeriod;
-    private int lastPeriod;
-    private String firstDayTag;
-    private String lastDayTag;
-    private String timezone;
+public class SchoolYear implements SchoolSchedule {
+
+    /** The compiled timeline of every period in the year. */
+    private final SchoolTimeline year;
+    /** The first period number possible. */
+    private final int firstPeriod;
+    /** The last period number possible. */
+    private final int lastPeriod;
+    /** The unix TZ identifier for the school. */
+    private final String timezone;
+    /** The timezone of the school, or null if not compiled from json. */
+    private final ZoneId zone;
+    /** Local date of the sunday that starts the first week, or null if not compiled from json. */
+    private final LocalDate firstDate;
+    /** The type of each week, or null if the year was not compiled from json. */
+    private final ExceptionIndex exceptions;
+    /** Compiled day types of each week type, or null if the year was not compiled from json. */
+    private final Map<String, DayTemplate[]> weeks;
+    /** Number of weeks in the year. */
+    private final int numWeeks;
     
     
     /**
@@ -50,313 +57,530 @@ public class SchoolYear {
      * @throws IllegalArgumentException  if any parse error occurs from the provided path.
      */
     public SchoolYear(Path path) throws FileNotFoundException {
-        this.year = new ArrayList<>();
-        this.periodTypes = new HashMap<>();
+        this(new SchoolJsonCompiler(SchoolYear.readSchoolFile(path)));
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolYear} object from a {@code SchoolJson} object.
+     *
+     * @param json  the {@code SchoolJson} object containing school data.
+     *
+     * @throws IllegalArgumentException  if any parse error occurs from the provided json data.
+     */
+    public SchoolYear(SchoolJson json) {
+        this(new SchoolInfo(json.info), json);
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolYear} object from school json data whose "Info" section has
+     * already been parsed.
+     *
+     * @param info  the parsed "Info" section of the school json data.
+     * @param json  the school json data.
+     *
+     * @throws IllegalArgumentException  if any parse error occurs from the provided json data.
+     */
+    private SchoolYear(SchoolInfo info, SchoolJson json) {
+        this(info,
+             SchoolYear.compileExceptions(json, info),
+             DayTemplate.compileWeeks(json, info.getFirstPeriod(), info.getLastPeriod()));
+    }
 
-        // Load school json file
-        InputStreamReader schoolReader;
+
+    /**
+     * Constructs a new {@code SchoolYear} object from the content of a school json file that was
+     * read directly into its compiled form.
+     *
+     * @param compiler  the content of the school json file.
+     *
+     * @throws IllegalArgumentException  if any parse error occurs from the provided content.
+     *
+     * @see SchoolJsonCompiler
+     */
+    SchoolYear(SchoolJsonCompiler compiler) {
+        this(new SchoolInfo(compiler.getInfo()), compiler);
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolYear} object from the content of a school json file whose
+     * "Info" section has already been parsed.
+     *
+     * @param info      the parsed "Info" section of the school json file.
+     * @param compiler  the content of the school json file.
+     *
+     * @throws IllegalArgumentException  if any parse error occurs from the provided content.
+     */
+    private SchoolYear(SchoolInfo info, SchoolJsonCompiler compiler) {
+        this(info,
+             compiler.compileExceptions(info.getTimezone()),
+             compiler.compileWeeks(info.getFirstPeriod(), info.getLastPeriod()));
+    }
+
+
+    /**
+     * Constructs a new {@code SchoolYear} object from its compiled week exceptions and day
+     * types. Every field other than the periods is set before the periods are created.
+     *
+     * @param info        the parsed "Info" section of the school json data.
+     * @param exceptions  the type of each week.
+     * @param weeks       the compiled day types of each week type.
+     *
+     * @throws IllegalArgumentException  if any check fails while the periods are created.
+     */
+    private SchoolYear(SchoolInfo info,
+                       ExceptionIndex exceptions,
+                       Map<String, DayTemplate[]> weeks)
+    {
+        this.firstPeriod = info.getFirstPeriod();
+        this.lastPeriod = info.getLastPeriod();
+        this.timezone = info.getTimezone();
+        this.zone = info.getZone();
+        this.firstDate = info.getFirstDate();
+        this.numWeeks = info.getNumWeeks();
+        this.exceptions = exceptions;
+        this.weeks = weeks;
+        this.year = this.expandWeeks();
+    }
+    
+    
+    /**
+     * Constructs a new {@code SchoolYear} object from an already compiled timeline.
+     *
+     * @param year         the compiled timeline of every period in the year.
+     * @param firstPeriod  the first period number possible.
+     * @param lastPeriod   the last period number possible.
+     * @param timezone     the unix TZ identifier for the school.
+     */
+    SchoolYear(SchoolTimeline year, int firstPeriod, int lastPeriod, String timezone) {
+        this.year = year;
+        this.firstPeriod = firstPeriod;
+        this.lastPeriod = lastPeriod;
+        this.timezone = timezone;
+        this.zone = null;
+        this.firstDate = null;
+        this.exceptions = null;
+        this.weeks = null;
+        this.numWeeks = 0;
+    }
+
+
+    /**
+     * Reads the raw content of a school json file.
+     *
+     * @param path  a {@code Path} object that points to the school json file. If the path
+     *              starts with {@code OSPath.getSchoolJsonJarPath}, the path is assumed to
+     *              reference a json file packaged with the Period Countdown jar file, otherwise
+     *              it is assumed to be a path on the disk.
+     *
+     * @return the content of the school json file.
+     *
+     * @throws FileNotFoundException     if the json file does not exist.
+     * @throws IllegalArgumentException  if the json file cannot be read.
+     */
+    static byte[] readSchoolFile(Path path) throws FileNotFoundException {
+        InputStream schoolStream;
         if (OSPath.isInJar(path)) {
-            InputStream schoolStream = Thread.currentThread()
+            schoolStream = Thread.currentThread()
                 .getContextClassLoader()
                 .getResourceAsStream(path.toString());
             if (schoolStream == null) {
                 throw new FileNotFoundException("jar resource \"" + path + "\" is null");
             }
-            schoolReader = new InputStreamReader(schoolStream);
         }
         else {
             if (!Files.exists(path)) {
                 throw new FileNotFoundException("no school data file set");
             }
-            schoolReader = new InputStreamReader(new FileInputStream(path.toString()));
-        }
-        
-        // Parse school json file
-        Gson gson = new Gson();
-        try {
-            this.schoolJson = gson.fromJson(schoolReader, SchoolJson.class);
+            schoolStream = new FileInputStream(path.toString());
         }
-        catch (JsonSyntaxException e) {
-            throw new IllegalArgumentException("json cannot be parsed: " + e);
+
+        try (InputStream stream = schoolStream) {
+            return stream.readAllBytes();
         }
-        if (this.schoolJson == null) {
-            throw new IllegalArgumentException("school data file is empty");
+        catch (IOException e) {
+            throw new IllegalArgumentException("school data file cannot be read: " + e);
         }
-        
-        // Initialize class information
-        this.initInfo();
-        this.initYear();
     }
 
 
     /**
-     * Constructs a new {@code SchoolYear} object from a {@code SchoolJson} object.
+     * Checks that the sections of the school json data that describe the weeks exist, and
+     * compiles the week exceptions. Every week exception is validated and resolved once, so that
+     * finding the type of each week while expanding is a single lookup.
      *
-     * @param json  the {@code SchoolJson} object containing school data.
+     * @param json  the school json data.
+     * @param info  the parsed "Info" section of the school json data.
      *
-     * @throws IllegalArgumentException  if any parse error occurs from the provided json data.
+     * @return the type of each week.
+     *
+     * @throws IllegalArgumentException  if any check fails.
      */
-    public SchoolYear(SchoolJson json) {
-        this.year = new ArrayList<>();
-        this.periodTypes = new HashMap<>();
-        this.schoolJson = json;
-        this.initInfo();
-        this.initYear();
+    private static ExceptionIndex compileExceptions(SchoolJson json, SchoolInfo info) {
+        if (json.days == null) {
+            throw new IllegalArgumentException("missing Days field in school json file");
+        }
+        if (json.weeks == null) {
+            throw new IllegalArgumentException("missing Weeks field in school json file");
+        }
+        if (json.exceptions == null) {
+            throw new IllegalArgumentException("missing Exceptions field in school json file");
+        }
+        return new ExceptionIndex(json.exceptions, json.weeks, info.getTimezone());
     }
-    
-    
+
+
     /**
-     * Initializes this class with the "Info" section of the school json file. Some basic checks
-     * are performed on this data.
+     * Expands every week of the year into periods. Every field other than the periods must be
+     * set.
+     *
+     * @return the compiled timeline of every period in the year.
      *
-     * @throws IllegalArgumentException  if any required key is missing.
-     * @throws IllegalArgumentException  if the first or last period is not an integer.
-     * @throws IllegalArgumentException  if FirstPeriod is greater than LastPeriod.
+     * @throws IllegalArgumentException  if any check fails.
      */
-    private void initInfo() {
-        if (this.schoolJson.info == null) {
-            throw new IllegalArgumentException("missing Info field in school json file");
+    private SchoolTimeline expandWeeks() {
+        SchoolTimeline.Builder builder = new SchoolTimeline.Builder();
+        // The type and name of each period are interned into the builder once per day type, and
+        // every occurrence of the period shares those entries
+        Map<DayTemplate, int[]> typeIds = new IdentityHashMap<>();
+        Map<DayTemplate, int[]> nameIds = new IdentityHashMap<>();
+        long previousEnd = 0;
+
+        for (int week = 0; week < this.numWeeks; week++) {
+            LocalDate sunday = this.firstDate.plusDays((long) week * Duration.DAYS_PER_WEEK);
+            DayTemplate[] days = this.getWeek(sunday);
+
+            for (int d = 0; d < days.length; d++) {
+                DayTemplate day = days[d];
+                LocalDate date = sunday.plusDays(d);
+                int[] dayTypeIds = typeIds.get(day);
+                int[] dayNameIds = nameIds.get(day);
+                if (dayTypeIds == null) {
+                    dayTypeIds = new int[day.size()];
+                    dayNameIds = new int[day.size()];
+                    for (int i = 0; i < day.size(); i++) {
+                        dayTypeIds[i] = builder.internType(day.getType(i));
+                        dayNameIds[i] = builder.internName(day.getName(i));
+                    }
+                    typeIds.put(day, dayTypeIds);
+                    nameIds.put(day, dayNameIds);
+                }
+
+                // The zone rules are applied once per day, and every boundary in the day is then
+                // resolved with plain arithmetic
+                DayOffsets offsets = DayOffsets.of(date, this.zone);
+                for (int i = 0; i < day.size(); i++) {
+                    long start = day.getStart(i, offsets);
+                    long end = day.getEnd(i, offsets);
+
+                    // Each period must start 1 ms after the previous period ends. Any larger
+                    // discontinuity is illegal.
+                    if (builder.size() > 0 && previousEnd + 1 != start) {
+                        throw new IllegalArgumentException("previous end + 1ms != next start: " +
+                                                           UTCTime.ofEpoch(previousEnd) + ", " +
+                                                           UTCTime.ofEpoch(start) +
+                                                           " for dayType=" + day.getDayType());
+                    }
+                    previousEnd = end;
+
+                    builder.add(dayTypeIds[i], dayNameIds[i], start, end, day.isLast(i));
+                }
+            }
         }
-        if (!this.schoolJson.info.containsKey(SchoolJson.FIRST_PERIOD)) {
-            throw new IllegalArgumentException("missing " + SchoolJson.FIRST_PERIOD + " in Info");
+
+        return builder.build();
+    }
+
+
+    /**
+     * Returns the compiled day types of the week that starts on a sunday.
+     *
+     * @param sunday  the local date of the sunday that starts the week.
+     *
+     * @return the compiled day types of the 7 days of the week.
+     */
+    private DayTemplate[] getWeek(LocalDate sunday) {
+        return this.weeks.get(this.exceptions.getWeekType(ExceptionIndex.weekKey(sunday)));
+    }
+
+
+    /**
+     * Gets a period from the year structure at a given time such that {@code start <= time <= end}.
+     *
+     * If no such period exists, {@code null} is returned.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period which occurs during the provided time.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
         }
-        if (!this.schoolJson.info.containsKey(SchoolJson.LAST_PERIOD)) {
-            throw new IllegalArgumentException("missing " + SchoolJson.LAST_PERIOD + " in Info");
+	
+        int index = this.year.indexOf(time.getEpoch());
+        if (index == -1) {
+            return null;
         }
-        if (!this.schoolJson.info.containsKey(SchoolJson.FIRST_DAY_TAG)) {
-            throw new IllegalArgumentException("missing " + SchoolJson.FIRST_DAY_TAG + " in Info");
+        return this.year.getPeriod(index);
+    }
+
+
+    /**
+     * Gets the period at each of many times. The result for each time is the same as
+     * {@code getPeriod}. The periods are found with {@code SchoolTimeline::indexOf(long[], int[])},
+     * which steps forward from the period of the time before when the times are sorted.
+     *
+     * @param epochs   the times to get periods for, in epoch milliseconds.
+     * @param periods  the array to store the period at each time in, or {@code null} if no period
+     *                 occurs at the time. Must be at least as long as {@code epochs}.
+     *
+     * @throws NullPointerException      if {@code epochs} or {@code periods} is null.
+     * @throws IllegalArgumentException  if {@code periods} is shorter than {@code epochs}.
+     */
+    @Override
+    public void getPeriods(long[] epochs, SchoolPeriod[] periods) {
+        if (epochs == null) {
+            throw new NullPointerException("epochs cannot be null");
         }
-        if (!this.schoolJson.info.containsKey(SchoolJson.LAST_DAY_TAG)) {
-            throw new IllegalArgumentException("missing " + SchoolJson.LAST_DAY_TAG + " in Info");
+        if (periods == null) {
+            throw new NullPointerException("periods cannot be null");
         }
-        if (!this.schoolJson.info.containsKey(SchoolJson.TIMEZONE)) {
-            throw new IllegalArgumentException("missing " + SchoolJson.TIMEZONE + " in Info");
+        if (periods.length < epochs.length) {
+            throw new IllegalArgumentException("periods is shorter than epochs: " +
+                                               periods.length + " < " + epochs.length);
         }
-        
-        try {
-            this.firstPeriod = Integer.parseInt(this.schoolJson.info.get(SchoolJson.FIRST_PERIOD));
+
+        int[] indices = new int[epochs.length];
+        this.year.indexOf(epochs, indices);
+        for (int i = 0; i < epochs.length; i++) {
+            periods[i] = indices[i] == -1 ? null : this.year.getPeriod(indices[i]);
         }
-        catch (NumberFormatException e) {
-            throw new IllegalArgumentException("first period is not an integer");
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the first period after it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or after {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrAfter(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
         }
-        
-        try {
-            this.lastPeriod = Integer.parseInt(this.schoolJson.info.get(SchoolJson.LAST_PERIOD));
+
+        int index = this.year.ceilingIndexOf(time.getEpoch());
+        if (index == -1) {
+            return null;
         }
-        catch (NumberFormatException e) {
-            throw new IllegalArgumentException("last period is not an integer");
+        return this.year.getPeriod(index);
+    }
+
+
+    /**
+     * Gets the period that occurs during a given time or, if no period occurs during the time,
+     * the last period before it.
+     *
+     * @param time  the time to get a period for.
+     *
+     * @return the period at or before {@code time}, or {@code null} if no such period exists.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPeriodAtOrBefore(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
         }
-	
-        if (this.firstPeriod > this.lastPeriod) {
-            throw new IllegalArgumentException("first period > last period");
+
+        int index = this.year.floorIndexOf(time.getEpoch());
+        if (index == -1) {
+            return null;
         }
-	
-        this.firstDayTag = this.schoolJson.info.get(SchoolJson.FIRST_DAY_TAG);
-        this.lastDayTag = this.schoolJson.info.get(SchoolJson.LAST_DAY_TAG);
-        this.timezone = this.schoolJson.info.get(SchoolJson.TIMEZONE);
+        return this.year.getPeriod(index);
     }
 
-    
+
     /**
-     * Initializes all the periods of the year.
+     * Gets the first counted period at or after the period that occurs during a given time.
      *
-     * @throws IllegalArgumentException  if any check fails.
+     * If no period occurs during the provided time, or no counted period exists at or after that
+     * period, {@code null} is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the first counted period at or after the period at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
      */
-    private void initYear() {
-        if (this.schoolJson.days == null) {
-            throw new IllegalArgumentException("missing Days field in school json file");
+    @Override
+    public SchoolPeriod getNextCountedPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
         }
-        if (this.schoolJson.weeks == null) {
-            throw new IllegalArgumentException("missing Weeks field in school json file");
+
+        int index = this.year.indexOf(time.getEpoch());
+        if (index == -1 || this.year.getNextCounted(index) == -1) {
+            return null;
         }
-        if (this.schoolJson.exceptions == null) {
-            throw new IllegalArgumentException("missing Exceptions field in school json file");
+        return this.year.getPeriod(this.year.getNextCounted(index));
+    }
+
+
+    /**
+     * Gets the last counted period at or before the period that occurs during a given time.
+     *
+     * If no period occurs during the provided time, or no counted period exists at or before
+     * that period, {@code null} is returned.
+     *
+     * @param time  the time to start searching from.
+     *
+     * @return the last counted period at or before the period at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolPeriod getPreviousCountedPeriod(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
         }
-	
-        UTCTime firstDay = UTCTime.of(this.firstDayTag, this.timezone);
-        UTCTime lastDay = UTCTime.of(this.lastDayTag, this.timezone);
-        
-        UTCTime current = firstDay.shiftedToPrevious(UTCTime.SUNDAY);
-        UTCTime previousEndTime = null;
-        UTCTime end = lastDay.shiftedToNext(UTCTime.SATURDAY);
-        
-        while (current.isBefore(end)) {
-            // Determine the type of week for the week occupied by `current`. Start by assuming
-            // a DEFAULT week, and search for any week exception that overwrites that. This search
-            // will also validate the syntax and semantics of the week exceptions.
-            String weekTag = current.getWeekTag();
-            String weekType = SchoolJson.DEFAULT;
-            for (Map<String, String> exception : this.schoolJson.exceptions) {
-                if (!exception.containsKey(SchoolJson.TYPE)) {
-                    throw new IllegalArgumentException("exception missing " + SchoolJson.TYPE);
-                }
-                if (!exception.containsKey(SchoolJson.WEEK_TAG)) {
-                    throw new IllegalArgumentException("exception missing " + SchoolJson.WEEK_TAG);
-                }
-                
-                // At this point the exception structure is valid to index. Get the date tag of
-                // the exception being analyzed and determine if its week tag aligns with the week
-                // tag of the `current` time. If so, we have found the exception for this week.
-                String exceptionTag = exception.get(SchoolJson.WEEK_TAG);
-                String exceptionWeekTag = UTCTime.of(exceptionTag, this.timezone).getWeekTag();
-                if (weekTag.equals(exceptionWeekTag)) {
-                    weekType = exception.get(SchoolJson.TYPE);
-                    break;
-                }
-            }
-            
-            // At this point, we have either "DEFAULT" or the name of a special week type in the
-            // weekType variables. We want to search for that week type, then go through each of
-            // the day types in that week, and finally each of the period definitions for those
-            // days. This should create all the periods for a given week
-            if (!this.schoolJson.weeks.containsKey(weekType)) {
-                throw new IllegalArgumentException("missing defintion for week: " + weekType);
-            }
-            
-            List<String> dayTypes = this.schoolJson.weeks.get(weekType);
-            if (dayTypes.size() != Duration.DAYS_PER_WEEK) {
-                throw new IllegalArgumentException("week '" + weekType + "' does not have 7 days");
-            }
-            
-            for (String dayType : dayTypes) {
-                if (!this.schoolJson.days.containsKey(dayType)) {
-                    throw new IllegalArgumentException("missing definition for day: " + dayType);
-                }
-                
-                // Get the list of period definitions for this day. Then loop through each of the
-                // periods and create a SchoolPeriod object to add to the year
-                List<Map<String, String>> periodDefs = this.schoolJson.days.get(dayType);
-                if (periodDefs.size() == 0) {
-                    throw new IllegalArgumentException("day '" + dayType + "' has 0 periods");
-                }
-                
-                for (Map<String, String> periodDef : periodDefs) {
-                    if (!periodDef.containsKey(SchoolJson.TYPE)) {
-                        throw new IllegalArgumentException("period missing " + SchoolJson.TYPE);
-                    }
-                    if (!periodDef.containsKey(SchoolJson.NAME)) {
-                        throw new IllegalArgumentException("period missing " + SchoolJson.NAME);
-                    }
-                    if (!periodDef.containsKey(SchoolJson.START)) {
-                        throw new IllegalArgumentException("period missing " + SchoolJson.START);
-                    }
-                    if (!periodDef.containsKey(SchoolJson.END)) {
-                        throw new IllegalArgumentException("period missing " + SchoolJson.END);
-                    }
-                    
-                    String type = periodDef.get(SchoolJson.TYPE);
-                    String name = periodDef.get(SchoolJson.NAME);
-                    String startStr = periodDef.get(SchoolJson.START);
-                    String endStr = periodDef.get(SchoolJson.END);
-
-                    try {
-                        int academicType = Integer.parseInt(type);
-                        if (academicType < this.firstPeriod || academicType > this.lastPeriod) {
-                            throw new IllegalArgumentException("type " + type + " is out of range");
-                        }
-                    }
-                    catch (NumberFormatException e) { }
-                    
-                    // Convert the `current` time to the timezone specified by the json. Use the
-                    // day tag of that local object to create the local strings for the start/end.
-                    // Then construct UTCTime objects for the start/end in UTC.
-                    String startTimestamp = current.getDayTag() + "T" + startStr + ":00.000";
-                    UTCTime startTime = UTCTime.of(startTimestamp, this.timezone);
-                    UTCTime endTime = null;
-                    if (!endStr.equals(UserJson.LAST_TIME)) {
-                        String endTimestamp = current.getDayTag() + "T" + endStr + ":00.999";
-                        endTime = UTCTime.of(endTimestamp, this.timezone);
-                        endTime = endTime.plus(-1, UTCTime.SECONDS);
-                    }
-                    else {
-                        String endTimestamp = current.plus(1, UTCTime.DAYS).getDayTag();
-                        endTime = UTCTime.of(endTimestamp, this.timezone);
-                        endTime = endTime.plus(-1, UTCTime.MILLISECONDS);
-                    }
-                    
-                    // Add 1 ms to shift from **:**:59.999 to **:**:00.000, which should be the
-                    // start time of the current period. If that shift from the previous end time
-                    // does not yield the current period there is a discontinuity of >1 ms which
-                    // is illegal.
-                    if (previousEndTime != null &&
-                        !previousEndTime.plus(1, UTCTime.MILLISECONDS).equals(startTime))
-                    {
-                        throw new IllegalArgumentException("previous end + 1ms != next start: " +
-                                                           previousEndTime + ", " + startTime +
-                                                           " for dayType=" + dayType);
-                    }
-                    previousEndTime = endTime;
-                    
-                    SchoolPeriod addition = new SchoolPeriod(type, name,
-                                                             startTime, endTime,
-                                                             endStr.equals(UserJson.LAST_TIME));
-                    this.year.add(addition);
-                    this.periodTypes.put(type, addition);
-                }
-                
-                // Go to the next day
-                current = current.plus(1, UTCTime.DAYS);
-            }
+
+        int index = this.year.indexOf(time.getEpoch());
+        if (index == -1 || this.year.getPreviousCounted(index) == -1) {
+            return null;
         }
+        return this.year.getPeriod(this.year.getPreviousCounted(index));
     }
-    
-    
+
+
     /**
-     * Binary search implementation to find the period index that occupies the target time.
+     * Gets the first period of a type that occurs during or after a given time.
      *
-     * If a period at the provided time does not exist, -1 is returned.
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
      *
-     * @param time  the time to find a period for.
-     * @param min   the minimum index to search in the year list.
-     * @param max   the maximum index to search in the year list.
+     * @return the first period of type {@code type} that ends at or after {@code time}, or
+     *         {@code null} if no such period exists.
      *
-     * @return the index of the period such that {@code start <= time <= end} in the year list.
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
      */
-    private int periodSearch(UTCTime time, int min, int max) {
-        if (min > max) {
-            return -1;
-        }
-	
-        int middle = (min + max) / 2;
-        SchoolPeriod period = this.year.get(middle);
-        UTCTime start = period.getStart();
-        UTCTime end = period.getEnd();
-	
-        if (start.compareTo(time) <= 0 && time.compareTo(end) <= 0) {
-            return middle;
+    @Override
+    public SchoolPeriod getNextPeriodOfType(UTCTime time, String type) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
         }
-        else if (start.compareTo(time) > 0) {
-            return this.periodSearch(time, min, middle - 1);
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
         }
-        else {
-            return this.periodSearch(time, middle + 1, max);
+
+        int index = this.year.ceilingIndexOf(time.getEpoch());
+        if (index == -1) {
+            return null;
         }
+        index = this.year.getNextOfType(type, index);
+        return index == -1 ? null : this.year.getPeriod(index);
     }
-    
-    
+
+
     /**
-     * Gets a period from the year structure at a given time such that {@code start <= time <= end}.
-     *
-     * If no such period exists, {@code null} is returned.
+     * Gets the last period of a type that occurs during or before a given time.
      *
-     * @param time  the time to get a period for.
+     * @param time  the time to start searching from.
+     * @param type  the type of the period to find.
      *
-     * @return the period which occurs during the provided time.
+     * @return the last period of type {@code type} that starts at or before {@code time}, or
+     *         {@code null} if no such period exists.
      *
-     * @throws NullPointerException  if {@code time} is null.
+     * @throws NullPointerException  if {@code time} or {@code type} is null.
      */
-    public SchoolPeriod getPeriod(UTCTime time) {
+    @Override
+    public SchoolPeriod getPreviousPeriodOfType(UTCTime time, String type) {
         if (time == null) {
             throw new NullPointerException("time cannot be null");
         }
-	
-        int index = this.periodSearch(time, 0, this.year.size() - 1);
-        if (index == -1 || index >= this.year.size()) {
-            return null;
+        if (type == null) {
+            throw new NullPointerException("type cannot be null");
         }
-        else {
-            return this.year.get(index);
+
+        int index = this.year.floorIndexOf(time.getEpoch());
+        if (index == -1) {
+            return null;
         }
+        index = this.year.getPreviousOfType(type, index);
+        return index == -1 ? null : this.year.getPeriod(index);
+    }
+
+
+    /**
+     * Returns the amount of time in periods of a type in the range {@code [from, to)}.
+     *
+     * @param type  the type of the periods to count.
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of milliseconds in the range within periods of type {@code type}.
+     *
+     * @throws NullPointerException      if {@code type} is null.
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getTimeOfType(String type, long from, long to) {
+        return this.year.getTimeOfType(type, from, to);
+    }
+
+
+    /**
+     * Returns a cursor that walks every period that overlaps the range {@code [from, to)}.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return a cursor over the periods that overlap the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public SchoolCursor getCursor(long from, long to) {
+        return this.year.cursor(from, to);
+    }
+
+
+    /**
+     * Returns the amount of counted time in the range {@code [from, to)}. This is found from the
+     * prefix sums of the timeline in logarithmic time.
+     *
+     * @param from  the start of the range, inclusive, in epoch milliseconds.
+     * @param to    the end of the range, exclusive, in epoch milliseconds.
+     *
+     * @return the number of counted milliseconds in the range.
+     *
+     * @throws IllegalArgumentException  if {@code to} is before {@code from}.
+     */
+    @Override
+    public long getCountedTime(long from, long to) {
+        return this.year.getCountedTime(from, to);
+    }
+
+
+    /**
+     * Returns the compiled timeline of every period in the year.
+     *
+     * @return the compiled timeline of every period in the year.
+     */
+    @Override
+    public SchoolTimeline getTimeline() {
+        return this.year;
     }
     
     
@@ -365,6 +589,7 @@ public class SchoolYear {
      *
      * @return the unix TZ identifier for the school.
      */
+    @Override
     public String getTimezone() {
         return this.timezone;
     }
@@ -375,6 +600,7 @@ public class SchoolYear {
      *
      * @return the first period number possible.
      */
+    @Override
     public int getFirstPeriod() {
         return this.firstPeriod;
     }
@@ -385,11 +611,95 @@ public class SchoolYear {
      *
      * @return the last period number possible.
      */
+    @Override
     public int getLastPeriod() {
         return this.lastPeriod;
     }
 
 
+    /**
+     * Takes a snapshot of the schedule at a given time with a single search.
+     *
+     * If no period occurs during the provided time, {@code null} is returned.
+     *
+     * @param time  the time to take a snapshot at.
+     *
+     * @return a snapshot of the schedule at {@code time}.
+     *
+     * @throws NullPointerException  if {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot getSnapshot(UTCTime time) {
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int index = this.year.indexOf(time.getEpoch());
+        if (index == -1) {
+            return null;
+        }
+        return this.getSnapshot(index, time);
+    }
+
+
+    /**
+     * Creates a snapshot for a period in the timeline.
+     *
+     * @param index  the index of the current period.
+     * @param time   the time to take the snapshot at, which must be within the current period.
+     *
+     * @return a snapshot of the schedule at {@code time}.
+     */
+    private SchoolSnapshot getSnapshot(int index, UTCTime time) {
+        int previous = this.year.getPreviousCounted(index);
+        int next = this.year.getNextCounted(index);
+        return new SchoolSnapshot(time,
+                                  this.year.getPeriod(index),
+                                  previous == -1 ? null : this.year.getPeriod(previous),
+                                  next == -1 ? null : this.year.getPeriod(next),
+                                  index);
+    }
+
+
+    /**
+     * Takes a snapshot of the schedule at a time shortly after an earlier snapshot, by stepping
+     * forward from the current period of the earlier snapshot instead of searching.
+     *
+     * If the new time is not within {@code maxSteps} periods after the earlier snapshot's current
+     * period, {@code null} is returned and the caller should use {@code getSnapshot} instead.
+     *
+     * @param snapshot  the earlier snapshot, which must have come from this schedule.
+     * @param time      the time to take a snapshot at.
+     * @param maxSteps  the maximum number of periods to step forward.
+     *
+     * @return a snapshot of the schedule at {@code time}, or {@code null}.
+     *
+     * @throws NullPointerException  if {@code snapshot} or {@code time} is null.
+     */
+    @Override
+    public SchoolSnapshot advanceSnapshot(SchoolSnapshot snapshot, UTCTime time, int maxSteps) {
+        if (snapshot == null) {
+            throw new NullPointerException("snapshot cannot be null");
+        }
+        if (time == null) {
+            throw new NullPointerException("time cannot be null");
+        }
+
+        int index = snapshot.getIndex();
+        long epoch = time.getEpoch();
+        if (index < 0 || index >= this.year.size() || epoch < this.year.getStart(index)) {
+            return null;
+        }
+
+        for (int step = 0; step <= maxSteps && index < this.year.size(); step++, index++) {
+            if (epoch <= this.year.getEnd(index)) {
+                return this.getSnapshot(index, time);
+            }
+        }
+        return null;
+    }
+
+
     /**
      * Returns the {@code SchoolPeriod} object with the specified {@code Type} string.
      *
@@ -401,8 +711,17 @@ public class SchoolYear {
      *
      * @return a {@code SchoolPeriod} object with the specified {@code Type} string.
      */
+    @Override
     public SchoolPeriod getPeriodByType(String type) {
-        return this.periodTypes.get(type);
+        if (type == null) {
+            return null;
+        }
+
+        int index = this.year.getPreviousOfType(type, this.year.size() - 1);
+        if (index == -1) {
+            return null;
+        }
+        return this.year.getPeriod(index);
     }
     
     
@@ -413,16 +732,16 @@ public class SchoolYear {
      */
     @Override
     public String toString() {
-        String str = "";
+        StringBuilder str = new StringBuilder();
         
-        for (SchoolPeriod period : this.year) {
-            str += period + "\n";
-            if (period.isLast()) {
-                str += "\n";
+        for (int i = 0; i < this.year.size(); i++) {
+            str.append(this.year.getPeriod(i) + "\n");
+            if (this.year.isLast(i)) {
+                str.append("\n");
             }
         }
         
-        return str;
+        return str.toString();
     }
     
 }
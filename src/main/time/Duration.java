@@ -118,6 +118,31 @@ public class Duration {
     }
 
 
+    /**
+     * Constructs a new {@code Duration} object from a number of milliseconds.
+     *
+     * @param millis  the number of milliseconds in the duration, on the interval [0, inf).
+     *
+     * @throws IllegalArgumentException  if {@code millis} is negative.
+     */
+    public Duration(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException(millis + " is out of bounds for millis");
+        }
+
+        this.start = null;
+        this.end = null;
+
+        this.hours = (int) (millis / Duration.MS_PER_HOUR);
+        millis -= (long) this.hours * (long) Duration.MS_PER_HOUR;
+        this.minutes = (int) (millis / Duration.MS_PER_MINUTE);
+        millis -= (long) this.minutes * (long) Duration.MS_PER_MINUTE;
+        this.seconds = (int) (millis / Duration.MS_PER_SECOND);
+        millis -= (long) this.seconds * (long) Duration.MS_PER_SECOND;
+        this.millis = (int) millis;
+    }
+
+
     public double portionComplete(Duration remaining) {
         long totalMillis =
             this.hours * Duration.MS_PER_HOUR +
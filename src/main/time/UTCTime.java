@@ -2,6 +2,7 @@ package time;
 
 
 import java.util.Arrays;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.ZoneOffset;
 import java.time.ZoneId;
@@ -114,6 +115,21 @@ public class UTCTime implements Comparable<UTCTime> {
     }
     
     
+    /**
+     * Creates a new {@code UTCTime} object from a millisecond offset from the unix epoch.
+     *
+     * @param epoch  the millisecond offset from the unix epoch.
+     *
+     * @return a new {@code UTCTime} object representing the specified instant in UTC.
+     *
+     * @see getEpoch
+     */
+    public static UTCTime ofEpoch(long epoch) {
+        Instant instant = Instant.ofEpochMilli(epoch);
+        return new UTCTime(ZonedDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+
+
     /**
      * Creates a new {@code UTCTime} object from a datetime string and unix TZ identifier.
      *
@@ -256,6 +272,18 @@ public class UTCTime implements Comparable<UTCTime> {
     }
     
     
+    /**
+     * Returns a hash code for this {@code UTCTime}. Times that represent the same chronological
+     * instant have the same hash code.
+     *
+     * @return a hash code for this {@code UTCTime}.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.getEpoch());
+    }
+    
+    
     /**
      * Compares this {@code UTCTime} object to another {@code UTCTime} object.
      *
@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Objects;
 import java.util.Enumeration;
 import java.io.File;
 import java.io.InputStream;
@@ -289,6 +290,29 @@ public class UserAPI {
     }
 
 
+    /**
+     * Adds user information for a school to the user's json file.
+     *
+     * A {@code SchoolAPI} object that has already been compiled for the school is provided
+     * directly, so the school json data is not compiled again.
+     *
+     * @param schoolName  the name of the new school.
+     * @param schoolAPI   the API for the new school.
+     *
+     * @see SchoolAPI
+     */
+    public void addSchool(String schoolName, SchoolAPI schoolAPI) {
+        if (schoolName == null) {
+            throw new NullPointerException("schoolName cannot be null");
+        }
+        if (schoolAPI == null) {
+            throw new NullPointerException("schoolAPI cannot be null");
+        }
+
+        this.addSchoolFromAPI(schoolName, schoolAPI);
+    }
+
+
     /**
      * Performs the internal process of adding a new school.
      *
@@ -376,6 +400,77 @@ public class UserAPI {
     }
     
     
+    /**
+     * Applies the days defined by the user for the current school to a {@code SchoolAPI}.
+     *
+     * The school's schedule is shared by the returned API rather than copied, so only the days
+     * defined in the {@code "Days"} field of the user json file are compiled. If the user has not
+     * defined any days, {@code schoolAPI} is returned.
+     *
+     * @param schoolAPI  the API for the current school.
+     *
+     * @return an API for the current school with the user's days.
+     *
+     * @throws NullPointerException      if {@code schoolAPI} is null.
+     * @throws IllegalArgumentException  if any day defined by the user is invalid.
+     *
+     * @see SchoolAPI#withOverlay
+     */
+    public SchoolAPI applyOverlay(SchoolAPI schoolAPI) {
+        if (schoolAPI == null) {
+            throw new NullPointerException("schoolAPI cannot be null");
+        }
+        if (this.schoolDef == null ||
+            this.schoolDef.days == null ||
+            this.schoolDef.days.isEmpty())
+        {
+            return schoolAPI;
+        }
+
+        return schoolAPI.withOverlay(this.schoolDef.days);
+    }
+
+
+    /**
+     * Returns the days defined by the user for the current school, in the format of the
+     * {@code "Days"} field of the user json file.
+     *
+     * @return a map from the date tag of each day defined by the user to its list of periods,
+     *         which is empty if the user has not defined any days.
+     */
+    public Map<String, List<Map<String, String>>> getSchoolDays() {
+        if (this.schoolDef == null || this.schoolDef.days == null) {
+            return new HashMap<>();
+        }
+        return this.schoolDef.days;
+    }
+
+
+    /**
+     * Returns whether another user's school is compiled to the same {@code SchoolAPI} as this
+     * user's, which is the case when both users have the same school file and the same days
+     * defined in the {@code "Days"} field of the user json file.
+     *
+     * @param other  the other {@code UserAPI}.
+     *
+     * @return whether {@code other} uses the same school schedule as this user.
+     *
+     * @throws NullPointerException  if {@code other} is null.
+     */
+    public boolean hasSameSchool(UserAPI other) {
+        if (other == null) {
+            throw new NullPointerException("other cannot be null");
+        }
+
+        Map<String, List<Map<String, String>>> days =
+            this.schoolDef == null ? null : this.schoolDef.days;
+        Map<String, List<Map<String, String>>> otherDays =
+            other.schoolDef == null ? null : other.schoolDef.days;
+        return this.getSchoolFile().equals(other.getSchoolFile()) &&
+            Objects.equals(days, otherDays);
+    }
+    
+    
     /**
      * Returns a list of period names (which should be parsable as integers) in the user json file.
      *
@@ -18,5 +18,9 @@ public class UserJsonSchoolDef {
     /** Information about periods for the given school. */
     @SerializedName("Periods")
     public Map<String, Map<String, String>> periods;
+
+    /** Optional periods of days that differ from the school data file, by date tag. */
+    @SerializedName("Days")
+    public Map<String, List<Map<String, String>>> days;
     
 }
@@ -0,0 +1,384 @@
+package web.transport;
+
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Objects;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import school.SchoolAPI;
+import school.SchoolCalendar;
+import school.SchoolJson;
+import user.UserAPI;
+
+
+/**
+ * A transport-wide cache of compiled school schedules.
+ *
+ * Many users share the same school json files, so compiled {@code SchoolAPI} objects are stored
+ * by the content of the school file, exactly as it is stored in the database, rather than by
+ * user. Two users with identical school files will share a single compiled {@code SchoolAPI},
+ * which is never modified after it is constructed and can be used by any number of threads.
+ *
+ * The content string is its own key: its hash code is computed once per request while the map is
+ * searched, and a hit is confirmed by comparing the content. A hit therefore neither parses the
+ * content nor serializes the parsed {@code SchoolJson} again, and is much cheaper than compiling
+ * the schedule.
+ *
+ * Users who replace some days of their school are given an overlay of the shared schedule. The
+ * overlay is cached too, by the school content and a copy of the user's days, so that the
+ * replaced days are not compiled again on every request and the snapshot remembered by the
+ * overlaid {@code SchoolAPI} is kept between requests. Overlays are held apart from the shared
+ * schedules, so that many users with their own days cannot evict the schedules that every other
+ * user of a school relies on.
+ *
+ * The shared schedules and the overlays are each held up to the capacity of the cache. When
+ * either is full, its least recently used entry is evicted. All methods of this class are
+ * thread-safe.
+ *
+ * @author Jonathan Uhler
+ */
+public class SchoolCache {
+
+    /** The number of entries held by a cache if no capacity is specified. */
+    public static final int DEFAULT_CAPACITY = 64;
+
+
+    private final int capacity;
+    private final Map<String, SchoolAPI> entries;
+    private final Map<OverlayKey, SchoolAPI> overlays;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+
+    /**
+     * Constructs a new {@code SchoolCache}.
+     *
+     * @param capacity  the maximum number of shared schedules to hold, and separately the maximum
+     *                  number of overlays.
+     *
+     * @throws IllegalArgumentException  if {@code capacity} is less than 1.
+     */
+    public SchoolCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1, found " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.hits = 0;
+        this.misses = 0;
+        this.evictions = 0;
+
+        // An access-ordered map keeps the least recently used entry at the head, which is the
+        // entry removed when the map grows past its capacity
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SchoolAPI> eldest) {
+                    if (this.size() > SchoolCache.this.capacity) {
+                        SchoolCache.this.evictions++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        this.overlays = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<OverlayKey, SchoolAPI> eldest) {
+                    if (this.size() > SchoolCache.this.capacity) {
+                        SchoolCache.this.evictions++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+    }
+
+
+    /**
+     * Parses the content of a school file.
+     *
+     * @param content  the content of the school file.
+     *
+     * @return the parsed school json data.
+     *
+     * @throws IllegalArgumentException  if {@code content} cannot be parsed.
+     */
+    private static SchoolJson parse(String content) {
+        SchoolJson json;
+        try {
+            json = new Gson().fromJson(content, SchoolJson.class);
+        }
+        catch (JsonSyntaxException e) {
+            throw new IllegalArgumentException("cannot parse school json: " + e);
+        }
+        if (json == null) {
+            throw new IllegalArgumentException("school json content is empty");
+        }
+        return json;
+    }
+
+
+    /**
+     * Returns the compiled {@code SchoolAPI} for the content of a school file. If no schedule with
+     * the same content is held by this cache, the content is parsed, compiled, and added.
+     *
+     * @param content  the content of the school file, as stored in the database.
+     *
+     * @return the compiled {@code SchoolAPI} for {@code content}.
+     *
+     * @throws NullPointerException      if {@code content} is null.
+     * @throws IllegalArgumentException  if any parse error occurs from the provided content.
+     */
+    public SchoolAPI get(String content) {
+        if (content == null) {
+            throw new NullPointerException("content cannot be null");
+        }
+
+        synchronized (this) {
+            SchoolAPI schoolAPI = this.entries.get(content);
+            if (schoolAPI != null) {
+                this.hits++;
+                return schoolAPI;
+            }
+            this.misses++;
+        }
+
+        // Compile without holding the lock so that requests for other schools are not blocked.
+        // If two threads miss on the same key, the first compiled schedule to be added is kept
+        SchoolAPI compiled = new SchoolAPI(new SchoolCalendar(SchoolCache.parse(content)));
+        synchronized (this) {
+            SchoolAPI existing = this.entries.putIfAbsent(content, compiled);
+            return existing != null ? existing : compiled;
+        }
+    }
+
+
+    /**
+     * Returns the compiled {@code SchoolAPI} for the content of a school file with the days a user
+     * has defined for it. If the user has not defined any days, this is the same as {@code get}.
+     * Otherwise, the overlay of the user's days on the shared schedule is held by this cache,
+     * apart from the shared schedules.
+     *
+     * @param content  the content of the school file, as stored in the database.
+     * @param userAPI  the user whose days are applied to the schedule.
+     *
+     * @return the compiled {@code SchoolAPI} for {@code content} with the user's days.
+     *
+     * @throws NullPointerException      if {@code content} or {@code userAPI} is null.
+     * @throws IllegalArgumentException  if any parse error occurs from the provided content, or
+     *                                   any day defined by the user is invalid.
+     *
+     * @see UserAPI#applyOverlay
+     */
+    public SchoolAPI get(String content, UserAPI userAPI) {
+        if (content == null) {
+            throw new NullPointerException("content cannot be null");
+        }
+        if (userAPI == null) {
+            throw new NullPointerException("userAPI cannot be null");
+        }
+        if (userAPI.getSchoolDays().isEmpty()) {
+            return this.get(content);
+        }
+
+        // The user's days are only copied when an overlay is added, so a hit costs one pass over
+        // the days to find their hash code and compare them
+        Map<String, List<Map<String, String>>> days = userAPI.getSchoolDays();
+        synchronized (this) {
+            SchoolAPI schoolAPI = this.overlays.get(new OverlayKey(content, days));
+            if (schoolAPI != null) {
+                this.hits++;
+                return schoolAPI;
+            }
+            this.misses++;
+        }
+
+        // The lookup of the shared schedule under the overlay is counted separately by get
+        SchoolAPI compiled = userAPI.applyOverlay(this.get(content));
+        OverlayKey key = new OverlayKey(content, SchoolCache.copyDays(days));
+        synchronized (this) {
+            SchoolAPI existing = this.overlays.putIfAbsent(key, compiled);
+            return existing != null ? existing : compiled;
+        }
+    }
+
+
+    /**
+     * Copies the days a user has defined for a school, so that a key of this cache is not changed
+     * if the user's map is edited later.
+     *
+     * @param days  the days to copy.
+     *
+     * @return a deep copy of {@code days}.
+     */
+    private static Map<String, List<Map<String, String>>> copyDays(
+        Map<String, List<Map<String, String>>> days)
+    {
+        Map<String, List<Map<String, String>>> copy = new HashMap<>();
+        for (Map.Entry<String, List<Map<String, String>>> entry : days.entrySet()) {
+            List<Map<String, String>> periods = null;
+            if (entry.getValue() != null) {
+                periods = new ArrayList<>();
+                for (Map<String, String> period : entry.getValue()) {
+                    periods.add(period == null ? null : new HashMap<>(period));
+                }
+            }
+            copy.put(entry.getKey(), periods);
+        }
+        return copy;
+    }
+
+
+    /**
+     * Adds a schedule that has already been compiled from the content of a school file, so that
+     * the next call to {@code get} with the same content does not compile it again. If a
+     * schedule with the same content is already held by this cache, it is kept.
+     *
+     * @param content    the content of the school file, as stored in the database.
+     * @param schoolAPI  the compiled schedule for {@code content}.
+     *
+     * @throws NullPointerException  if {@code content} or {@code schoolAPI} is null.
+     */
+    public void put(String content, SchoolAPI schoolAPI) {
+        if (content == null) {
+            throw new NullPointerException("content cannot be null");
+        }
+        if (schoolAPI == null) {
+            throw new NullPointerException("schoolAPI cannot be null");
+        }
+
+        synchronized (this) {
+            this.entries.putIfAbsent(content, schoolAPI);
+        }
+    }
+
+
+    /**
+     * Returns the maximum number of compiled schedules held by this cache.
+     *
+     * @return the maximum number of compiled schedules held by this cache.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+
+    /**
+     * Returns the number of shared schedules currently held by this cache.
+     *
+     * @return the number of shared schedules currently held by this cache.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+
+    /**
+     * Returns the number of overlays of users' days currently held by this cache.
+     *
+     * @return the number of overlays currently held by this cache.
+     */
+    public synchronized int getOverlayCount() {
+        return this.overlays.size();
+    }
+
+
+    /**
+     * Returns the number of calls to {@code get} that found an existing compiled schedule.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+
+    /**
+     * Returns the number of calls to {@code get} that had to compile a schedule.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+
+    /**
+     * Returns the number of compiled schedules removed to make room for new entries.
+     *
+     * @return the number of cache evictions.
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+
+    /**
+     * Returns a string representation of the usage of this cache.
+     *
+     * @return a string representation of the usage of this cache.
+     */
+    @Override
+    public synchronized String toString() {
+        return "SchoolCache[size=" + this.entries.size() + ", overlays=" + this.overlays.size() +
+            ", capacity=" + this.capacity + ", hits=" + this.hits + ", misses=" + this.misses +
+            ", evictions=" + this.evictions + "]";
+    }
+
+
+    /**
+     * The key of an overlay: the content of a school file and the days a user has defined for it.
+     * Two keys are equal if both the content and the days are equal, in any order of the days.
+     */
+    private static final class OverlayKey {
+
+        private final String content;
+        private final Map<String, List<Map<String, String>>> days;
+
+
+        /**
+         * Constructs a new {@code OverlayKey}. The days are not copied.
+         *
+         * @param content  the content of the school file, as stored in the database.
+         * @param days     the days the user has defined for the school.
+         */
+        OverlayKey(String content, Map<String, List<Map<String, String>>> days) {
+            this.content = content;
+            this.days = days;
+        }
+
+
+        /**
+         * Returns whether this key has the same school content and days as the argument.
+         *
+         * @param o  an {@code OverlayKey} to compare to.
+         *
+         * @return whether this key names the same overlay as the argument.
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof OverlayKey)) {
+                return false;
+            }
+            OverlayKey key = (OverlayKey) o;
+            return this.content.equals(key.content) && this.days.equals(key.days);
+        }
+
+
+        /**
+         * Returns a hash code of the school content and days of this key.
+         *
+         * @return a hash code of the school content and days of this key.
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.content, this.days);
+        }
+
+    }
+
+}
@@ -35,8 +35,9 @@ import user.UserJson;
  *
  * - {@code UserJson getUserJson(String)}
  * - {@code SchoolJson getSchoolJson(String, Path)}
+ * - {@code String getSchoolContent(String, Path)}
  * - {@code void setUserJson(String, UserJson)}
- * - {@code void setSchoolJson(String, SchoolJson, Path)}
+ * - {@code String setSchoolJson(String, SchoolJson, Path)}
  *
  * @author Jonathan Uhler
  */
@@ -239,8 +240,7 @@ public class TransportDatabase {
      * @return the {@code SchoolJson} object for the specified user and school.
      */
     public SchoolJson getSchoolJson(String userId, Path schoolFile) {
-        String schoolName = schoolFile.toFile().getName();
-        String resource = this.getDatabaseResource(userId, "schools/" + schoolName);
+        String resource = this.getSchoolContent(userId, schoolFile);
         if (resource == null) {
             return null;
         }
@@ -258,6 +258,25 @@ public class TransportDatabase {
     }
 
 
+    /**
+     * Returns the content of a school file for a specified database user, exactly as it is stored
+     * in the database. Two school files with the same content give equal strings, so the content
+     * can be used to share the schedule compiled from it without parsing it again.
+     *
+     * If the user or school does not exist, or an error occurs in retrieving the school record,
+     * {@code null} will be returned.
+     *
+     * @param userId      the unique identifier of the database user.
+     * @param schoolFile  an identifier of the school file name in the database.
+     *
+     * @return the content of the specified school file.
+     */
+    public String getSchoolContent(String userId, Path schoolFile) {
+        String schoolName = schoolFile.toFile().getName();
+        return this.getDatabaseResource(userId, "schools/" + schoolName);
+    }
+
+
     /**
      * Returns a list of school file names that, when converted with {@code Paths.get}, can be
      * passed to {@code getSchoolJson}.
@@ -298,8 +317,11 @@ public class TransportDatabase {
      * @param userId      the unique identifier of the database user.
      * @param json        the updated record to set for the specified school file.
      * @param schoolFile  the file name of the school record to update or create.
+     *
+     * @return the content stored for the school file, as later returned by
+     *         {@code getSchoolContent}, or {@code null} if {@code json} cannot be converted.
      */
-    public void setSchoolJson(String userId, SchoolJson json, Path schoolFile) {
+    public String setSchoolJson(String userId, SchoolJson json, Path schoolFile) {
         Gson gson = new Gson();
         String resource;
         try {
@@ -307,11 +329,12 @@ public class TransportDatabase {
         }
         catch (JsonSyntaxException e) {
             PCTransport.LOGGER.warning("cannot convert UserJson to Map: " + e);
-            return;
+            return null;
         }
 
         String schoolName = schoolFile.toFile().getName();
         this.setDatabaseResource(userId, "schools/" + schoolName, resource);
+        return resource;
     }
 
 }
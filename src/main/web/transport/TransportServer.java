@@ -30,6 +30,7 @@ import web.transport.commands.*;
 public class TransportServer extends JSSLServer {
 
     private TransportDatabase database;
+    private SchoolCache schoolCache;
 
 
     /**
@@ -37,13 +38,46 @@ public class TransportServer extends JSSLServer {
      *
      * After construction, the server will be bound to the specified IP address and port.
      *
-     * @param properties  transport properties used to initialize the database.
+     * @param properties  transport properties used to initialize the database and school cache.
      * @param ip          the IP address to start the transport on.
      * @param port        the port to start the transport on.
      */
     public TransportServer(Properties properties, String ip, int port) throws IOException {
         super(ip, port);
         this.database = new TransportDatabase(properties);
+        this.schoolCache = new SchoolCache(this.getSchoolCacheSize(properties));
+    }
+
+
+    /**
+     * Returns the number of compiled school schedules to hold in the school cache.
+     *
+     * If the size is not specified in the transport properties, or is not a positive integer, a
+     * warning message is logged and {@code SchoolCache.DEFAULT_CAPACITY} is used.
+     *
+     * @param properties  the transport properties, which may contain the school cache size.
+     *
+     * @return the number of compiled school schedules to hold in the school cache.
+     */
+    private int getSchoolCacheSize(Properties properties) {
+        String size = properties.getProperty("transport.schoolCacheSize");
+        if (size == null) {
+            PCTransport.LOGGER.warning("transport.schoolCacheSize is not defined, using " +
+                                       SchoolCache.DEFAULT_CAPACITY);
+            return SchoolCache.DEFAULT_CAPACITY;
+        }
+
+        try {
+            int capacity = Integer.parseInt(size);
+            if (capacity > 0) {
+                return capacity;
+            }
+        }
+        catch (NumberFormatException e) { }
+
+        PCTransport.LOGGER.warning("invalid transport.schoolCacheSize '" + size + "', using " +
+                                   SchoolCache.DEFAULT_CAPACITY);
+        return SchoolCache.DEFAULT_CAPACITY;
     }
 
 
@@ -82,12 +116,18 @@ public class TransportServer extends JSSLServer {
             break;
         case SET_SCHOOL_JSON:
             response = new SetSchoolJson().process(request, schoolAPI, userAPI);
-            SchoolJson newSchoolJson =
-                gson.fromJson(((SetSchoolJson) response).inputPayload.content, SchoolJson.class);
-            String newSchoolName = ((SetSchoolJson) response).inputPayload.schoolJson;
-            userAPI.addSchool(newSchoolName, newSchoolJson);
+            // The content was parsed and compiled once by SetSchoolJson, and those results are
+            // shared with the user, database, and school cache
+            SetSchoolJson setSchoolJson = (SetSchoolJson) response;
+            SchoolJson newSchoolJson = setSchoolJson.getSchoolJson();
+            String newSchoolName = setSchoolJson.inputPayload.schoolJson;
+            userAPI.addSchool(newSchoolName, setSchoolJson.getSchoolAPI());
             this.database.setUserJson(userId, userAPI.getJson());
-            this.database.setSchoolJson(userId, newSchoolJson, Paths.get(newSchoolName));
+            String newSchoolContent =
+                this.database.setSchoolJson(userId, newSchoolJson, Paths.get(newSchoolName));
+            if (newSchoolContent != null) {
+                this.schoolCache.put(newSchoolContent, setSchoolJson.getSchoolAPI());
+            }
             break;
         case SET_USER_PERIODS:
             response = new SetUserPeriods().process(request, schoolAPI, userAPI);
@@ -149,12 +189,15 @@ public class TransportServer extends JSSLServer {
 
         try {
             if (userAPI != null) {
-                SchoolJson schoolJson = this.database.getSchoolJson(userId,
-                                                                    userAPI.getSchoolFile());
-                schoolAPI = new SchoolAPI(schoolJson);
+                String schoolContent = this.database.getSchoolContent(userId,
+                                                                      userAPI.getSchoolFile());
+                // Compiled schedules are shared between all users with the same school file, and
+                // the days a user has replaced are compiled once for each distinct set of days.
+                // The school file is only parsed when its content is not already compiled
+                schoolAPI = this.schoolCache.get(schoolContent, userAPI);
             }
         }
-        catch (IOException | RuntimeException e) {
+        catch (RuntimeException e) {
             // Error condition, but may be recoverable by the user if this is a change to settings
             // that caused the original error condition
             apiStatus = "School: " + e;
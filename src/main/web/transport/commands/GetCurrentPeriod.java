@@ -5,6 +5,7 @@ import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import school.SchoolAPI;
 import school.SchoolPeriod;
+import school.SchoolSnapshot;
 import user.UserAPI;
 import user.UserPeriod;
 import time.UTCTime;
@@ -49,8 +50,9 @@ public class GetCurrentPeriod extends Command {
         GetCurrentPeriod command = gson.fromJson(request, GetCurrentPeriod.class);
 
         UTCTime now = UTCTime.now();
-        SchoolPeriod currentSchoolPeriod = schoolAPI.getCurrentPeriod(now);
-        SchoolPeriod nextSchoolPeriod = schoolAPI.getNextCountedPeriod(now);
+        SchoolSnapshot snapshot = schoolAPI.snapshot(now);
+        SchoolPeriod currentSchoolPeriod = snapshot.getCurrentPeriod();
+        SchoolPeriod nextSchoolPeriod = snapshot.getNextCountedPeriod();
 
         GetCurrentPeriod response = new GetCurrentPeriod();
         response.opcode = command.opcode;
@@ -66,7 +68,7 @@ public class GetCurrentPeriod extends Command {
         response.outputPayload.currentName = currentUserPeriod.getName();
         response.outputPayload.currentStatus = currentUserPeriod.getStatus();
 
-        Duration totalTime = schoolAPI.getTotalTime(now);
+        Duration totalTime = snapshot.getTotalTime();
         if (totalTime != null) {
             response.outputPayload.currentDuration = totalTime.toString();
         }
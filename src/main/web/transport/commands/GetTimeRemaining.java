@@ -5,6 +5,7 @@ import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import school.SchoolAPI;
 import school.SchoolPeriod;
+import school.SchoolSnapshot;
 import user.UserAPI;
 import time.UTCTime;
 import time.Duration;
@@ -44,8 +45,9 @@ public class GetTimeRemaining extends Command {
         GetTimeRemaining command = gson.fromJson(request, GetTimeRemaining.class);
 
         UTCTime now = UTCTime.now();
-        SchoolPeriod currentPeriod = schoolAPI.getCurrentPeriod(now);
-        Duration timeRemaining = schoolAPI.getTimeRemaining(now);
+        SchoolSnapshot snapshot = schoolAPI.snapshot(now);
+        SchoolPeriod currentPeriod = snapshot.getCurrentPeriod();
+        Duration timeRemaining = snapshot.getTimeRemaining();
 
         GetTimeRemaining response = new GetTimeRemaining();
         response.opcode = command.opcode;
@@ -2,11 +2,12 @@ package web.transport.commands;
 
 
 import java.util.Map;
-import java.io.IOException;
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import school.SchoolAPI;
+import school.SchoolCalendar;
 import school.SchoolJson;
+import school.SchoolJsonReader;
 import user.UserAPI;
 
 
@@ -35,6 +36,10 @@ public class SetSchoolJson extends Command {
     @SerializedName("OutputPayload")
     public OutputPayload outputPayload;
 
+    // The validated content and its compiled schedule, which are not part of the response
+    private transient SchoolJson schoolJson;
+    private transient SchoolAPI schoolAPI;
+
 
     @Override
     public Command process(String request, SchoolAPI schoolAPI, UserAPI userAPI) {
@@ -50,26 +55,51 @@ public class SetSchoolJson extends Command {
             throw new NullPointerException("SetSchoolJson missing SchoolJson key");
         }
 
-        // Validate the school JSON content. If any parsing error is thrown here, it will be
-        // handled by the TransportServer class. If no error is raised, then the input payload
-        // is known to be valid and the `SchoolJson : Content` key-value pair will be added
-        // to the database by TransportServer.
-        SchoolJson json = gson.fromJson(content, SchoolJson.class);
-        try {
-            new SchoolAPI(json);
-        }
-        catch (IOException e) {
-            throw new IllegalArgumentException("invalid school json content: " + e);
+        if (content == null) {
+            throw new NullPointerException("SetSchoolJson missing Content key");
         }
 
+        // Validate the school JSON content. If any parsing error is thrown here, it will be
+        // handled by the TransportServer class. Oversized or malformed content is rejected by
+        // the streaming reader before anything is compiled. The content is then compiled once
+        // into the closed-form SchoolCalendar that TransportServer uses to answer requests,
+        // and the parsed and compiled results are kept on the response so that TransportServer
+        // can add them to the database, user, and school cache without parsing them again.
+        SchoolJson json = SchoolJsonReader.read(content);
+        SchoolAPI compiled = new SchoolAPI(new SchoolCalendar(json));
+
         SetSchoolJson response = new SetSchoolJson();
         response.opcode = command.opcode;
         response.userId = command.userId;
         response.returnCode = ReturnCode.SUCCESS;
         response.inputPayload = command.inputPayload;
         response.outputPayload = response.new OutputPayload();
+        response.schoolJson = json;
+        response.schoolAPI = compiled;
         
         return response;
     }
 
+
+    /**
+     * Returns the school json data validated by {@code process}.
+     *
+     * @return the validated school json data, or {@code null} if this command is not a response
+     *         from {@code process}.
+     */
+    public SchoolJson getSchoolJson() {
+        return this.schoolJson;
+    }
+
+
+    /**
+     * Returns the schedule compiled from the school json data validated by {@code process}.
+     *
+     * @return the compiled schedule, or {@code null} if this command is not a response from
+     *         {@code process}.
+     */
+    public SchoolAPI getSchoolAPI() {
+        return this.schoolAPI;
+    }
+
 }
@@ -0,0 +1,47 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.io.FileReader;
+import java.io.IOException;
+import com.google.gson.Gson;
+import school.SchoolJson;
+import school.SchoolYear;
+
+
+public class BenchSchoolYear {
+
+    public static final Path TEST_SCHOOL_FILE = Paths.get("tests/json/TestSchool.json");
+    public static final int WARMUP_ITERATIONS = 3;
+    public static final int ITERATIONS = 5;
+
+
+    private static long timeCompile(SchoolJson json) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP_ITERATIONS + ITERATIONS; i++) {
+            long start = System.nanoTime();
+            new SchoolYear(json);
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP_ITERATIONS) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int years = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        SchoolJson json;
+        try (FileReader reader = new FileReader(TEST_SCHOOL_FILE.toString())) {
+            json = new Gson().fromJson(reader, SchoolJson.class);
+        }
+        json.info.put(SchoolJson.TIMEZONE, "America/Los_Angeles");
+        json.info.put(SchoolJson.LAST_DAY_TAG, (1970 + years) + "-01-01");
+
+        // Warm up the compiler before anything is measured
+        BenchSchoolYear.timeCompile(json);
+
+        long compile = BenchSchoolYear.timeCompile(json);
+        System.out.printf("%d year(s), compile: %.1f ms%n", years, compile / 1e6);
+    }
+
+}
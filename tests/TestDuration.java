@@ -51,6 +51,31 @@ public class TestDuration {
         Assert.assertThrows(IllegalArgumentException.class, () -> new Duration(0, 0, 0, 1000));
     }
 
+    @Test
+    public void testConstructorWithMillis() {
+        for (int i = 0; i < TestMain.RANDOM_TEST_AMOUNT; i++) {
+            int expectedHours = TestMain.RANDOM_DIS.nextInt(1000000);
+            int expectedMinutes = TestMain.RANDOM_DIS.nextInt(Duration.MINUTES_PER_HOUR);
+            int expectedSeconds = TestMain.RANDOM_DIS.nextInt(Duration.SECONDS_PER_MINUTE);
+            int expectedMillis = TestMain.RANDOM_DIS.nextInt(Duration.MS_PER_SECOND);
+
+            long millis = (long) expectedHours * Duration.MS_PER_HOUR +
+                expectedMinutes * Duration.MS_PER_MINUTE +
+                expectedSeconds * Duration.MS_PER_SECOND +
+                expectedMillis;
+            Duration duration = new Duration(millis);
+
+            Assert.assertNull(duration.getStart());
+            Assert.assertNull(duration.getEnd());
+            Assert.assertEquals(duration.hr(), expectedHours);
+            Assert.assertEquals(duration.min(), expectedMinutes);
+            Assert.assertEquals(duration.sec(), expectedSeconds);
+            Assert.assertEquals(duration.ms(), expectedMillis);
+        }
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> new Duration(-1L));
+    }
+
     @Test
     public void testConstructorWithTimeRange() {
         for (int i = 0; i < TestMain.RANDOM_TEST_AMOUNT; i++) {
@@ -0,0 +1,53 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.Assert;
+import os.FileWatcher;
+
+
+public class TestFileWatcher {
+
+    @Test
+    public void testDebounce() throws Exception {
+        Path directory = Files.createTempDirectory("TestFileWatcher");
+        Path file = directory.resolve("School.json");
+        BlockingQueue<Path> changed = new LinkedBlockingQueue<>();
+
+        try (FileWatcher watcher = new FileWatcher(500, (path) -> changed.add(path))) {
+            watcher.watch(directory);
+            watcher.start();
+
+            // A burst of writes is reported once, after the last write
+            for (int i = 0; i < 5; i++) {
+                Files.writeString(file, "{\"write\": " + i + "}");
+                Thread.sleep(20);
+            }
+            Path first = changed.poll(10, TimeUnit.SECONDS);
+            Assert.assertEquals(first, file.toAbsolutePath().normalize());
+            Assert.assertNull(changed.poll(1, TimeUnit.SECONDS));
+
+            // A later write is reported again
+            Files.writeString(file, "{}");
+            Assert.assertEquals(changed.poll(10, TimeUnit.SECONDS), first);
+        }
+        finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testIllegalParameters() throws IOException {
+        Assert.assertThrows(NullPointerException.class, () -> new FileWatcher(0, null));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> new FileWatcher(-1, (path) -> { }));
+        try (FileWatcher watcher = new FileWatcher(0, (path) -> { })) {
+            Assert.assertThrows(NullPointerException.class, () -> watcher.watch(null));
+        }
+    }
+
+}
@@ -32,6 +32,8 @@ public class TestOSPath {
         Assert.assertEquals(OSPath.getSchoolJsonJarPath(), Paths.get("assets/json/schools"));
         Assert.assertNotNull(OSPath.getSchoolJsonDiskPath());
         Assert.assertTrue(OSPath.getSchoolJsonDiskPath().endsWith("schools"));
+        Assert.assertNotNull(OSPath.getSchoolCachePath());
+        Assert.assertTrue(OSPath.getSchoolCachePath().endsWith("cache"));
     }
 
     @Test
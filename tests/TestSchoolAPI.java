@@ -1,11 +1,26 @@
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 import org.junit.Assert;
 import time.UTCTime;
+import time.Duration;
 import school.SchoolAPI;
+import school.SchoolYear;
+import school.SchoolJson;
 import school.SchoolPeriod;
+import school.SchoolClock;
+import school.SchoolCursor;
+import school.SchoolSnapshot;
 
 
 public class TestSchoolAPI {
@@ -96,6 +111,21 @@ public class TestSchoolAPI {
         Assert.assertEquals(prev.getName(), "WeekendDay");
     }
 
+    @Test
+    public void testGetPeriodFarOutsideYear() throws FileNotFoundException {
+        SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
+
+        UTCTime before = UTCTime.of("1960-06-01", "Z");
+        UTCTime after = UTCTime.of("1980-06-01", "Z");
+        Assert.assertEquals(api.getNextPeriod(before).getStart(), UTCTime.of("1969-12-28", "Z"));
+        Assert.assertNull(api.getPreviousPeriod(before));
+        Assert.assertEquals(api.getPreviousPeriod(after).getEnd(),
+                            UTCTime.of("1971-01-03", "Z").plus(-1, UTCTime.MILLISECONDS));
+        Assert.assertNull(api.getNextPeriod(after));
+        Assert.assertTrue(api.getNextCountedPeriod(before).isCounted());
+        Assert.assertTrue(api.getPreviousCountedPeriod(after).isCounted());
+    }
+
     @Test
     public void testGetNextPeriodToday() throws FileNotFoundException {
         SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
@@ -144,6 +174,356 @@ public class TestSchoolAPI {
         }
     }
 
+    @Test
+    public void testSnapshot() throws FileNotFoundException {
+        SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
+
+        UTCTime time = UTCTime.of("1969-12-01", "Z");
+        UTCTime end = UTCTime.of("1971-02-01", "Z");
+        while (time.isBefore(end)) {
+            SchoolSnapshot snapshot = api.snapshot(time);
+
+            Assert.assertEquals(snapshot.getTime(), time);
+            Assert.assertEquals(snapshot.getCurrentPeriod(), api.getCurrentPeriod(time));
+            Assert.assertEquals(snapshot.getNextCountedPeriod(), api.getNextCountedPeriod(time));
+            Assert.assertEquals(snapshot.getPreviousCountedPeriod(),
+                                api.getPreviousCountedPeriod(time));
+            Assert.assertEquals(String.valueOf(snapshot.getTimeRemaining()),
+                                String.valueOf(api.getTimeRemaining(time)));
+            Assert.assertEquals(String.valueOf(snapshot.getTotalTime()),
+                                String.valueOf(api.getTotalTime(time)));
+            if (snapshot.getCurrentPeriod() != null) {
+                Assert.assertTrue(snapshot.isValidAt(snapshot.getExpireTime()));
+                Assert.assertFalse(snapshot.isValidAt(snapshot.getExpireTime()
+                                                      .plus(1, UTCTime.MILLISECONDS)));
+            }
+            else {
+                Assert.assertNull(snapshot.getExpireTime());
+            }
+
+            time = time.plus(5, UTCTime.HOURS);
+        }
+    }
+
+    @Test
+    public void testMemoizedContext() throws Exception {
+        SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
+        SchoolYear year = new SchoolYear(TEST_SCHOOL_FILE);
+
+        // Small steps reuse the remembered periods, and steps backward or across a boundary
+        // replace them
+        UTCTime time = UTCTime.of("1970-03-02T07:00:00.000", "Z");
+        for (int i = 0; i < 2000; i++) {
+            SchoolSnapshot expected = year.getSnapshot(time);
+            Assert.assertEquals(String.valueOf(api.getTimeRemaining(time)),
+                                String.valueOf(expected.getTimeRemaining()));
+            Assert.assertEquals(String.valueOf(api.getTotalTime(time)),
+                                String.valueOf(expected.getTotalTime()));
+            Assert.assertEquals(api.snapshot(time).toString(), expected.toString());
+
+            time = time.plus(i % 7 == 0 ? -2 : 3, UTCTime.MINUTES);
+        }
+
+        // Readers on several threads each see answers for their own time
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            UTCTime start =
+                UTCTime.of("1970-03-02T07:00:00.000", "Z").plus(t * 37, UTCTime.MINUTES);
+            results.add(pool.submit(() -> {
+                        UTCTime now = start;
+                        for (int i = 0; i < 1000; i++) {
+                            SchoolSnapshot expected = year.getSnapshot(now);
+                            String remaining = String.valueOf(expected.getTimeRemaining());
+                            if (!remaining.equals(String.valueOf(api.getTimeRemaining(now)))) {
+                                return false;
+                            }
+                            now = now.plus(1, UTCTime.MINUTES);
+                        }
+                        return true;
+                    }));
+        }
+        for (Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSchoolClock() throws FileNotFoundException {
+        SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
+        SchoolClock clock = new SchoolClock(api);
+        Assert.assertNull(clock.getSnapshot());
+
+        // Tick forward in small steps, with occasional large jumps and steps backward
+        UTCTime time = UTCTime.of("1969-12-01", "Z");
+        UTCTime end = UTCTime.of("1971-02-01", "Z");
+        int tick = 0;
+        while (time.isBefore(end)) {
+            SchoolSnapshot snapshot = clock.tick(time);
+            Assert.assertEquals(snapshot.toString(), api.snapshot(time).toString());
+            Assert.assertSame(snapshot, clock.getSnapshot());
+
+            tick++;
+            if (tick % 97 == 0) {
+                time = time.plus(-3, UTCTime.HOURS);
+            }
+            else if (tick % 89 == 0) {
+                time = time.plus(9, UTCTime.DAYS);
+            }
+            else {
+                time = time.plus(17, UTCTime.MINUTES);
+            }
+        }
+
+        clock.reset();
+        Assert.assertNull(clock.getSnapshot());
+        Assert.assertSame(clock.getSchoolAPI(), api);
+    }
+
+    @Test
+    public void testSchoolClockIllegalParameters() throws FileNotFoundException {
+        Assert.assertThrows(NullPointerException.class, () -> new SchoolClock(null));
+        SchoolClock clock = new SchoolClock(new SchoolAPI(TEST_SCHOOL_FILE));
+        Assert.assertThrows(NullPointerException.class, () -> clock.tick(null));
+    }
+
+    @Test
+    public void testGetPeriods() throws FileNotFoundException {
+        SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
+        UTCTime from = UTCTime.of("1970-03-02T09:30:00.000", "Z");
+        UTCTime to = UTCTime.of("1970-03-09T12:00:00.000", "Z");
+
+        // The cursor walks the same periods as getCurrentPeriod and getNextPeriod
+        SchoolCursor cursor = api.getPeriods(from, to);
+        Assert.assertThrows(IllegalStateException.class, () -> cursor.getStart());
+        SchoolPeriod expected = api.getCurrentPeriod(from);
+        int count = 0;
+        while (cursor.next()) {
+            Assert.assertEquals(cursor.getPeriod(), expected);
+            Assert.assertEquals(cursor.getStart(), expected.getStart().getEpoch());
+            Assert.assertEquals(cursor.getEnd(), expected.getEnd().getEpoch());
+            Assert.assertEquals(cursor.getType(), expected.getType());
+            Assert.assertEquals(cursor.getName(), expected.getName());
+            Assert.assertEquals(cursor.isLast(), expected.isLast());
+            Assert.assertEquals(cursor.isCounted(), expected.isCounted());
+            expected = api.getNextPeriod(expected.getEnd());
+            count++;
+        }
+        Assert.assertTrue(count > 0);
+        Assert.assertFalse(expected.getStart().isBefore(to));
+        Assert.assertFalse(cursor.next());
+        Assert.assertThrows(IllegalStateException.class, () -> cursor.getStart());
+
+        // The boundaries are the starts of every period within the range
+        long[] boundaries = api.getBoundaries(from, to).toArray();
+        Assert.assertEquals(boundaries.length, count - 1);
+        SchoolCursor starts = api.getPeriods(from, to);
+        starts.next();
+        for (long boundary : boundaries) {
+            Assert.assertTrue(starts.next());
+            Assert.assertEquals(boundary, starts.getStart());
+        }
+
+        Assert.assertFalse(api.getPeriods(from, from).next());
+        Assert.assertFalse(api.getPeriods(UTCTime.of("1950-01-01", "Z"),
+                                          UTCTime.of("1951-01-01", "Z")).next());
+        Assert.assertThrows(IllegalArgumentException.class, () -> api.getPeriods(to, from));
+        Assert.assertThrows(NullPointerException.class, () -> api.getPeriods(null, to));
+        Assert.assertThrows(NullPointerException.class, () -> api.getBoundaries(from, null));
+    }
+
+    @Test
+    public void testGetCountedTime() throws FileNotFoundException {
+        SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
+        UTCTime from = UTCTime.of("1970-03-02T09:30:00.000", "Z");
+        UTCTime to = UTCTime.of("1970-03-09T12:00:00.000", "Z");
+
+        // The counted time is the sum of the counted periods within the range
+        long expected = 0;
+        SchoolCursor cursor = api.getPeriods(from, to);
+        while (cursor.next()) {
+            if (cursor.isCounted()) {
+                expected += Math.min(cursor.getEnd() + 1, to.getEpoch()) -
+                    Math.max(cursor.getStart(), from.getEpoch());
+            }
+        }
+        Assert.assertTrue(expected > 0);
+        Assert.assertEquals(api.getCountedTime(from, to).toString(),
+                            new Duration(expected).toString());
+        Assert.assertEquals(api.getCountedTime(from, from).toString(),
+                            new Duration(0L).toString());
+
+        Assert.assertEquals(api.getProgress(from, from, to), 0, 0);
+        Assert.assertEquals(api.getProgress(to, from, to), 1, 0);
+        Assert.assertEquals(api.getProgress(UTCTime.of("1980-01-01", "Z"), from, to), 1, 0);
+
+        // Progress only increases through the year and through each week
+        Assert.assertEquals(api.getYearProgress(UTCTime.of("1950-01-01", "Z")), 0, 0);
+        Assert.assertEquals(api.getYearProgress(UTCTime.of("1980-01-01", "Z")), 1, 0);
+        double previous = 0;
+        UTCTime time = UTCTime.of("1970-01-01", "Z");
+        UTCTime end = UTCTime.of("1971-01-01", "Z");
+        while (time.isBefore(end)) {
+            double progress = api.getYearProgress(time);
+            Assert.assertTrue(progress >= previous);
+            double weekProgress = api.getWeekProgress(time);
+            Assert.assertTrue(weekProgress >= 0 && weekProgress <= 1);
+            previous = progress;
+            time = time.plus(5, UTCTime.HOURS);
+        }
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> api.getCountedTime(to, from));
+        Assert.assertThrows(NullPointerException.class, () -> api.getCountedTime(null, to));
+        Assert.assertThrows(NullPointerException.class, () -> api.getProgress(from, from, null));
+        Assert.assertThrows(NullPointerException.class, () -> api.getYearProgress(null));
+        Assert.assertThrows(NullPointerException.class, () -> api.getWeekProgress(null));
+    }
+
+    @Test
+    public void testGetPeriodOfType() throws FileNotFoundException {
+        SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
+        UTCTime from = UTCTime.of("1970-03-02T09:30:00.000", "Z");
+        UTCTime to = UTCTime.of("1970-03-09T12:00:00.000", "Z");
+
+        // The next period of a type is the first one found by walking forward
+        SchoolPeriod expected = api.getCurrentPeriod(from);
+        while (!expected.getType().equals("2")) {
+            expected = api.getNextPeriod(expected.getEnd());
+        }
+        SchoolPeriod next = api.getNextPeriodOfType(from, "2");
+        Assert.assertEquals(next, expected);
+        Assert.assertEquals(api.getNextPeriodOfType(next.getEnd(), "2"), next);
+        Assert.assertEquals(api.getPreviousPeriodOfType(next.getStart(), "2"), next);
+        Assert.assertTrue(api.getPreviousPeriodOfType(from, "2").getEnd().isBefore(from));
+        Assert.assertNull(api.getNextPeriodOfType(from, "3"));
+        Assert.assertNull(api.getNextPeriodOfType(UTCTime.of("1980-01-01", "Z"), "2"));
+        Assert.assertNull(api.getPreviousPeriodOfType(UTCTime.of("1950-01-01", "Z"), "2"));
+
+        // The time in a type is the sum of the periods of the type within the range
+        long expectedTime = 0;
+        SchoolCursor cursor = api.getPeriods(from, to);
+        while (cursor.next()) {
+            if (cursor.getType().equals("2")) {
+                expectedTime += Math.min(cursor.getEnd() + 1, to.getEpoch()) -
+                    Math.max(cursor.getStart(), from.getEpoch());
+            }
+        }
+        Assert.assertTrue(expectedTime > 0);
+        Assert.assertEquals(api.getTimeOfType("2", from, to).toString(),
+                            new Duration(expectedTime).toString());
+
+        Assert.assertThrows(NullPointerException.class, () -> api.getNextPeriodOfType(null, "2"));
+        Assert.assertThrows(NullPointerException.class, () -> api.getNextPeriodOfType(from, null));
+        Assert.assertThrows(NullPointerException.class,
+                            () -> api.getPreviousPeriodOfType(from, null));
+        Assert.assertThrows(NullPointerException.class, () -> api.getTimeOfType("2", null, to));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> api.getTimeOfType("2", to, from));
+    }
+
+    private static Map<String, String> period(String type, String name, String start, String end) {
+        Map<String, String> period = new HashMap<>();
+        period.put(SchoolJson.TYPE, type);
+        period.put(SchoolJson.NAME, name);
+        period.put(SchoolJson.START, start);
+        period.put(SchoolJson.END, end);
+        return period;
+    }
+
+    @Test
+    public void testOverlay() throws FileNotFoundException {
+        SchoolAPI base = new SchoolAPI(TEST_SCHOOL_FILE);
+        Map<String, List<Map<String, String>>> days = new HashMap<>();
+        days.put("1970-03-03", new ArrayList<>());
+        days.get("1970-03-03").add(TestSchoolAPI.period("Nothing", "Morning", "00:00", "08:00"));
+        days.get("1970-03-03").add(TestSchoolAPI.period("2", "Double2", "08:00", "12:00"));
+        days.get("1970-03-03").add(TestSchoolAPI.period("Nothing", "Evening", "12:00", "23:59"));
+        days.put("1970-03-07", new ArrayList<>());
+        days.get("1970-03-07").add(TestSchoolAPI.period("Nothing", "Morning", "00:00", "09:00"));
+        days.get("1970-03-07").add(TestSchoolAPI.period("1", "Saturday1", "09:00", "11:00"));
+        days.get("1970-03-07").add(TestSchoolAPI.period("Nothing", "Evening", "11:00", "23:59"));
+        days.put("1950-01-01", days.get("1970-03-03"));
+        SchoolAPI api = base.withOverlay(days);
+
+        UTCTime morning = UTCTime.of("1970-03-03T09:00:00.000", "Z");
+        Assert.assertEquals(api.getCurrentPeriod(morning).getName(), "Double2");
+        Assert.assertEquals(api.getCurrentPeriod(morning).getStart(),
+                            UTCTime.of("1970-03-03T08:00:00.000", "Z"));
+        Assert.assertEquals(base.getCurrentPeriod(morning).getName(), "BeforeClass");
+        UTCTime other = UTCTime.of("1970-03-04T11:30:00.000", "Z");
+        Assert.assertEquals(api.getCurrentPeriod(other), base.getCurrentPeriod(other));
+        Assert.assertNull(api.getCurrentPeriod(UTCTime.of("1950-01-01T09:00:00.000", "Z")));
+
+        // The cursor walks contiguous periods that agree with getCurrentPeriod
+        UTCTime from = UTCTime.of("1970-02-20", "Z");
+        UTCTime to = UTCTime.of("1970-03-20", "Z");
+        List<SchoolPeriod> periods = new ArrayList<>();
+        long counted = 0;
+        long type2 = 0;
+        SchoolCursor cursor = api.getPeriods(from, to);
+        while (cursor.next()) {
+            SchoolPeriod period = cursor.getPeriod();
+            if (!periods.isEmpty()) {
+                Assert.assertEquals(periods.get(periods.size() - 1).getEnd().getEpoch() + 1,
+                                    period.getStart().getEpoch());
+            }
+            Assert.assertEquals(api.getCurrentPeriod(period.getStart()), period);
+            Assert.assertEquals(api.getCurrentPeriod(period.getEnd()), period);
+            Assert.assertArrayEquals(api.getCurrentPeriods(new long[] {period.getStart().getEpoch(),
+                                                                       period.getEnd().getEpoch()}),
+                                     new SchoolPeriod[] {period, period});
+            long time = Math.min(period.getEnd().getEpoch() + 1, to.getEpoch()) -
+                Math.max(period.getStart().getEpoch(), from.getEpoch());
+            counted += period.isCounted() ? time : 0;
+            type2 += period.getType().equals("2") ? time : 0;
+            periods.add(period);
+        }
+        Assert.assertEquals(api.getCountedTime(from, to).toString(),
+                            new Duration(counted).toString());
+        Assert.assertEquals(api.getTimeOfType("2", from, to).toString(),
+                            new Duration(type2).toString());
+        Assert.assertNotEquals(base.getCountedTime(from, to).toString(),
+                               new Duration(counted).toString());
+
+        // Searches across days agree with the periods walked by the cursor. Periods near the ends
+        // of the range are skipped, since their matches may be outside of the range
+        for (int i = 5; i < periods.size() - 10; i++) {
+            UTCTime time = periods.get(i).getStart();
+            int next = i;
+            while (!periods.get(next).isCounted()) {
+                next++;
+            }
+            int prev = i;
+            while (!periods.get(prev).isCounted()) {
+                prev--;
+            }
+            int nextType = i;
+            while (!periods.get(nextType).getType().equals("1")) {
+                nextType++;
+            }
+            int prevType = i;
+            while (!periods.get(prevType).getType().equals("1")) {
+                prevType--;
+            }
+            Assert.assertEquals(api.getNextCountedPeriod(time), periods.get(next));
+            Assert.assertEquals(api.getPreviousCountedPeriod(time), periods.get(prev));
+            Assert.assertEquals(api.getNextPeriodOfType(time, "1"), periods.get(nextType));
+            Assert.assertEquals(api.getPreviousPeriodOfType(time, "1"), periods.get(prevType));
+        }
+
+        Assert.assertEquals(api.getPeriodByType("2").getType(), "2");
+        Assert.assertSame(base.withOverlay(new HashMap<>()).getPeriodByType("3"), null);
+
+        Map<String, List<Map<String, String>>> invalid = new HashMap<>();
+        invalid.put("not a date", days.get("1970-03-03"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> base.withOverlay(invalid));
+        invalid.clear();
+        invalid.put("1970-03-03", days.get("1970-03-03").subList(0, 2));
+        Assert.assertThrows(IllegalArgumentException.class, () -> base.withOverlay(invalid));
+        Assert.assertThrows(NullPointerException.class, () -> base.withOverlay(null));
+    }
+
     @Test
     public void testGetters() throws FileNotFoundException {
         SchoolAPI api = new SchoolAPI(TEST_SCHOOL_FILE);
@@ -153,4 +533,37 @@ public class TestSchoolAPI {
         Assert.assertEquals(api.getLastPeriod(), 2);
     }
 
+    @Test
+    public void testBinaryCache() throws IOException {
+        Path cacheDir = Files.createTempDirectory("TestSchoolAPI");
+        Path binaryPath = cacheDir.resolve(TEST_SCHOOL_FILE.getFileName() + ".bin");
+        SchoolAPI json = new SchoolAPI(TEST_SCHOOL_FILE);
+
+        // The first load compiles the json file and writes the binary file, the second load reads
+        // the binary file, and a corrupted binary file is replaced by compiling the json again
+        SchoolAPI compiled = new SchoolAPI(TEST_SCHOOL_FILE, cacheDir);
+        Assert.assertTrue(Files.exists(binaryPath));
+        SchoolAPI loaded = new SchoolAPI(TEST_SCHOOL_FILE, cacheDir);
+        Files.write(binaryPath, new byte[] {'P', 'C', 'S', 'B', 0, 0, 0, 1, 0});
+        SchoolAPI recompiled = new SchoolAPI(TEST_SCHOOL_FILE, cacheDir);
+        Assert.assertTrue(Files.size(binaryPath) > 9);
+
+        for (SchoolAPI api : new SchoolAPI[] {compiled, loaded, recompiled}) {
+            Assert.assertEquals(api.getTimezone(), json.getTimezone());
+            Assert.assertEquals(api.getFirstPeriod(), json.getFirstPeriod());
+            Assert.assertEquals(api.getLastPeriod(), json.getLastPeriod());
+            Assert.assertEquals(api.getPeriodByType("1"), json.getPeriodByType("1"));
+
+            UTCTime time = UTCTime.of("1969-12-01", "Z");
+            UTCTime end = UTCTime.of("1971-02-01", "Z");
+            while (time.isBefore(end)) {
+                Assert.assertEquals(api.getCurrentPeriod(time), json.getCurrentPeriod(time));
+                time = time.plus(5, UTCTime.HOURS);
+            }
+        }
+
+        Files.delete(binaryPath);
+        Files.delete(cacheDir);
+    }
+
 }
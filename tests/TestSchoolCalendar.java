@@ -0,0 +1,251 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.io.FileReader;
+import java.io.IOException;
+import com.google.gson.Gson;
+import org.junit.Test;
+import org.junit.Assert;
+import time.UTCTime;
+import school.SchoolAPI;
+import school.SchoolCalendar;
+import school.SchoolJson;
+import school.SchoolYear;
+import school.SchoolPeriod;
+import school.SchoolCursor;
+import school.SchoolTimeline;
+
+
+public class TestSchoolCalendar {
+
+    public static final Path TEST_SCHOOL_FILE = Paths.get("tests/json/TestSchool.json");
+
+
+    private static SchoolJson loadJson(String timezone, String firstDayTag, String lastDayTag)
+        throws IOException
+    {
+        try (FileReader reader = new FileReader(TEST_SCHOOL_FILE.toString())) {
+            SchoolJson json = new Gson().fromJson(reader, SchoolJson.class);
+            json.info.put(SchoolJson.TIMEZONE, timezone);
+            json.info.put(SchoolJson.FIRST_DAY_TAG, firstDayTag);
+            json.info.put(SchoolJson.LAST_DAY_TAG, lastDayTag);
+            return json;
+        }
+    }
+
+
+    private static void assertSameSchedule(SchoolJson json) {
+        SchoolYear year = new SchoolYear(json);
+        SchoolCalendar calendar = new SchoolCalendar(json);
+        SchoolTimeline timeline = year.getTimeline();
+
+        for (int i = 0; i < timeline.size(); i++) {
+            SchoolPeriod period = timeline.getPeriod(i);
+            Assert.assertEquals(period, calendar.getPeriod(period.getStart()));
+            Assert.assertEquals(period, calendar.getPeriod(period.getEnd()));
+            Assert.assertEquals(year.getNextCountedPeriod(period.getStart()),
+                                calendar.getNextCountedPeriod(period.getStart()));
+            Assert.assertEquals(year.getPreviousCountedPeriod(period.getEnd()),
+                                calendar.getPreviousCountedPeriod(period.getEnd()));
+            Assert.assertEquals(year.getSnapshot(period.getStart()).toString(),
+                                calendar.getSnapshot(period.getStart()).toString());
+
+            // The days on which each type occurs are searched from the day of the period
+            if (i % 23 == 0) {
+                long from = period.getStart().getEpoch() + 1;
+                long to = from + 9 * 86400000L + 4321;
+                for (String type : new String[] {"1", "3", "Nothing"}) {
+                    Assert.assertEquals(year.getNextPeriodOfType(period.getEnd(), type),
+                                        calendar.getNextPeriodOfType(period.getEnd(), type));
+                    Assert.assertEquals(year.getPreviousPeriodOfType(period.getStart(), type),
+                                        calendar.getPreviousPeriodOfType(period.getStart(), type));
+                    Assert.assertEquals(year.getTimeOfType(type, from, to),
+                                        calendar.getTimeOfType(type, from, to));
+                }
+            }
+        }
+
+        UTCTime first = UTCTime.ofEpoch(timeline.getStart(0));
+        UTCTime last = UTCTime.ofEpoch(timeline.getEnd(timeline.size() - 1));
+        Assert.assertNull(calendar.getPeriod(first.plus(-1, UTCTime.MILLISECONDS)));
+        Assert.assertNull(calendar.getPeriod(last.plus(1, UTCTime.MILLISECONDS)));
+        for (UTCTime time : new UTCTime[] {first.plus(-1, UTCTime.DAYS),
+                                           first,
+                                           last,
+                                           last.plus(1, UTCTime.DAYS)})
+        {
+            Assert.assertEquals(year.getPeriodAtOrAfter(time), calendar.getPeriodAtOrAfter(time));
+            Assert.assertEquals(year.getPeriodAtOrBefore(time), calendar.getPeriodAtOrBefore(time));
+        }
+
+        long before = first.getEpoch() - 1;
+        long after = last.getEpoch() + 2;
+        long middle = (first.getEpoch() + last.getEpoch()) / 2;
+        TestSchoolCalendar.assertSameCursor(year.getCursor(before, after),
+                                            calendar.getCursor(before, after));
+        TestSchoolCalendar.assertSameCursor(year.getCursor(middle, middle + 3 * 86400000L),
+                                            calendar.getCursor(middle, middle + 3 * 86400000L));
+        TestSchoolCalendar.assertSameCursor(year.getCursor(middle, middle),
+                                            calendar.getCursor(middle, middle));
+
+        // Batch lookups agree with single lookups, whether the times are sorted or not
+        long[] epochs = new long[2 * timeline.size() + 2];
+        epochs[0] = before;
+        for (int i = 0; i < timeline.size(); i++) {
+            epochs[2 * i + 1] = timeline.getStart(i);
+            epochs[2 * i + 2] = (2 * timeline.getStart(i) + timeline.getEnd(i)) / 3;
+        }
+        epochs[epochs.length - 1] = after;
+        long[] unsorted = new long[epochs.length];
+        for (int i = 0; i < epochs.length; i++) {
+            unsorted[i] = epochs[(int) ((i * 7919L) % epochs.length)];
+        }
+        for (long[] batch : new long[][] {epochs, unsorted}) {
+            SchoolPeriod[] expected = new SchoolPeriod[batch.length];
+            SchoolPeriod[] actual = new SchoolPeriod[batch.length];
+            year.getPeriods(batch, expected);
+            calendar.getPeriods(batch, actual);
+            for (int i = 0; i < batch.length; i++) {
+                Assert.assertEquals(year.getPeriod(UTCTime.ofEpoch(batch[i])), expected[i]);
+                Assert.assertEquals(expected[i], actual[i]);
+            }
+        }
+
+        // The prefix sums of the timeline agree with summing the periods of the calendar
+        long[][] ranges = {{before, after},
+                           {middle, middle + 3 * 86400000L},
+                           {middle + 12345, middle + 40 * 86400000L + 6789},
+                           {middle, middle}};
+        for (long[] range : ranges) {
+            long expected = TestSchoolCalendar.sumCounted(calendar.getCursor(range[0], range[1]),
+                                                          range[0],
+                                                          range[1]);
+            Assert.assertEquals(expected, year.getCountedTime(range[0], range[1]));
+            Assert.assertEquals(expected, calendar.getCountedTime(range[0], range[1]));
+        }
+
+        // Occurrences of each type agree with walking the periods of the calendar
+        for (String type : new String[] {"1", "2", "Nothing", "3"}) {
+            for (UTCTime time : new UTCTime[] {first.plus(-1, UTCTime.DAYS),
+                                               UTCTime.ofEpoch(middle),
+                                               last.plus(1, UTCTime.DAYS)})
+            {
+                Assert.assertEquals(year.getNextPeriodOfType(time, type),
+                                    calendar.getNextPeriodOfType(time, type));
+                Assert.assertEquals(year.getPreviousPeriodOfType(time, type),
+                                    calendar.getPreviousPeriodOfType(time, type));
+            }
+            for (long[] range : ranges) {
+                Assert.assertEquals(year.getTimeOfType(type, range[0], range[1]),
+                                    calendar.getTimeOfType(type, range[0], range[1]));
+            }
+        }
+
+        // Both schedules resolve a type to its last occurrence, whose name is shown to users
+        for (String type : new String[] {"1", "2", "Special", "Nothing", "MondayHoliday", "3"}) {
+            Assert.assertEquals(year.getPeriodByType(type), calendar.getPeriodByType(type));
+        }
+        Assert.assertNull(calendar.getPeriodByType(null));
+    }
+
+    private static long sumCounted(SchoolCursor cursor, long from, long to) {
+        long sum = 0;
+        while (cursor.next()) {
+            if (cursor.isCounted()) {
+                sum += Math.min(cursor.getEnd() + 1, to) - Math.max(cursor.getStart(), from);
+            }
+        }
+        return sum;
+    }
+
+    private static void assertSameCursor(SchoolCursor expected, SchoolCursor actual) {
+        while (expected.next()) {
+            Assert.assertTrue(actual.next());
+            Assert.assertEquals(expected.getStart(), actual.getStart());
+            Assert.assertEquals(expected.getEnd(), actual.getEnd());
+            Assert.assertEquals(expected.getType(), actual.getType());
+            Assert.assertEquals(expected.getName(), actual.getName());
+            Assert.assertEquals(expected.isLast(), actual.isLast());
+            Assert.assertEquals(expected.isCounted(), actual.isCounted());
+            Assert.assertEquals(expected.getPeriod(), actual.getPeriod());
+        }
+        Assert.assertFalse(actual.next());
+    }
+
+    @Test
+    public void testSameAsSchoolYear() throws IOException {
+        TestSchoolCalendar.assertSameSchedule(TestSchoolCalendar.loadJson("Z",
+                                                                          "1970-01-01",
+                                                                          "1971-01-01"));
+    }
+
+    @Test
+    public void testSameAsSchoolYearWithDaylightSaving() throws IOException {
+        for (String timezone : new String[] {"America/Los_Angeles",
+                                             "America/Santiago",
+                                             "Asia/Tokyo",
+                                             "Australia/Lord_Howe"})
+        {
+            SchoolJson json = TestSchoolCalendar.loadJson(timezone, "2024-01-01", "2025-01-01");
+            json.exceptions.clear();
+            TestSchoolCalendar.assertSameSchedule(json);
+        }
+    }
+
+    @Test
+    public void testSchoolAPI() throws IOException {
+        SchoolJson json = TestSchoolCalendar.loadJson("Z", "1970-01-01", "1971-01-01");
+        SchoolAPI yearAPI = new SchoolAPI(json);
+        SchoolAPI calendarAPI = new SchoolAPI(new SchoolCalendar(json));
+
+        UTCTime time = UTCTime.of("1970-01-01", "Z");
+        UTCTime end = UTCTime.of("1971-01-01", "Z").plus(-1, UTCTime.DAYS);
+        while (time.isBefore(end)) {
+            Assert.assertEquals(yearAPI.getNextCountedPeriod(time),
+                                calendarAPI.getNextCountedPeriod(time));
+            Assert.assertEquals(yearAPI.getPreviousCountedPeriod(time),
+                                calendarAPI.getPreviousCountedPeriod(time));
+            time = time.plus(7, UTCTime.HOURS);
+        }
+
+        Assert.assertEquals(calendarAPI.getPeriodByType("1").getType(), "1");
+        Assert.assertEquals(calendarAPI.getPeriodByType("1").getName(),
+                            yearAPI.getPeriodByType("1").getName());
+        Assert.assertNull(calendarAPI.getPeriodByType("3"));
+
+        long[] epochs = {0L, 86400000L * 40 + 3600000L * 9, -1L, 86400000L * 400};
+        SchoolPeriod[] periods = calendarAPI.getCurrentPeriods(epochs);
+        for (int i = 0; i < epochs.length; i++) {
+            Assert.assertEquals(yearAPI.getCurrentPeriod(UTCTime.ofEpoch(epochs[i])), periods[i]);
+        }
+        Assert.assertThrows(NullPointerException.class, () -> calendarAPI.getCurrentPeriods(null));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> new SchoolCalendar(json).getPeriods(epochs, new SchoolPeriod[1]));
+    }
+
+    @Test
+    public void testGetters() throws IOException {
+        SchoolCalendar calendar =
+            new SchoolCalendar(TestSchoolCalendar.loadJson("Z", "1970-01-01", "1971-01-01"));
+
+        Assert.assertEquals(calendar.getTimezone(), "Z");
+        Assert.assertEquals(calendar.getFirstPeriod(), 1);
+        Assert.assertEquals(calendar.getLastPeriod(), 2);
+    }
+
+    @Test
+    public void testIllegalParameters() {
+        for (String p : new String[] {"tests/json/TestInvalidTimezone.json",
+                                      "tests/json/TestDiscontinuity.json",
+                                      "tests/json/TestDuplicateException.json",
+                                      "tests/json/TestConflictingException.json",
+                                      "tests/json/TestUndefinedException.json"})
+        {
+            Assert.assertThrows(IllegalArgumentException.class, () -> {
+                    try (FileReader reader = new FileReader(p)) {
+                        new SchoolCalendar(new Gson().fromJson(reader, SchoolJson.class));
+                    }
+                });
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.io.IOException;
+import java.io.FileNotFoundException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+import org.junit.Assert;
+import time.Duration;
+import time.UTCTime;
+import school.SchoolAPI;
+import school.SchoolHolder;
+
+
+public class TestSchoolHolder {
+
+    public static final Path TEST_SCHOOL_FILE = Paths.get("tests/json/TestSchool.json");
+    public static final Path TEST_MISSING_FILE = Paths.get("tests/json/TestMissingFile.json");
+
+
+    @Test
+    public void testReload() throws Exception {
+        SchoolHolder holder = new SchoolHolder();
+        Assert.assertNull(holder.get());
+        Assert.assertNull(holder.getLastReloadTime());
+
+        Duration reloadTime = holder.reload(() -> new SchoolAPI(TEST_SCHOOL_FILE)).get();
+        SchoolAPI first = holder.get();
+        Assert.assertNotNull(first);
+        Assert.assertSame(holder.getLastReloadTime(), reloadTime);
+        Assert.assertNotNull(first.getCurrentPeriod(UTCTime.of("1970-03-02", "Z")));
+
+        SchoolAPI second = new SchoolAPI(TEST_SCHOOL_FILE);
+        holder.set(second);
+        Assert.assertSame(holder.get(), second);
+    }
+
+    @Test
+    public void testReadersDoNotBlock() throws Exception {
+        SchoolHolder holder = new SchoolHolder();
+        SchoolAPI previous = new SchoolAPI(TEST_SCHOOL_FILE);
+        holder.set(previous);
+
+        // While a reload is compiling, readers see the previous schedule
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Duration> reload = holder.reload(() -> {
+                started.countDown();
+                try {
+                    finish.await();
+                }
+                catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return new SchoolAPI(TEST_SCHOOL_FILE);
+            });
+        started.await();
+        Assert.assertSame(holder.get(), previous);
+        Assert.assertFalse(reload.isDone());
+
+        finish.countDown();
+        reload.get();
+        Assert.assertNotSame(holder.get(), previous);
+    }
+
+    @Test
+    public void testReloadsInOrder() throws Exception {
+        SchoolHolder holder = new SchoolHolder();
+        SchoolAPI first = new SchoolAPI(TEST_SCHOOL_FILE);
+        SchoolAPI second = new SchoolAPI(TEST_SCHOOL_FILE);
+
+        CompletableFuture<Duration> slow = holder.reload(() -> {
+                try {
+                    Thread.sleep(100);
+                }
+                catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return first;
+            });
+        CompletableFuture<Duration> fast = holder.reload(() -> second);
+        fast.get();
+        Assert.assertTrue(slow.isDone());
+        Assert.assertSame(holder.get(), second);
+    }
+
+    @Test
+    public void testFailedReload() throws Exception {
+        SchoolHolder holder = new SchoolHolder();
+        SchoolAPI previous = new SchoolAPI(TEST_SCHOOL_FILE);
+        holder.set(previous);
+
+        CompletableFuture<Duration> missing = holder.reload(() -> new SchoolAPI(TEST_MISSING_FILE));
+        ExecutionException e = Assert.assertThrows(ExecutionException.class, () -> missing.get());
+        Assert.assertTrue(e.getCause() instanceof FileNotFoundException);
+        Assert.assertSame(holder.get(), previous);
+        Assert.assertNull(holder.getLastReloadTime());
+
+        CompletableFuture<Duration> empty = holder.reload(() -> null);
+        Assert.assertThrows(ExecutionException.class, () -> empty.get());
+        Assert.assertSame(holder.get(), previous);
+    }
+
+    @Test
+    public void testIllegalParameters() {
+        SchoolHolder holder = new SchoolHolder();
+        Assert.assertThrows(NullPointerException.class, () -> holder.set(null));
+        Assert.assertThrows(NullPointerException.class, () -> holder.reload(null));
+    }
+
+}
@@ -0,0 +1,102 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.Files;
+import java.io.IOException;
+import com.google.gson.Gson;
+import org.junit.Test;
+import org.junit.Assert;
+import school.SchoolJson;
+import school.SchoolJsonReader;
+
+
+public class TestSchoolJsonReader {
+
+    public static final Path TEST_SCHOOL_FILE = Paths.get("tests/json/TestSchool.json");
+
+
+    private static String loadContent() throws IOException {
+        return Files.readString(TEST_SCHOOL_FILE);
+    }
+
+
+    private static void assertRejected(String content) {
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> SchoolJsonReader.read(content));
+    }
+
+
+    @Test
+    public void testRead() throws IOException {
+        String content = TestSchoolJsonReader.loadContent();
+        SchoolJson expected = new Gson().fromJson(content, SchoolJson.class);
+        SchoolJson json = SchoolJsonReader.read(content);
+
+        Assert.assertEquals(expected.info, json.info);
+        Assert.assertEquals(expected.days, json.days);
+        Assert.assertEquals(expected.weeks, json.weeks);
+        Assert.assertEquals(expected.exceptions, json.exceptions);
+    }
+
+
+    @Test
+    public void testReadSkipsUnknownKeys() {
+        SchoolJson json = SchoolJsonReader.read("{\"Comment\": [1, {\"a\": null}], " +
+                                                "\"Info\": {\"FirstPeriod\": 1}}");
+        Assert.assertEquals("1", json.info.get(SchoolJson.FIRST_PERIOD));
+        Assert.assertNull(json.days);
+    }
+
+
+    @Test
+    public void testReadLenient() {
+        // Uploads were read by Gson.fromJson, which accepts comments, single quotes, and
+        // unquoted names, so the same content is accepted here
+        String content = "// uploaded school\n" +
+            "{Info: {'FirstPeriod': '1', LastPeriod: 7}, 'Exceptions': []}";
+        SchoolJson expected = new Gson().fromJson(content, SchoolJson.class);
+        SchoolJson json = SchoolJsonReader.read(content);
+
+        Assert.assertEquals(expected.info, json.info);
+        Assert.assertEquals(expected.exceptions, json.exceptions);
+        Assert.assertEquals("7", json.info.get(SchoolJson.LAST_PERIOD));
+    }
+
+
+    @Test
+    public void testReadOversized() throws IOException {
+        String content = TestSchoolJsonReader.loadContent();
+        Assert.assertNotNull(SchoolJsonReader.read(content, content.length()));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> SchoolJsonReader.read(content, content.length() - 1));
+        String oversized = " ".repeat(SchoolJsonReader.MAX_LENGTH + 1);
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> SchoolJsonReader.read(oversized));
+    }
+
+
+    @Test
+    public void testReadMalformed() {
+        TestSchoolJsonReader.assertRejected("");
+        TestSchoolJsonReader.assertRejected("this is not valid json syntax");
+        TestSchoolJsonReader.assertRejected("[]");
+        TestSchoolJsonReader.assertRejected("{\"Info\": {\"FirstPeriod\": \"1\"}");
+        TestSchoolJsonReader.assertRejected("{} {}");
+        TestSchoolJsonReader.assertRejected("{\"Info\": []}");
+        TestSchoolJsonReader.assertRejected("{\"Info\": {\"FirstPeriod\": {}}}");
+        TestSchoolJsonReader.assertRejected("{\"Info\": {}, \"Info\": {}}");
+        TestSchoolJsonReader.assertRejected("{\"Info\": {\"A\": \"1\", \"A\": \"2\"}}");
+        TestSchoolJsonReader.assertRejected("{\"Days\": {\"Day\": {}}}");
+        TestSchoolJsonReader.assertRejected("{\"Days\": {\"Day\": [\"Period\"]}}");
+        TestSchoolJsonReader.assertRejected("{\"Weeks\": {\"DEFAULT\": [[]]}}");
+        TestSchoolJsonReader.assertRejected("{\"Exceptions\": {}}");
+        TestSchoolJsonReader.assertRejected("{\"Exceptions\": null}");
+    }
+
+
+    @Test
+    public void testIllegalParameters() {
+        Assert.assertThrows(NullPointerException.class, () -> SchoolJsonReader.read(null));
+        Assert.assertThrows(IllegalArgumentException.class, () -> SchoolJsonReader.read("{}", 0));
+    }
+
+}
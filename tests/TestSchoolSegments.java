@@ -0,0 +1,238 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.ArrayList;
+import com.google.gson.Gson;
+import org.junit.Test;
+import org.junit.Assert;
+import time.UTCTime;
+import school.SchoolAPI;
+import school.SchoolCursor;
+import school.SchoolYear;
+import school.SchoolJson;
+import school.SchoolPeriod;
+import school.SchoolSegments;
+import school.SchoolSnapshot;
+
+
+public class TestSchoolSegments {
+
+    public static final Path TEST_SCHOOL_FILE = Paths.get("tests/json/TestSchool.json");
+
+
+    private static SchoolJson loadYear(String firstDay, String lastDay) throws IOException {
+        SchoolJson json = new Gson().fromJson(Files.readString(TEST_SCHOOL_FILE), SchoolJson.class);
+        json.info.put(SchoolJson.FIRST_DAY_TAG, firstDay);
+        json.info.put(SchoolJson.LAST_DAY_TAG, lastDay);
+        return json;
+    }
+
+
+    private static List<SchoolJson> loadYears() throws IOException {
+        List<SchoolJson> years = new ArrayList<>();
+        years.add(TestSchoolSegments.loadYear("1970-01-01", "1970-06-12"));
+        years.add(TestSchoolSegments.loadYear("1970-09-01", "1971-01-01"));
+        return years;
+    }
+
+
+    @Test
+    public void testLazyLoading() throws IOException {
+        SchoolSegments segments = new SchoolSegments(TestSchoolSegments.loadYears());
+        Assert.assertEquals(2, segments.size());
+        Assert.assertFalse(segments.isLoaded(0));
+        Assert.assertFalse(segments.isLoaded(1));
+
+        Assert.assertNotNull(segments.getPeriod(UTCTime.of("1970-10-05T10:00:00.000", "Z")));
+        Assert.assertFalse(segments.isLoaded(0));
+        Assert.assertTrue(segments.isLoaded(1));
+
+        Assert.assertEquals(1, segments.evictIdle(0));
+        Assert.assertFalse(segments.isLoaded(1));
+        Assert.assertNotNull(segments.getPeriod(UTCTime.of("1970-10-05T10:00:00.000", "Z")));
+        Assert.assertTrue(segments.isLoaded(1));
+        Assert.assertEquals(0, segments.evictIdle(60 * 60 * 1000));
+    }
+
+
+    @Test
+    public void testCopiesJson() throws IOException {
+        // A year compiled again after an eviction is compiled from the data the schedule was
+        // constructed with, even if the caller has since changed it
+        List<SchoolJson> years = TestSchoolSegments.loadYears();
+        SchoolSegments segments = new SchoolSegments(years);
+        UTCTime time = UTCTime.of("1970-10-05T10:00:00.000", "Z");
+        SchoolPeriod expected = segments.getPeriod(time);
+
+        for (List<Map<String, String>> periods : years.get(1).days.values()) {
+            for (Map<String, String> period : periods) {
+                period.put(SchoolJson.NAME, "Changed");
+            }
+        }
+        Assert.assertEquals(1, segments.evictIdle(0));
+        Assert.assertEquals(expected, segments.getPeriod(time));
+    }
+
+
+    @Test
+    public void testEvictOnCompile() throws IOException {
+        SchoolSegments segments =
+            new SchoolSegments(TestSchoolSegments.loadYears(), 0, Long.MAX_VALUE);
+        Assert.assertNotNull(segments.getPeriod(UTCTime.of("1970-02-02T10:00:00.000", "Z")));
+        Assert.assertTrue(segments.isLoaded(0));
+
+        // Compiling the second year evicts the first, which has been idle for the idle time
+        Assert.assertNotNull(segments.getPeriod(UTCTime.of("1970-10-05T10:00:00.000", "Z")));
+        Assert.assertFalse(segments.isLoaded(0));
+        Assert.assertTrue(segments.isLoaded(1));
+        Assert.assertFalse(segments.isCompacted(1));
+
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> new SchoolSegments(TestSchoolSegments.loadYears(), -1, 0));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> new SchoolSegments(TestSchoolSegments.loadYears(), 0, -1));
+    }
+
+
+    @Test
+    public void testColdYears() throws IOException {
+        List<SchoolJson> years = TestSchoolSegments.loadYears();
+        SchoolSegments cold = new SchoolSegments(years);
+        SchoolSegments hot = new SchoolSegments(years, SchoolSegments.DEFAULT_IDLE_TIME,
+                                                Long.MAX_VALUE);
+
+        // Both years ended long ago, so they are compacted unless the threshold is never reached
+        UTCTime start = UTCTime.of("1969-12-20", "Z");
+        UTCTime end = UTCTime.of("1971-01-10", "Z");
+        Assert.assertNotNull(cold.getPeriodAtOrAfter(start));
+        Assert.assertNotNull(hot.getPeriodAtOrAfter(start));
+        Assert.assertTrue(cold.isCompacted(0));
+        Assert.assertFalse(hot.isCompacted(0));
+
+        for (UTCTime time = start; time.isBefore(end); time = time.plus(5, UTCTime.HOURS)) {
+            Assert.assertEquals(String.valueOf(hot.getPeriod(time)),
+                                String.valueOf(cold.getPeriod(time)));
+            Assert.assertEquals(String.valueOf(hot.getPeriodAtOrAfter(time)),
+                                String.valueOf(cold.getPeriodAtOrAfter(time)));
+            Assert.assertEquals(String.valueOf(hot.getPeriodAtOrBefore(time)),
+                                String.valueOf(cold.getPeriodAtOrBefore(time)));
+            Assert.assertEquals(String.valueOf(hot.getSnapshot(time)),
+                                String.valueOf(cold.getSnapshot(time)));
+            Assert.assertEquals(String.valueOf(hot.getNextPeriodOfType(time, "2")),
+                                String.valueOf(cold.getNextPeriodOfType(time, "2")));
+            Assert.assertEquals(String.valueOf(hot.getPreviousPeriodOfType(time, "Special")),
+                                String.valueOf(cold.getPreviousPeriodOfType(time, "Special")));
+        }
+
+        long from = start.getEpoch();
+        long to = end.getEpoch();
+        Assert.assertEquals(hot.getCountedTime(from, to), cold.getCountedTime(from, to));
+        Assert.assertEquals(hot.getTimeOfType("1", from + 12345, to - 6789),
+                            cold.getTimeOfType("1", from + 12345, to - 6789));
+        Assert.assertEquals(String.valueOf(hot.getPeriodByType("MondayHoliday")),
+                            String.valueOf(cold.getPeriodByType("MondayHoliday")));
+
+        SchoolCursor hotCursor = hot.getCursor(from, to);
+        SchoolCursor coldCursor = cold.getCursor(from, to);
+        while (hotCursor.next()) {
+            Assert.assertTrue(coldCursor.next());
+            Assert.assertEquals(hotCursor.getPeriod().toString(),
+                                coldCursor.getPeriod().toString());
+            Assert.assertEquals(hotCursor.isCounted(), coldCursor.isCounted());
+        }
+        Assert.assertFalse(coldCursor.next());
+    }
+
+
+    @Test
+    public void testMatchesYears() throws IOException {
+        List<SchoolJson> years = TestSchoolSegments.loadYears();
+        SchoolSegments segments = new SchoolSegments(years);
+        SchoolYear first = new SchoolYear(years.get(0));
+        SchoolYear second = new SchoolYear(years.get(1));
+
+        UTCTime time = UTCTime.of("1970-01-01", "Z");
+        UTCTime end = UTCTime.of("1971-01-01", "Z");
+        UTCTime split = UTCTime.of("1970-08-30", "Z");
+        while (time.isBefore(end)) {
+            SchoolYear year = time.isBefore(split) ? first : second;
+            SchoolPeriod expected = year.getPeriod(time);
+            SchoolPeriod period = segments.getPeriod(time);
+            Assert.assertEquals(String.valueOf(expected), String.valueOf(period));
+            time = time.plus(7, UTCTime.HOURS);
+        }
+
+        long from = UTCTime.of("1970-01-01", "Z").getEpoch();
+        long to = end.getEpoch();
+        long counted = first.getCountedTime(from, split.getEpoch()) +
+            second.getCountedTime(split.getEpoch(), to);
+        Assert.assertEquals(counted, segments.getCountedTime(from, to));
+
+        // A batch spanning both years is split into a lookup of each year
+        long[] epochs = new long[(int) ((to - from) / (7 * 3600000L))];
+        for (int i = 0; i < epochs.length; i++) {
+            epochs[i] = from + i * 7 * 3600000L;
+        }
+        SchoolPeriod[] periods = new SchoolPeriod[epochs.length];
+        segments.getPeriods(epochs, periods);
+        for (int i = 0; i < epochs.length; i++) {
+            Assert.assertEquals(segments.getPeriod(UTCTime.ofEpoch(epochs[i])), periods[i]);
+        }
+    }
+
+
+    @Test
+    public void testAcrossYears() throws IOException {
+        List<SchoolJson> years = TestSchoolSegments.loadYears();
+        SchoolSegments segments = new SchoolSegments(years);
+        SchoolYear first = new SchoolYear(years.get(0));
+        SchoolYear second = new SchoolYear(years.get(1));
+        SchoolAPI api = new SchoolAPI(segments);
+
+        // Each year has periods for every day of the weeks it touches
+        UTCTime lastDay = UTCTime.of("1970-06-12T23:00:00.000", "Z");
+        UTCTime firstWeek = UTCTime.of("1970-08-30", "Z");
+        SchoolPeriod lastCounted = first.getPreviousCountedPeriod(lastDay);
+        SchoolPeriod firstCounted = second.getNextCountedPeriod(firstWeek);
+        Assert.assertNotNull(lastCounted);
+        Assert.assertNotNull(firstCounted);
+
+        // During the summer, the countdown runs from the end of one year to the start of the next
+        UTCTime summer = UTCTime.of("1970-07-20T12:00:00.000", "Z");
+        SchoolSnapshot snapshot = api.snapshot(summer);
+        Assert.assertEquals(firstCounted.toString(),
+                            String.valueOf(snapshot.getNextCountedPeriod()));
+        Assert.assertEquals(lastCounted.toString(),
+                            String.valueOf(snapshot.getPreviousCountedPeriod()));
+        Assert.assertEquals(firstCounted.toString(),
+                            String.valueOf(api.getNextCountedPeriod(summer)));
+
+        // On the last day of the first year, the next counted period is in the second year
+        SchoolSnapshot last = segments.getSnapshot(lastDay);
+        Assert.assertNotNull(last);
+        Assert.assertEquals(firstCounted.toString(), String.valueOf(last.getNextCountedPeriod()));
+        Assert.assertNull(segments.advanceSnapshot(last, firstCounted.getStart(), 1000));
+    }
+
+
+    @Test
+    public void testIllegalYears() throws IOException {
+        Assert.assertThrows(NullPointerException.class, () -> new SchoolSegments(null));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> new SchoolSegments(new ArrayList<>()));
+
+        List<SchoolJson> overlapping = new ArrayList<>();
+        overlapping.add(TestSchoolSegments.loadYear("1970-01-01", "1970-06-12"));
+        overlapping.add(TestSchoolSegments.loadYear("1970-06-10", "1971-01-01"));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> new SchoolSegments(overlapping));
+
+        List<SchoolJson> zones = TestSchoolSegments.loadYears();
+        zones.get(1).info.put(SchoolJson.TIMEZONE, "America/Los_Angeles");
+        Assert.assertThrows(IllegalArgumentException.class, () -> new SchoolSegments(zones));
+    }
+
+}
@@ -1,17 +1,57 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import org.junit.Test;
 import org.junit.Assert;
+import com.google.gson.Gson;
 import time.UTCTime;
 import school.SchoolYear;
+import school.SchoolJson;
 import school.SchoolPeriod;
+import school.SchoolTimeline;
+import school.CompactTimeline;
+import school.SchoolCursor;
 
 
 public class TestSchoolYear {
 
     public static final Path TEST_SCHOOL_FILE = Paths.get("tests/json/TestSchool.json");
 
+
+    private static SchoolJson loadJson(String timezone, String lastDayTag) throws IOException {
+        try (FileReader reader = new FileReader(TEST_SCHOOL_FILE.toString())) {
+            SchoolJson json = new Gson().fromJson(reader, SchoolJson.class);
+            json.info.put(SchoolJson.TIMEZONE, timezone);
+            json.info.put(SchoolJson.LAST_DAY_TAG, lastDayTag);
+            return json;
+        }
+    }
+
+    private static void assertSameYear(SchoolYear expected, SchoolYear actual) {
+        SchoolTimeline expectedTimeline = expected.getTimeline();
+        SchoolTimeline actualTimeline = actual.getTimeline();
+        Assert.assertEquals(actualTimeline.size(), expectedTimeline.size());
+        for (int i = 0; i < expectedTimeline.size(); i++) {
+            Assert.assertEquals(actualTimeline.getPeriod(i), expectedTimeline.getPeriod(i));
+        }
+        for (String type : new String[] {"Nothing", "Special", "1", "2"}) {
+            Assert.assertEquals(actual.getPeriodByType(type), expected.getPeriodByType(type));
+        }
+    }
+
     @Test
     public void testWalkYear() throws FileNotFoundException {
         SchoolYear year = new SchoolYear(TEST_SCHOOL_FILE);
@@ -41,6 +81,268 @@ public class TestSchoolYear {
         Assert.assertEquals(year.getPeriod(time).getName(), "BeforeClass");
     }
 
+    @Test
+    public void testTimeline() throws FileNotFoundException {
+        SchoolYear year = new SchoolYear(TEST_SCHOOL_FILE);
+        SchoolTimeline timeline = year.getTimeline();
+
+        Assert.assertTrue(timeline.size() > 0);
+        Assert.assertEquals(timeline.indexOf(timeline.getStart(0) - 1), -1);
+        Assert.assertEquals(timeline.indexOf(timeline.getEnd(timeline.size() - 1) + 1), -1);
+        for (int i = 0; i < timeline.size(); i++) {
+            Assert.assertEquals(timeline.indexOf(timeline.getStart(i)), i);
+            Assert.assertEquals(timeline.indexOf(timeline.getEnd(i)), i);
+            if (i > 0) {
+                Assert.assertEquals(timeline.getEnd(i - 1) + 1, timeline.getStart(i));
+            }
+
+            SchoolPeriod period = timeline.getPeriod(i);
+            Assert.assertEquals(year.getPeriod(period.getStart()), period);
+        }
+    }
+
+    @Test
+    public void testBatchIndexOf() throws FileNotFoundException {
+        SchoolTimeline timeline = new SchoolYear(TEST_SCHOOL_FILE).getTimeline();
+        long first = timeline.getStart(0) - 86400000L;
+        long last = timeline.getEnd(timeline.size() - 1) + 86400000L;
+
+        // Sorted times, every 7 minutes across the whole year and beyond both ends
+        int count = (int) ((last - first) / 420000) + 1;
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = first + i * 420000L;
+        }
+        // Unsorted times, including large jumps in both directions
+        Random random = new Random(2023);
+        long[] unsorted = new long[SchoolTimeline.PARALLEL_THRESHOLD * 3];
+        for (int i = 0; i < unsorted.length; i++) {
+            unsorted[i] = first + (long) (random.nextDouble() * (last - first));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (long[] epochs : new long[][] {sorted, unsorted, new long[0]}) {
+            int[] indices = new int[epochs.length];
+            int[] parallelIndices = new int[epochs.length];
+            timeline.indexOf(epochs, indices);
+            timeline.indexOf(epochs, parallelIndices, pool);
+            for (int i = 0; i < epochs.length; i++) {
+                Assert.assertEquals(indices[i], timeline.indexOf(epochs[i]));
+                Assert.assertEquals(parallelIndices[i], indices[i]);
+            }
+        }
+        pool.shutdown();
+
+        Assert.assertThrows(NullPointerException.class,
+                            () -> timeline.indexOf(null, new int[0]));
+        Assert.assertThrows(NullPointerException.class,
+                            () -> timeline.indexOf(new long[0], null));
+        Assert.assertThrows(NullPointerException.class,
+                            () -> timeline.indexOf(new long[0], new int[0], null));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> timeline.indexOf(new long[2], new int[1]));
+    }
+
+    @Test
+    public void testCompileFile() throws IOException {
+        // Reading the file directly into its compiled form creates the same year as the Gson and
+        // SchoolJson route
+        SchoolJson json = TestSchoolYear.loadJson("Z", "1971-01-01");
+        SchoolYear year = new SchoolYear(TEST_SCHOOL_FILE);
+        TestSchoolYear.assertSameYear(new SchoolYear(json), year);
+    }
+
+    @Test
+    public void testDaylightSavingTransitions() {
+        // Period boundaries fall inside the spring-forward gap or fall-back overlap of each zone,
+        // but no period is shortened to nothing by a gap. Zones are chosen for 1 hour transitions
+        // in both hemispheres, a 30 minute transition (Lord_Howe), a transition at midnight
+        // (Sao_Paulo), and a non-hourly offset (St_Johns)
+        String[] boundaries = {"00:00", "01:30", "02:45", "04:00", "12:00", "18:00", "23:00",
+                               "23:30", "23:59"};
+        int periodsPerDay = boundaries.length - 1;
+        List<Map<String, String>> periods = new ArrayList<>();
+        for (int k = 0; k < periodsPerDay; k++) {
+            Map<String, String> period = new HashMap<>();
+            period.put(SchoolJson.TYPE, k % 2 == 0 ? "1" : SchoolJson.NOTHING);
+            period.put(SchoolJson.NAME, "Period" + k);
+            period.put(SchoolJson.START, boundaries[k]);
+            period.put(SchoolJson.END, boundaries[k + 1]);
+            periods.add(period);
+        }
+        List<String> week = new ArrayList<>();
+        for (int d = 0; d < 7; d++) {
+            week.add("Day");
+        }
+
+        for (String timezone : new String[] {"America/Los_Angeles",
+                                             "Europe/London",
+                                             "Australia/Sydney",
+                                             "Australia/Lord_Howe",
+                                             "America/Sao_Paulo",
+                                             "America/St_Johns"})
+        {
+            SchoolJson json = new SchoolJson();
+            json.info = new HashMap<>();
+            json.info.put(SchoolJson.FIRST_PERIOD, "1");
+            json.info.put(SchoolJson.LAST_PERIOD, "1");
+            json.info.put(SchoolJson.FIRST_DAY_TAG, "2017-07-02");
+            json.info.put(SchoolJson.LAST_DAY_TAG, "2018-06-30");
+            json.info.put(SchoolJson.TIMEZONE, timezone);
+            json.days = new HashMap<>();
+            json.days.put("Day", periods);
+            json.weeks = new HashMap<>();
+            json.weeks.put(SchoolJson.DEFAULT, week);
+            json.exceptions = new ArrayList<>();
+
+            ZoneId zone = ZoneId.of(timezone);
+            SchoolTimeline timeline = new SchoolYear(json).getTimeline();
+            ZonedDateTime first = Instant.ofEpochMilli(timeline.getStart(0)).atZone(zone);
+            Assert.assertEquals(0, first.toLocalTime().toSecondOfDay());
+            Assert.assertEquals(0, timeline.size() % periodsPerDay);
+
+            // Each boundary must match resolving its local time with the zone rules directly
+            LocalDate firstDate = first.toLocalDate();
+            int transitions = 0;
+            for (int i = 0; i < timeline.size(); i++) {
+                LocalDate date = firstDate.plusDays(i / periodsPerDay);
+                LocalTime time = LocalTime.parse(boundaries[i % periodsPerDay]);
+                ZonedDateTime local = ZonedDateTime.ofLocal(date.atTime(time), zone, null);
+                Assert.assertEquals(timezone + " " + local,
+                                    local.toInstant().toEpochMilli(),
+                                    timeline.getStart(i));
+                if (i > 0) {
+                    Assert.assertEquals(timeline.getEnd(i - 1) + 1, timeline.getStart(i));
+                }
+                if (i % periodsPerDay == 0 &&
+                    !zone.getRules().getOffset(local.toInstant())
+                    .equals(zone.getRules().getOffset(local.toInstant().plusSeconds(86400))))
+                {
+                    transitions++;
+                }
+            }
+            Assert.assertEquals(timezone, 2, transitions);
+        }
+    }
+
+    @Test
+    public void testCountedJumpTables() throws FileNotFoundException {
+        SchoolTimeline timeline = new SchoolYear(TEST_SCHOOL_FILE).getTimeline();
+
+        for (int i = 0; i < timeline.size(); i++) {
+            int next = i;
+            while (next < timeline.size() && !timeline.isCounted(next)) {
+                next++;
+            }
+            int prev = i;
+            while (prev >= 0 && !timeline.isCounted(prev)) {
+                prev--;
+            }
+
+            Assert.assertEquals(timeline.getNextCounted(i), next == timeline.size() ? -1 : next);
+            Assert.assertEquals(timeline.getPreviousCounted(i), prev);
+        }
+    }
+
+    @Test
+    public void testOccurrenceIndex() throws FileNotFoundException {
+        SchoolTimeline timeline = new SchoolYear(TEST_SCHOOL_FILE).getTimeline();
+
+        for (String type : new String[] {"1", "2", "Nothing", "3"}) {
+            int prev = -1;
+            for (int i = 0; i < timeline.size(); i++) {
+                if (timeline.getType(i).equals(type)) {
+                    prev = i;
+                }
+                int next = i;
+                while (next < timeline.size() && !timeline.getType(next).equals(type)) {
+                    next++;
+                }
+
+                Assert.assertEquals(timeline.getNextOfType(type, i),
+                                    next == timeline.size() ? -1 : next);
+                Assert.assertEquals(timeline.getPreviousOfType(type, i), prev);
+            }
+        }
+
+        String name = timeline.getName(0);
+        long first = timeline.getStart(0) - 86400000L;
+        long last = timeline.getEnd(timeline.size() - 1) + 86400000L;
+        for (int i = 0; i < TestMain.RANDOM_TEST_AMOUNT; i++) {
+            long from = first + (long) (TestMain.RANDOM_DIS.nextDouble() * (last - first));
+            long to = from + (long) (TestMain.RANDOM_DIS.nextDouble() * (last - from));
+
+            long expectedType = 0;
+            long expectedName = 0;
+            SchoolCursor cursor = timeline.cursor(from, to);
+            while (cursor.next()) {
+                long time = Math.min(cursor.getEnd() + 1, to) - Math.max(cursor.getStart(), from);
+                expectedType += cursor.getType().equals("1") ? time : 0;
+                expectedName += cursor.getName().equals(name) ? time : 0;
+            }
+            Assert.assertEquals(timeline.getTimeOfType("1", from, to), expectedType);
+            Assert.assertEquals(timeline.getTimeOfName(name, from, to), expectedName);
+        }
+        Assert.assertEquals(timeline.getTimeOfType("3", first, last), 0);
+        Assert.assertEquals(timeline.getNextOfName("not a name", 0), -1);
+
+        Assert.assertThrows(NullPointerException.class, () -> timeline.getNextOfType(null, 0));
+        Assert.assertThrows(NullPointerException.class,
+                            () -> timeline.getTimeOfName(null, first, last));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> timeline.getTimeOfType("1", last, first));
+    }
+
+    @Test
+    public void testCompactTimeline() throws FileNotFoundException {
+        SchoolTimeline timeline = new SchoolYear(TEST_SCHOOL_FILE).getTimeline();
+        CompactTimeline compact = new CompactTimeline(timeline);
+
+        Assert.assertEquals(compact.size(), timeline.size());
+        Assert.assertTrue(compact.getEncodedSize() < 25L * timeline.size());
+        for (int i = 0; i < timeline.size(); i++) {
+            Assert.assertEquals(compact.getStart(i), timeline.getStart(i));
+            Assert.assertEquals(compact.getEnd(i), timeline.getEnd(i));
+            Assert.assertEquals(compact.getType(i), timeline.getType(i));
+            Assert.assertEquals(compact.getName(i), timeline.getName(i));
+            Assert.assertEquals(compact.isLast(i), timeline.isLast(i));
+            Assert.assertEquals(compact.isCounted(i), timeline.isCounted(i));
+            Assert.assertEquals(compact.getPeriod(i).toString(), timeline.getPeriod(i).toString());
+        }
+
+        long first = timeline.getStart(0) - 86400000L;
+        long last = timeline.getEnd(timeline.size() - 1) + 86400000L;
+        for (int i = 0; i < TestMain.RANDOM_TEST_AMOUNT; i++) {
+            long from = first + (long) (TestMain.RANDOM_DIS.nextDouble() * (last - first));
+            long to = from + (long) (TestMain.RANDOM_DIS.nextDouble() * (last - from));
+
+            Assert.assertEquals(compact.indexOf(from), timeline.indexOf(from));
+            Assert.assertEquals(compact.floorIndexOf(from), timeline.floorIndexOf(from));
+            Assert.assertEquals(compact.ceilingIndexOf(from), timeline.ceilingIndexOf(from));
+            Assert.assertEquals(compact.getCountedTime(from, to),
+                                timeline.getCountedTime(from, to));
+        }
+
+        SchoolTimeline inflated = compact.toTimeline();
+        Assert.assertEquals(inflated.size(), timeline.size());
+        for (int i = 0; i < timeline.size(); i++) {
+            Assert.assertEquals(inflated.getPeriod(i).toString(),
+                                timeline.getPeriod(i).toString());
+            Assert.assertEquals(inflated.getNextCounted(i), timeline.getNextCounted(i));
+        }
+
+        long end = timeline.getEnd(timeline.size() - 1);
+        Assert.assertFalse(CompactTimeline.isCold(timeline, end, 0));
+        Assert.assertFalse(CompactTimeline.isCold(timeline, end + 1000, 1000));
+        Assert.assertTrue(CompactTimeline.isCold(timeline, end + 1001, 1000));
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> compact.getStart(-1));
+        Assert.assertThrows(IndexOutOfBoundsException.class,
+                            () -> compact.getPeriod(timeline.size()));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> compact.getCountedTime(last, first));
+        Assert.assertThrows(NullPointerException.class, () -> new CompactTimeline(null));
+    }
+
     @Test
     public void testGetters() throws FileNotFoundException {
         SchoolYear year = new SchoolYear(TEST_SCHOOL_FILE);
@@ -80,7 +382,10 @@ public class TestSchoolYear {
                                       "tests/json/TestInvalidPeriodRange.json",
                                       "tests/json/TestInvalidFirstDayTag.json",
                                       "tests/json/TestInvalidLastDayTag.json",
-                                      "tests/json/TestInvalidTimezone.json"})
+                                      "tests/json/TestInvalidTimezone.json",
+                                      "tests/json/TestDuplicateException.json",
+                                      "tests/json/TestConflictingException.json",
+                                      "tests/json/TestUndefinedException.json"})
         {
             Assert.assertThrows(IllegalArgumentException.class, () -> new SchoolYear(Paths.get(p)));
         }
@@ -93,6 +93,14 @@ public class TestUTCTime {
         }
     }
 
+    @Test
+    public void testOfEpoch() {
+        for (int i = 0; i < TestMain.RANDOM_TEST_AMOUNT; i++) {
+            UTCTime time = TestMain.randomTime();
+            Assert.assertEquals(UTCTime.ofEpoch(time.getEpoch()), time);
+        }
+    }
+
     @Test
     public void testOfWithLeapDate() {
         UTCTime.of("2020-02-29", "Z");  // No error should be thrown